@@ -0,0 +1,416 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonToken;
+
+import io.github.matteobertozzi.yajbe.YajbeReader.ByteArraySlice;
+
+/**
+ * Sidecar index of a document that is a top-level array.
+ * Every N elements a checkpoint is recorded, with the offset of the element
+ * and the state of the field-name index and of the enum mapping at that point.
+ * <p>
+ * {@link YajbeFactory#createParser(byte[], YajbeArrayIndex, long)} uses the index to start
+ * decoding from the nearest checkpoint, and skips at most N - 1 elements
+ * to reach the requested one.
+ * <pre>
+ *   final YajbeArrayIndex index = YajbeArrayIndex.build(file, 1024);
+ *   index.writeTo(indexStream);  // optional, to store it next to the data
+ *   try (JsonParser parser = factory.createParser(file, index, 4_000_000)) {
+ *     final Event[] page = mapper.readValue(parser, Event[].class);
+ *   }
+ * </pre>
+ * The top-level typed arrays and the streams using the TinyLFU enum mapping are not supported,
+ * build() fails with an IOException.
+ * <p>
+ * An index is immutable and can be shared between threads.
+ */
+public final class YajbeArrayIndex {
+  private static final int FORMAT_VERSION = 2;
+
+  private final int interval;
+  private final long size;
+  private final boolean eofArray;
+  // id of the dictionary referenced by the stream, -1 if the stream has no dictionary
+  private final int dictionaryId;
+  private final Checkpoint[] checkpoints;
+  private final byte[][] fieldNames;
+  // enum mapping type, config and indexed strings (enumLruSize and enumMinFreq are used only by the lru)
+  private final int enumMappingType;
+  private final int enumLruSize;
+  private final int enumMinFreq;
+  private final String[] enumStrings;
+
+  /**
+   * State of the decoder before reading an element.
+   * @param offset the offset of the element
+   * @param fieldNameCount the number of field names indexed
+   * @param lastKey the last field name read (for the prefix compression), or null
+   * @param enumState the enum mapping state, or null if the enum config was not found yet
+   */
+  record Checkpoint (long offset, int fieldNameCount, byte[] lastKey, YajbeEnumLruMapping.Snapshot enumState) {}
+
+  private static final int ENUM_MAPPING_NONE = 0;
+  private static final int ENUM_MAPPING_LRU = 1;
+  // index markers: the mapping is append-only, the checkpoint state is just the number of indexed strings
+  private static final int ENUM_MAPPING_LIST = 2;
+
+  private static final String[] NO_LRU_KEYS = new String[0];
+  private static final int[] NO_LRU_FREQS = new int[0];
+
+  private YajbeArrayIndex(final int interval, final long size, final boolean eofArray, final int dictionaryId, final Checkpoint[] checkpoints,
+      final byte[][] fieldNames, final int enumMappingType, final int enumLruSize, final int enumMinFreq, final String[] enumStrings) {
+    this.interval = interval;
+    this.size = size;
+    this.eofArray = eofArray;
+    this.dictionaryId = dictionaryId;
+    this.checkpoints = checkpoints;
+    this.fieldNames = fieldNames;
+    this.enumMappingType = enumMappingType;
+    this.enumLruSize = enumLruSize;
+    this.enumMinFreq = enumMinFreq;
+    this.enumStrings = enumStrings;
+  }
+
+  /** @return the number of elements of the top-level array */
+  public long size() {
+    return size;
+  }
+
+  /** @return the number of elements between two checkpoints */
+  public int interval() {
+    return interval;
+  }
+
+  /** @return the number of checkpoints recorded */
+  public int checkpointCount() {
+    return checkpoints.length;
+  }
+
+  // ====================================================================================================
+  //  Build related
+  // ====================================================================================================
+  /**
+   * @param data the YAJBE encoded top-level array
+   * @param interval the number of elements between two checkpoints
+   * @return the index of the array
+   * @throws IOException if the data is not a valid YAJBE top-level array
+   */
+  public static YajbeArrayIndex build(final byte[] data, final int interval) throws IOException {
+    return build(YajbeReader.fromBytes(data), interval, null);
+  }
+
+  /**
+   * @param data the YAJBE encoded top-level array
+   * @param interval the number of elements between two checkpoints
+   * @param dictionaries the dictionaries used to decode the stream dictionary header, may be null
+   * @return the index of the array
+   * @throws IOException if the data is not a valid YAJBE top-level array
+   */
+  public static YajbeArrayIndex build(final byte[] data, final int interval, final YajbeDictionaryRegistry dictionaries) throws IOException {
+    return build(YajbeReader.fromBytes(data), interval, dictionaries);
+  }
+
+  /**
+   * @param buf the YAJBE encoded top-level array, between the position and the limit of the buffer
+   * @param interval the number of elements between two checkpoints
+   * @return the index of the array
+   * @throws IOException if the data is not a valid YAJBE top-level array
+   */
+  public static YajbeArrayIndex build(final ByteBuffer buf, final int interval) throws IOException {
+    return build(YajbeReader.fromBuffer(buf), interval, null);
+  }
+
+  /**
+   * @param buf the YAJBE encoded top-level array, between the position and the limit of the buffer
+   * @param interval the number of elements between two checkpoints
+   * @param dictionaries the dictionaries used to decode the stream dictionary header, may be null
+   * @return the index of the array
+   * @throws IOException if the data is not a valid YAJBE top-level array
+   */
+  public static YajbeArrayIndex build(final ByteBuffer buf, final int interval, final YajbeDictionaryRegistry dictionaries) throws IOException {
+    return build(YajbeReader.fromBuffer(buf), interval, dictionaries);
+  }
+
+  /**
+   * @param file the file containing the YAJBE encoded top-level array, the file is memory-mapped
+   * @param interval the number of elements between two checkpoints
+   * @return the index of the array
+   * @throws IOException if the file cannot be read or it is not a valid YAJBE top-level array
+   */
+  public static YajbeArrayIndex build(final File file, final int interval) throws IOException {
+    return build(YajbeReader.fromFile(file), interval, null);
+  }
+
+  /**
+   * @param file the file containing the YAJBE encoded top-level array, the file is memory-mapped
+   * @param interval the number of elements between two checkpoints
+   * @param dictionaries the dictionaries used to decode the stream dictionary header, may be null
+   * @return the index of the array
+   * @throws IOException if the file cannot be read or it is not a valid YAJBE top-level array
+   */
+  public static YajbeArrayIndex build(final File file, final int interval, final YajbeDictionaryRegistry dictionaries) throws IOException {
+    return build(YajbeReader.fromFile(file), interval, dictionaries);
+  }
+
+  private static YajbeArrayIndex build(final YajbeReader reader, final int interval, final YajbeDictionaryRegistry dictionaries) throws IOException {
+    if (interval <= 0) throw new IllegalArgumentException("expected an interval > 0, got " + interval);
+
+    try (YajbeParser parser = new YajbeParser(null, 0, null, reader)) {
+      parser.setDictionaries(dictionaries);
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new IOException("expected a top-level array");
+      }
+
+      if (parser.isTypedArray()) {
+        // the items have a fixed width, the offset of an item can be computed without an index
+        throw new IOException("the top-level array is a typed array, the index supports only the arrays of values");
+      }
+
+      final boolean eofArray = parser.isEofArray();
+      final YajbeFieldNameReader names = parser.fieldNameReader();
+      final ArrayList<Checkpoint> checkpoints = new ArrayList<>();
+      long size = 0;
+      while (true) {
+        if ((size % interval) == 0) {
+          checkpoints.add(checkpoint(reader, names));
+        }
+
+        final JsonToken token = parser.nextToken();
+        if (token == JsonToken.END_ARRAY) break;
+        if (token == null) throw new IOException("unexpected end of the top-level array");
+        parser.skipChildren();
+        size++;
+      }
+
+      final byte[][] fieldNames = new byte[names.indexedCount()][];
+      for (int i = 0; i < fieldNames.length; ++i) {
+        fieldNames[i] = names.indexedKey(i).toByteArray();
+      }
+
+      final int dictionaryId = (reader.dictionary() != null) ? reader.dictionary().id() : -1;
+      final YajbeEnumMapping enumMapping = reader.enumMapping();
+      final int enumMappingType = enumMappingType(enumMapping);
+      if (enumMappingType == ENUM_MAPPING_NONE) {
+        return new YajbeArrayIndex(interval, size, eofArray, dictionaryId, checkpoints.toArray(new Checkpoint[0]), fieldNames, ENUM_MAPPING_NONE, 0, 0, null);
+      }
+
+      final String[] enumStrings = new String[enumMapping.size()];
+      for (int i = 0; i < enumStrings.length; ++i) {
+        enumStrings[i] = enumMapping.get(i);
+      }
+      final YajbeEnumLruMapping lru = (enumMapping instanceof final YajbeEnumLruMapping m) ? m : null;
+      return new YajbeArrayIndex(interval, size, eofArray, dictionaryId, checkpoints.toArray(new Checkpoint[0]), fieldNames,
+        enumMappingType, lru != null ? lru.lruSize() : 0, lru != null ? lru.minFreq() : 0, enumStrings);
+    }
+  }
+
+  private static Checkpoint checkpoint(final YajbeReader reader, final YajbeFieldNameReader names) throws IOException {
+    final ByteArraySlice lastKey = names.lastKey();
+    final YajbeEnumMapping enumMapping = reader.enumMapping();
+    final YajbeEnumLruMapping.Snapshot enumState = switch (enumMappingType(enumMapping)) {
+      case ENUM_MAPPING_LRU -> ((YajbeEnumLruMapping) enumMapping).snapshot();
+      case ENUM_MAPPING_LIST -> new YajbeEnumLruMapping.Snapshot(enumMapping.size(), NO_LRU_KEYS, NO_LRU_FREQS);
+      default -> null;
+    };
+    return new Checkpoint(reader.position(), names.indexedCount(), lastKey != null ? lastKey.toByteArray() : null, enumState);
+  }
+
+  private static int enumMappingType(final YajbeEnumMapping mapping) throws IOException {
+    if (mapping == null) return ENUM_MAPPING_NONE;
+    if (mapping instanceof YajbeEnumLruMapping) return ENUM_MAPPING_LRU;
+    if (mapping instanceof YajbeEnumListMapping) return ENUM_MAPPING_LIST;
+    // the tinylfu counters are not tracked by the snapshots
+    throw new IOException("the stream uses the " + mapping.getClass().getSimpleName() + " enum mapping, the index supports only the lru mapping and the enum index markers");
+  }
+
+  // ====================================================================================================
+  //  Seek related
+  // ====================================================================================================
+  /**
+   * Move the parser to the specified element, using the nearest checkpoint.
+   * the parser state is restored, and the elements between the checkpoint and the requested one are skipped.
+   */
+  void seek(final YajbeParser parser, final YajbeReader reader, final long element) throws IOException {
+    final long target = Math.min(Math.max(element, 0), size);
+    final int checkpointIndex = (int) Math.min(target / interval, checkpoints.length - 1);
+    final Checkpoint checkpoint = checkpoints[checkpointIndex];
+
+    reader.seek(checkpoint.offset());
+    if (dictionaryId >= 0) {
+      // the dictionary header is before the checkpoint, the enum config may be after it
+      reader.restoreDictionary(dictionaryId);
+    }
+    parser.fieldNameReader().restore(fieldNames, checkpoint.fieldNameCount(), checkpoint.lastKey());
+    final YajbeEnumLruMapping.Snapshot enumState = checkpoint.enumState();
+    if (enumState != null) {
+      reader.setEnumMapping(switch (enumMappingType) {
+        case ENUM_MAPPING_LIST -> YajbeEnumListMapping.restore(enumStrings, enumState.indexedCount());
+        default -> YajbeEnumLruMapping.restore(enumLruSize, enumMinFreq, enumStrings, enumState);
+      });
+    }
+
+    final long checkpointElement = (long) checkpointIndex * interval;
+    parser.startArrayAt(eofArray, size - checkpointElement, target - checkpointElement);
+  }
+
+  // ====================================================================================================
+  //  Serialization related
+  // ====================================================================================================
+  /**
+   * Write the index, so it can be stored next to the data and loaded with {@link #readFrom(InputStream)}.
+   * @param stream the stream where the index will be written
+   * @throws IOException if the write fails
+   */
+  public void writeTo(final OutputStream stream) throws IOException {
+    final DataOutputStream out = new DataOutputStream(stream);
+    out.writeInt(FORMAT_VERSION);
+    out.writeInt(interval);
+    out.writeLong(size);
+    out.writeBoolean(eofArray);
+    out.writeInt(dictionaryId);
+
+    out.writeInt(fieldNames.length);
+    for (final byte[] name: fieldNames) {
+      writeBytes(out, name);
+    }
+
+    out.writeInt(enumMappingType);
+    out.writeInt(enumLruSize);
+    out.writeInt(enumMinFreq);
+    if (enumMappingType != ENUM_MAPPING_NONE) {
+      writeStrings(out, enumStrings);
+    }
+
+    out.writeInt(checkpoints.length);
+    for (final Checkpoint checkpoint: checkpoints) {
+      out.writeLong(checkpoint.offset());
+      out.writeInt(checkpoint.fieldNameCount());
+      writeBytes(out, checkpoint.lastKey());
+
+      final YajbeEnumLruMapping.Snapshot enumState = checkpoint.enumState();
+      out.writeBoolean(enumState != null);
+      if (enumState != null) {
+        out.writeInt(enumState.indexedCount());
+        writeStrings(out, enumState.lruKeys());
+        for (final int freq: enumState.lruFreqs()) {
+          out.writeInt(freq);
+        }
+      }
+    }
+    out.flush();
+  }
+
+  /**
+   * @param stream the stream containing an index written by {@link #writeTo(OutputStream)}
+   * @return the index
+   * @throws IOException if the read fails or the data is not a valid index
+   */
+  public static YajbeArrayIndex readFrom(final InputStream stream) throws IOException {
+    final DataInputStream in = new DataInputStream(stream);
+    final int version = in.readInt();
+    if (version < 1 || version > FORMAT_VERSION) throw new IOException("unsupported index version " + version);
+
+    final int interval = in.readInt();
+    final long size = in.readLong();
+    final boolean eofArray = in.readBoolean();
+    final int dictionaryId = (version >= 2) ? in.readInt() : -1;
+
+    final byte[][] fieldNames = new byte[in.readInt()][];
+    for (int i = 0; i < fieldNames.length; ++i) {
+      fieldNames[i] = readBytes(in);
+    }
+
+    final int enumMappingType;
+    final int enumLruSize;
+    if (version >= 2) {
+      enumMappingType = in.readInt();
+      enumLruSize = in.readInt();
+    } else {
+      enumLruSize = in.readInt();
+      enumMappingType = (enumLruSize > 0) ? ENUM_MAPPING_LRU : ENUM_MAPPING_NONE;
+    }
+    final int enumMinFreq = in.readInt();
+    final String[] enumStrings = (enumMappingType != ENUM_MAPPING_NONE) ? readStrings(in) : null;
+
+    final List<Checkpoint> checkpoints = new ArrayList<>();
+    for (int i = 0, n = in.readInt(); i < n; ++i) {
+      final long offset = in.readLong();
+      final int fieldNameCount = in.readInt();
+      final byte[] lastKey = readBytes(in);
+
+      YajbeEnumLruMapping.Snapshot enumState = null;
+      if (in.readBoolean()) {
+        final int indexedCount = in.readInt();
+        final String[] lruKeys = readStrings(in);
+        final int[] lruFreqs = new int[lruKeys.length];
+        for (int k = 0; k < lruFreqs.length; ++k) {
+          lruFreqs[k] = in.readInt();
+        }
+        enumState = new YajbeEnumLruMapping.Snapshot(indexedCount, lruKeys, lruFreqs);
+      }
+      checkpoints.add(new Checkpoint(offset, fieldNameCount, lastKey, enumState));
+    }
+    return new YajbeArrayIndex(interval, size, eofArray, dictionaryId, checkpoints.toArray(new Checkpoint[0]),
+      fieldNames, enumMappingType, enumLruSize, enumMinFreq, enumStrings);
+  }
+
+  private static void writeBytes(final DataOutputStream out, final byte[] data) throws IOException {
+    if (data == null) {
+      out.writeInt(-1);
+      return;
+    }
+    out.writeInt(data.length);
+    out.write(data);
+  }
+
+  private static byte[] readBytes(final DataInputStream in) throws IOException {
+    final int length = in.readInt();
+    if (length < 0) return null;
+    final byte[] data = new byte[length];
+    in.readFully(data);
+    return data;
+  }
+
+  private static void writeStrings(final DataOutputStream out, final String[] values) throws IOException {
+    out.writeInt(values.length);
+    for (final String value: values) {
+      writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  private static String[] readStrings(final DataInputStream in) throws IOException {
+    final String[] values = new String[in.readInt()];
+    for (int i = 0; i < values.length; ++i) {
+      values[i] = new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+    return values;
+  }
+}
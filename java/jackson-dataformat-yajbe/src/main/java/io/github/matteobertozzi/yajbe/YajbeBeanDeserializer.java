@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.matteobertozzi.yajbe;
+
+import java.io.IOException;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.BeanDeserializer;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBase;
+import com.fasterxml.jackson.databind.deser.SettableBeanProperty;
+import com.fasterxml.jackson.databind.deser.impl.BeanPropertyMap;
+
+/**
+ * Wraps the jackson BeanDeserializer of the "vanilla" beans (default constructor, setters or fields).
+ * When the parser is a {@link YajbeParser} the properties are looked up by the index of the field name
+ * in the stream: the index to property mapping is cached per parser, so each name is resolved
+ * only the first time it is seen. Anything else goes to the jackson implementation.
+ */
+final class YajbeBeanDeserializer extends BeanDeserializer {
+  private static final long serialVersionUID = 1L;
+
+  // marker for the names that are not a property of the bean
+  private static final Object UNKNOWN_PROPERTY = new Object();
+
+  YajbeBeanDeserializer(final BeanDeserializerBase src) {
+    super(src);
+  }
+
+  private YajbeBeanDeserializer(final BeanDeserializerBase src, final boolean ignoreAllUnknown) {
+    super(src, ignoreAllUnknown);
+  }
+
+  private YajbeBeanDeserializer(final BeanDeserializerBase src, final Set<String> ignorableProps, final Set<String> includableProps) {
+    super(src, ignorableProps, includableProps);
+  }
+
+  private YajbeBeanDeserializer(final BeanDeserializerBase src, final BeanPropertyMap props) {
+    super(src, props);
+  }
+
+  @Override
+  public BeanDeserializer withByNameInclusion(final Set<String> ignorableProps, final Set<String> includableProps) {
+    return new YajbeBeanDeserializer(this, ignorableProps, includableProps);
+  }
+
+  @Override
+  public BeanDeserializerBase withIgnoreAllUnknown(final boolean ignoreUnknown) {
+    return new YajbeBeanDeserializer(this, ignoreUnknown);
+  }
+
+  @Override
+  public BeanDeserializerBase withBeanProperties(final BeanPropertyMap props) {
+    return new YajbeBeanDeserializer(this, props);
+  }
+
+  @Override
+  public Object deserialize(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+    if (_vanillaProcessing && p instanceof final YajbeParser parser && p.isExpectedStartObjectToken()) {
+      return vanillaDeserialize(parser, ctxt);
+    }
+    return super.deserialize(p, ctxt);
+  }
+
+  /** same as the jackson vanillaDeserialize(), with the property lookup by field index */
+  private Object vanillaDeserialize(final YajbeParser p, final DeserializationContext ctxt) throws IOException {
+    final Object bean = _valueInstantiator.createUsingDefault(ctxt);
+    if (p.nextToken() != JsonToken.FIELD_NAME) return bean;
+
+    // the current value is assigned only if there is at least one property (databind#4184)
+    p.assignCurrentValue(bean);
+    do {
+      final String propName = p.currentName();
+      final Object prop = findProperty(p, propName);
+      p.nextToken();
+      if (prop != UNKNOWN_PROPERTY) {
+        try {
+          ((SettableBeanProperty) prop).deserializeAndSet(p, ctxt, bean);
+        } catch (final Exception e) {
+          wrapAndThrow(e, bean, propName, ctxt);
+        }
+      } else {
+        handleUnknownVanilla(p, ctxt, bean, propName);
+      }
+    } while (p.nextToken() == JsonToken.FIELD_NAME);
+    return bean;
+  }
+
+  private Object findProperty(final YajbeParser p, final String propName) throws IOException {
+    final int fieldIndex = p.currentFieldIndex();
+    if (fieldIndex < 0) {
+      final SettableBeanProperty prop = _beanProperties.find(propName);
+      return (prop != null) ? prop : UNKNOWN_PROPERTY;
+    }
+
+    final Object[] properties = p.fieldIndexCache(this, fieldIndex);
+    Object prop = properties[fieldIndex];
+    if (prop == null) {
+      prop = _beanProperties.find(propName);
+      if (prop == null) prop = UNKNOWN_PROPERTY;
+      properties[fieldIndex] = prop;
+    }
+    return prop;
+  }
+}
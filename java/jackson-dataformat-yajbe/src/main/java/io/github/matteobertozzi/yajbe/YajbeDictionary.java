@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A set of field names and enum strings known by both the encoder and the decoder.
+ * <p>
+ * The field names are pre-indexed, so they are encoded as an index from their first occurrence.
+ * The enum strings are pre-indexed by the enum mapping, when the generator has an enum mapping config.
+ * The encoder writes the dictionary id at the beginning of the stream, and the decoder looks up
+ * the dictionary in its {@link YajbeDictionaryRegistry}: a stream encoded with an unknown
+ * dictionary fails to decode instead of returning the wrong field names.
+ * <p>
+ * A dictionary can be built by hand or with the {@link YajbeDictionaryTrainer}.
+ * Use it with {@link YajbeFactory#YajbeFactory(YajbeEnumMapping.YajbeEnumMappingConfig, YajbeDictionary)}
+ * or with the {@link YajbeMapper#CONFIG_DICTIONARY} attribute.
+ */
+public final class YajbeDictionary implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  // the field-name index has 65819 entries, see YajbeFieldNameWriter
+  private static final int MAX_FIELD_NAMES = 65819;
+
+  private final int id;
+  private final String[] fieldNames;
+  private final String[] enumStrings;
+
+  /**
+   * @param id the id of the dictionary, written in the stream (non negative, the small ids take less space)
+   * @param fieldNames the field names, the first ones will have the smallest (1 byte) index
+   * @param enumStrings the string values repeated across documents
+   */
+  public YajbeDictionary(final int id, final String[] fieldNames, final String[] enumStrings) {
+    if (id < 0) throw new IllegalArgumentException("invalid dictionary id " + id);
+    if (fieldNames.length > MAX_FIELD_NAMES) {
+      throw new IllegalArgumentException("too many field names " + fieldNames.length + ", max " + MAX_FIELD_NAMES);
+    }
+    if (enumStrings.length > YajbeEnumMapping.MAX_INDEX_LENGTH) {
+      throw new IllegalArgumentException("too many enum strings " + enumStrings.length + ", max " + YajbeEnumMapping.MAX_INDEX_LENGTH);
+    }
+    this.id = id;
+    this.fieldNames = fieldNames.clone();
+    this.enumStrings = enumStrings.clone();
+  }
+
+  /** @return the id of the dictionary, written in the stream */
+  public int id() {
+    return id;
+  }
+
+  /** @return a copy of the field names, in index order */
+  public String[] fieldNames() {
+    return fieldNames.clone();
+  }
+
+  /** @return a copy of the enum strings, in index order */
+  public String[] enumStrings() {
+    return enumStrings.clone();
+  }
+
+  String[] rawFieldNames() {
+    return fieldNames;
+  }
+
+  String[] rawEnumStrings() {
+    return enumStrings;
+  }
+
+  /** add the enum strings as already indexed, the mapping must be empty */
+  void addEnumStrings(final YajbeEnumMapping mapping) {
+    if (mapping instanceof final YajbeEnumLruMapping lruMapping) {
+      lruMapping.addIndexed(enumStrings, enumStrings.length);
+    } else if (mapping instanceof final YajbeEnumTinyLfuMapping tinyLfuMapping) {
+      tinyLfuMapping.addIndexed(enumStrings, enumStrings.length);
+    } else if (mapping instanceof final YajbeEnumListMapping listMapping) {
+      for (final String key: enumStrings) listMapping.add(key);
+    }
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) return true;
+    if (!(obj instanceof final YajbeDictionary other)) return false;
+    return id == other.id && Arrays.equals(fieldNames, other.fieldNames) && Arrays.equals(enumStrings, other.enumStrings);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * id + Arrays.hashCode(fieldNames)) + Arrays.hashCode(enumStrings);
+  }
+
+  @Override
+  public String toString() {
+    return "YajbeDictionary [id=" + id + ", fieldNames=" + fieldNames.length + ", enumStrings=" + enumStrings.length + "]";
+  }
+}
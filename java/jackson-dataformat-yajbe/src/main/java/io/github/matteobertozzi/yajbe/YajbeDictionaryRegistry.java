@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The dictionaries known by the decoder, looked up by the id written in the stream.
+ * The registry is thread-safe and can be shared between readers.
+ * Use it with the {@link YajbeMapper#CONFIG_DICTIONARY_REGISTRY} attribute.
+ */
+public final class YajbeDictionaryRegistry {
+  private final ConcurrentHashMap<Integer, YajbeDictionary> dictionaries = new ConcurrentHashMap<>();
+
+  /**
+   * @param dictionaries the dictionaries to register
+   * @return the registry containing the specified dictionaries
+   */
+  public static YajbeDictionaryRegistry of(final YajbeDictionary... dictionaries) {
+    final YajbeDictionaryRegistry registry = new YajbeDictionaryRegistry();
+    for (final YajbeDictionary dictionary: dictionaries) {
+      registry.register(dictionary);
+    }
+    return registry;
+  }
+
+  /**
+   * Add the dictionary to the registry.
+   * A dictionary id can be registered only once, different versions must use different ids.
+   *
+   * @param dictionary the dictionary to register
+   * @return this registry
+   * @throws IllegalArgumentException if a different dictionary with the same id is already registered
+   */
+  public YajbeDictionaryRegistry register(final YajbeDictionary dictionary) {
+    final YajbeDictionary current = dictionaries.putIfAbsent(dictionary.id(), dictionary);
+    if (current != null && !current.equals(dictionary)) {
+      throw new IllegalArgumentException("dictionary " + dictionary.id() + " already registered: " + current);
+    }
+    return this;
+  }
+
+  /**
+   * @param id the dictionary id
+   * @return the dictionary with the specified id, or null if not registered
+   */
+  public YajbeDictionary get(final int id) {
+    return dictionaries.get(id);
+  }
+
+  /** @return the number of registered dictionaries */
+  public int size() {
+    return dictionaries.size();
+  }
+}
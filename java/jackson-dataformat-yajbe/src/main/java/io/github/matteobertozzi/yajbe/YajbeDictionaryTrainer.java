@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Builds a {@link YajbeDictionary} from sample documents.
+ * <p>
+ * Inside a document a field name is encoded in full only the first time, then as an index.
+ * A dictionary saves the first occurrence, so the field names are ranked by the number of
+ * documents containing them multiplied by their length. The enum strings are ranked by the
+ * number of occurrences multiplied by the bytes saved by an enum reference.
+ * Names and strings found in less than two documents are not included.
+ * <p>
+ * The samples can be read with any {@link JsonParser} (e.g. JSON or YAJBE).
+ */
+public final class YajbeDictionaryTrainer {
+  private static final int DEFAULT_MAX_FIELD_NAMES = 1024;
+  // the first 256 enum strings have a 2 bytes reference
+  private static final int DEFAULT_MAX_ENUM_STRINGS = 256;
+  // longer strings are unlikely to be enums, and would make the dictionary large
+  private static final int MAX_ENUM_STRING_LENGTH = 64;
+  private static final int MIN_DOCUMENTS = 2;
+
+  private final HashMap<String, Stats> fieldNames = new HashMap<>();
+  private final HashMap<String, Stats> enumStrings = new HashMap<>();
+  private final int maxFieldNames;
+  private final int maxEnumStrings;
+  private int documents;
+
+  private static final class Stats {
+    private long occurrences;
+    private long documents;
+    private int lastDocument = -1;
+
+    private void add(final int document) {
+      occurrences++;
+      if (lastDocument != document) {
+        lastDocument = document;
+        documents++;
+      }
+    }
+  }
+
+  public YajbeDictionaryTrainer() {
+    this(DEFAULT_MAX_FIELD_NAMES, DEFAULT_MAX_ENUM_STRINGS);
+  }
+
+  /**
+   * @param maxFieldNames the max number of field names in the dictionary
+   * @param maxEnumStrings the max number of enum strings in the dictionary
+   */
+  public YajbeDictionaryTrainer(final int maxFieldNames, final int maxEnumStrings) {
+    this.maxFieldNames = maxFieldNames;
+    this.maxEnumStrings = Math.min(maxEnumStrings, YajbeEnumMapping.MAX_INDEX_LENGTH);
+  }
+
+  /** @return the number of sample documents added */
+  public int documents() {
+    return documents;
+  }
+
+  // ====================================================================================================
+  //  Samples related
+  // ====================================================================================================
+  /**
+   * Add the samples read from the parser, each root value is a document.
+   * The parser is consumed until the end, but not closed.
+   *
+   * @param parser the parser of the sample documents
+   * @return this trainer
+   * @throws IOException if the parser fails to read the samples
+   */
+  public YajbeDictionaryTrainer add(final JsonParser parser) throws IOException {
+    int depth = 0;
+    JsonToken token;
+    while ((token = parser.nextToken()) != null) {
+      switch (token) {
+        case START_OBJECT, START_ARRAY -> depth++;
+        case END_OBJECT, END_ARRAY -> depth--;
+        case FIELD_NAME -> addFieldName(parser.currentName());
+        case VALUE_STRING -> addString(parser.getText());
+        default -> { /* no-op */ }
+      }
+      if (depth == 0) documents++;
+    }
+    return this;
+  }
+
+  /**
+   * @param document the sample document
+   * @return this trainer
+   */
+  public YajbeDictionaryTrainer add(final JsonNode document) {
+    addNode(document);
+    documents++;
+    return this;
+  }
+
+  private void addNode(final JsonNode node) {
+    if (node.isObject()) {
+      final Iterator<Map.Entry<String, JsonNode>> it = node.fields();
+      while (it.hasNext()) {
+        final Map.Entry<String, JsonNode> entry = it.next();
+        addFieldName(entry.getKey());
+        addNode(entry.getValue());
+      }
+    } else if (node.isArray()) {
+      for (final JsonNode item: node) {
+        addNode(item);
+      }
+    } else if (node.isTextual()) {
+      addString(node.textValue());
+    }
+  }
+
+  private void addFieldName(final String name) {
+    fieldNames.computeIfAbsent(name, k -> new Stats()).add(documents);
+  }
+
+  private void addString(final String text) {
+    if (text.length() < YajbeEnumMapping.MIN_ENUM_STRING_LENGTH || text.length() > MAX_ENUM_STRING_LENGTH) return;
+    enumStrings.computeIfAbsent(text, k -> new Stats()).add(documents);
+  }
+
+  // ====================================================================================================
+  //  Build related
+  // ====================================================================================================
+  /**
+   * @param id the id of the dictionary
+   * @return the dictionary with the field names and enum strings that save more space on the samples
+   */
+  public YajbeDictionary build(final int id) {
+    final String[] names = top(fieldNames, maxFieldNames, false);
+    final String[] strings = top(enumStrings, maxEnumStrings, true);
+    return new YajbeDictionary(id, names, strings);
+  }
+
+  private record Candidate(String key, long score) {}
+
+  private static String[] top(final HashMap<String, Stats> stats, final int limit, final boolean enumString) {
+    final ArrayList<Candidate> candidates = new ArrayList<>();
+    for (final Map.Entry<String, Stats> entry: stats.entrySet()) {
+      final Stats keyStats = entry.getValue();
+      if (keyStats.documents < MIN_DOCUMENTS) continue;
+
+      final int length = entry.getKey().getBytes(StandardCharsets.UTF_8).length;
+      // field names: the full name is replaced by an index once per document
+      // enum strings: every occurrence is replaced by a 2 bytes reference
+      final long score = enumString ? keyStats.occurrences * (length - 1) : keyStats.documents * length;
+      candidates.add(new Candidate(entry.getKey(), score));
+    }
+
+    // the best candidates get the smallest indexes, the key is the tie-breaker to be deterministic
+    candidates.sort((a, b) -> {
+      final int cmp = Long.compare(b.score(), a.score());
+      return cmp != 0 ? cmp : a.key().compareTo(b.key());
+    });
+
+    final String[] keys = new String[Math.min(limit, candidates.size())];
+    for (int i = 0; i < keys.length; ++i) {
+      keys[i] = candidates.get(i).key();
+    }
+    return keys;
+  }
+}
@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import io.github.matteobertozzi.yajbe.YajbeReader.ByteArraySlice;
+
+/**
+ * Read-only view over a YAJBE encoded document, without building a tree.
+ * The values are decoded only when requested, and the offsets of the children
+ * are cached once a container is scanned.
+ * <pre>
+ *   final YajbeDocument doc = YajbeDocument.of(bytes);
+ *   final String login = doc.root().get("actor").get("login").asString();
+ * </pre>
+ * Field names and enum strings may refer to a previous entry of the stream,
+ * to resolve them the document keeps a "frontier" reader that scans the document
+ * from the beginning (skipping the values), and fills the field-name and enum tables.
+ * The frontier is moved forward only when a reference to an entry not yet known is found.
+ * <p>
+ * A document is not thread-safe.
+ */
+public final class YajbeDocument {
+  private final YajbeReader reader;
+
+  // frontier state: sequential scan that fills the field-name and enum tables
+  private final YajbeReader frontier;
+  private final YajbeFieldNameReader frontierNames;
+  private long[] frontierStack = new long[16];
+  private int frontierDepth = -1;
+  private boolean frontierDone = false;
+
+  private final YajbeValue root;
+
+  private YajbeDocument(final YajbeReader reader, final YajbeReader frontier, final YajbeDictionaryRegistry dictionaries) {
+    this.reader = reader;
+    this.frontier = frontier;
+    reader.setDictionaries(dictionaries);
+    frontier.setDictionaries(dictionaries);
+    this.frontierNames = new YajbeFieldNameReader(frontier);
+    this.root = new YajbeValue(this, reader.position(), null);
+  }
+
+  /**
+   * @param data the YAJBE encoded document
+   * @return the document view, the data is not copied
+   */
+  public static YajbeDocument of(final byte[] data) {
+    return of(data, 0, data.length, null);
+  }
+
+  /**
+   * @param data the YAJBE encoded document
+   * @param dictionaries the dictionaries used to decode the stream dictionary header, may be null
+   * @return the document view, the data is not copied
+   */
+  public static YajbeDocument of(final byte[] data, final YajbeDictionaryRegistry dictionaries) {
+    return of(data, 0, data.length, dictionaries);
+  }
+
+  /**
+   * @param data the buffer containing the YAJBE encoded document
+   * @param off the offset of the document in the buffer
+   * @param len the length of the document
+   * @return the document view, the data is not copied
+   */
+  public static YajbeDocument of(final byte[] data, final int off, final int len) {
+    return of(data, off, len, null);
+  }
+
+  /**
+   * @param data the buffer containing the YAJBE encoded document
+   * @param off the offset of the document in the buffer
+   * @param len the length of the document
+   * @param dictionaries the dictionaries used to decode the stream dictionary header, may be null
+   * @return the document view, the data is not copied
+   */
+  public static YajbeDocument of(final byte[] data, final int off, final int len, final YajbeDictionaryRegistry dictionaries) {
+    return new YajbeDocument(new YajbeReaderByteArray(data, off, len), new YajbeReaderByteArray(data, off, len), dictionaries);
+  }
+
+  /**
+   * @param buf the document between the position and the limit of the buffer (heap or direct)
+   * @return the document view, the data is not copied and the buffer position is not modified
+   */
+  public static YajbeDocument of(final ByteBuffer buf) {
+    return of(buf, null);
+  }
+
+  /**
+   * @param buf the document between the position and the limit of the buffer (heap or direct)
+   * @param dictionaries the dictionaries used to decode the stream dictionary header, may be null
+   * @return the document view, the data is not copied and the buffer position is not modified
+   */
+  public static YajbeDocument of(final ByteBuffer buf, final YajbeDictionaryRegistry dictionaries) {
+    return new YajbeDocument(YajbeReader.fromBuffer(buf), YajbeReader.fromBuffer(buf), dictionaries);
+  }
+
+  /**
+   * @param file the file containing the YAJBE encoded document, the file is memory-mapped
+   * @return the document view
+   * @throws IOException if the file cannot be mapped
+   */
+  public static YajbeDocument of(final File file) throws IOException {
+    return of(file, null);
+  }
+
+  /**
+   * @param file the file containing the YAJBE encoded document, the file is memory-mapped
+   * @param dictionaries the dictionaries used to decode the stream dictionary header, may be null
+   * @return the document view
+   * @throws IOException if the file cannot be mapped
+   */
+  public static YajbeDocument of(final File file, final YajbeDictionaryRegistry dictionaries) throws IOException {
+    final YajbeReaderMappedFile reader = YajbeReaderMappedFile.open(file);
+    return new YajbeDocument(reader, reader.duplicate(), dictionaries);
+  }
+
+  /**
+   * @return the root value of the document
+   */
+  public YajbeValue root() {
+    return root;
+  }
+
+  // ====================================================================================================
+  //  Value read related
+  //  the values are read with the "reader" in replay mode: the tables are never modified,
+  //  field-name and enum references are resolved using the frontier tables.
+  // ====================================================================================================
+  YajbeReader reader() {
+    return reader;
+  }
+
+  /**
+   * Move the reader to the value, skipping the enum config if present.
+   * @return the head of the value
+   */
+  int seekValue(final long offset) throws IOException {
+    reader.seek(offset);
+    final int head = reader.read();
+    if (head != 0b00001000) return head;
+
+    // enum config or dictionary, already processed by the frontier
+    reader.skipNBytes(YajbeReader.configLength(reader.read()) - 2);
+    return reader.read();
+  }
+
+  String enumString(final int index) throws IOException {
+    YajbeEnumMapping mapping;
+    while ((mapping = frontier.enumMapping()) == null || index >= mapping.size()) {
+      if (!frontierStep()) throw new IOException("invalid enum index " + index);
+    }
+    return mapping.get(index);
+  }
+
+  private ByteArraySlice indexedFieldName(final int index) throws IOException {
+    while (index >= frontierNames.indexedCount()) {
+      if (!frontierStep()) throw new IOException("invalid field-name index " + index);
+    }
+    return frontierNames.indexedKey(index);
+  }
+
+  /**
+   * Read the field name at the current reader position.
+   * @param lastKey the previous field name in the stream, used by the prefix compression
+   * @return the field name, which is also the new lastKey
+   */
+  ByteArraySlice readFieldName(final ByteArraySlice lastKey) throws IOException {
+    final int head = reader.read();
+    switch ((head >> 5) & 0b111) {
+      case 0b100: {
+        return reader.readNBytes(YajbeFieldNameReader.readLength(reader, head));
+      }
+      case 0b101: {
+        return indexedFieldName(YajbeFieldNameReader.readLength(reader, head));
+      }
+      case 0b110: {
+        final int length = YajbeFieldNameReader.readLength(reader, head);
+        final int prefix = reader.read();
+        final byte[] utf8 = new byte[prefix + length];
+        System.arraycopy(lastKey.buf(), lastKey.off(), utf8, 0, prefix);
+        reader.readNBytes(utf8, prefix, length);
+        return new ByteArraySlice(utf8);
+      }
+      case 0b111: {
+        final int length = YajbeFieldNameReader.readLength(reader, head);
+        final int prefix = reader.read();
+        final int suffix = reader.read();
+        final byte[] utf8 = new byte[prefix + length + suffix];
+        System.arraycopy(lastKey.buf(), lastKey.off(), utf8, 0, prefix);
+        System.arraycopy(lastKey.buf(), lastKey.off() + lastKey.len() - suffix, utf8, prefix + length, suffix);
+        reader.readNBytes(utf8, prefix, length);
+        return new ByteArraySlice(utf8);
+      }
+      default:
+        throw new IOException("unexpected field-name head: " + Integer.toBinaryString(head));
+    }
+  }
+
+  /**
+   * Skip the value at the current reader position.
+   * @param lastKey the previous field name in the stream
+   * @return the last field name found in the value (or the input lastKey)
+   */
+  ByteArraySlice skipValue(ByteArraySlice lastKey) throws IOException {
+    int head = reader.read();
+    if (head == 0b00001000) {
+      reader.skipNBytes(YajbeReader.configLength(reader.read()) - 2);
+      head = reader.read();
+    }
+
+    if (reader.skipScalar(head)) return lastKey;
+    if ((head & 0b111_00000) != 0b001_00000) {
+      throw new IOException("unexpected head: " + Integer.toBinaryString(head));
+    }
+
+    final boolean isObject = (head & 0b0011_0000) == 0b0011_0000;
+    if ((head & 0b1111) == 0b1111) {
+      while (reader.peek() != 1) {
+        if (isObject) lastKey = readFieldName(lastKey);
+        lastKey = skipValue(lastKey);
+      }
+      reader.read();
+    } else {
+      for (int i = reader.readItemCount(head); i > 0; --i) {
+        if (isObject) lastKey = readFieldName(lastKey);
+        lastKey = skipValue(lastKey);
+      }
+    }
+    return lastKey;
+  }
+
+  // ====================================================================================================
+  //  Frontier related
+  //  each step processes one item (field name + value), containers are pushed on the stack.
+  //  stack item: FLAG_OBJECT | FLAG_EOF | remaining items
+  // ====================================================================================================
+  private static final long FRONTIER_FLAG_OBJECT = (1L << 62);
+  private static final long FRONTIER_FLAG_EOF = (1L << 61);
+  private static final long FRONTIER_MASK_COUNT = 0x7fffffffL;
+
+  private boolean frontierStep() throws IOException {
+    if (frontierDone) return false;
+
+    if (frontierDepth >= 0) {
+      final long item = frontierStack[frontierDepth];
+      if ((item & FRONTIER_FLAG_EOF) == FRONTIER_FLAG_EOF) {
+        if (frontier.peek() == 1) {
+          frontier.read();
+          frontierPop();
+          return true;
+        }
+      } else if ((item & FRONTIER_MASK_COUNT) == 0) {
+        frontierPop();
+        return true;
+      } else {
+        frontierStack[frontierDepth] = item - 1;
+      }
+
+      if ((item & FRONTIER_FLAG_OBJECT) == FRONTIER_FLAG_OBJECT) {
+        frontierNames.skip();
+      }
+    }
+
+    int head = frontier.read();
+    if (head == 0b00001000) {
+      final YajbeDictionary dictionary = frontier.decodeConfig(head);
+      if (dictionary != null) frontierNames.setInitialFieldNames(dictionary.rawFieldNames());
+      head = frontier.read();
+    }
+
+    if (frontier.skipScalar(head)) {
+      if (frontierDepth < 0) frontierDone = true;
+    } else if ((head & 0b111_00000) == 0b001_00000) {
+      long item = ((head & 0b0011_0000) == 0b0011_0000) ? FRONTIER_FLAG_OBJECT : 0;
+      item |= ((head & 0b1111) == 0b1111) ? FRONTIER_FLAG_EOF : frontier.readItemCount(head);
+      if (++frontierDepth == frontierStack.length) {
+        frontierStack = Arrays.copyOf(frontierStack, frontierDepth + 16);
+      }
+      frontierStack[frontierDepth] = item;
+    } else {
+      throw new IOException("unexpected head: " + Integer.toBinaryString(head));
+    }
+    return true;
+  }
+
+  private void frontierPop() {
+    if (frontierDepth-- == 0) {
+      frontierDone = true;
+    }
+  }
+}
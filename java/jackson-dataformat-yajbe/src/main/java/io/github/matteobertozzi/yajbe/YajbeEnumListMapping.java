@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import java.util.Arrays;
+
+/**
+ * Decoder side of the enum index markers ({@link YajbeGeneratorFeature#ENUM_INDEX_MARKERS}).
+ * The encoder marks the strings it indexes, so the decoder just appends them:
+ * there is no lookup and the unmarked strings are never seen by the mapping.
+ */
+final class YajbeEnumListMapping implements YajbeEnumMapping {
+  private String[] indexed = new String[64];
+  private int indexedCount;
+
+  /**
+   * @param keys the indexed keys of the stream
+   * @param count the number of keys indexed at the restore point
+   * @return the mapping with the first count keys indexed
+   */
+  static YajbeEnumListMapping restore(final String[] keys, final int count) {
+    final YajbeEnumListMapping mapping = new YajbeEnumListMapping();
+    mapping.indexed = Arrays.copyOf(keys, Math.max(64, count));
+    Arrays.fill(mapping.indexed, count, mapping.indexed.length, null);
+    mapping.indexedCount = count;
+    return mapping;
+  }
+
+  public String get(final int index) {
+    return indexed[index];
+  }
+
+  public int size() {
+    return indexedCount;
+  }
+
+  /** append the key to the index, the key is never looked up so the result is always -1 */
+  public int add(final String key) {
+    if (indexedCount == indexed.length) {
+      indexed = Arrays.copyOf(indexed, indexedCount << 1);
+    }
+    indexed[indexedCount++] = key;
+    return -1;
+  }
+}
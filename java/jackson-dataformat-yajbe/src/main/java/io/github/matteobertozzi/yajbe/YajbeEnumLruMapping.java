@@ -20,6 +20,9 @@ package io.github.matteobertozzi.yajbe;
 import java.util.Arrays;
 
 class YajbeEnumLruMapping implements YajbeEnumMapping {
+  static final int MIN_LRU_SIZE = 1 << 5;
+  static final int MAX_LRU_SIZE = 1 << 20;
+
   private final int lruSize;
   private final int minFreq;
 
@@ -38,10 +41,42 @@ class YajbeEnumLruMapping implements YajbeEnumMapping {
     this.lruHead = new ItemNode();
   }
 
+  /**
+   * The size is written in the low 4 bits of the config (2^5 to 2^20),
+   * a larger one would overflow into the config type (e.g. read back as a dictionary).
+   * @param lruSize the size of the LRU
+   */
+  static void checkLruSize(final int lruSize) {
+    if (lruSize < MIN_LRU_SIZE || lruSize > MAX_LRU_SIZE) {
+      throw new IllegalArgumentException("expected an lru size between " + MIN_LRU_SIZE + " and " + MAX_LRU_SIZE + ", got " + lruSize);
+    }
+  }
+
+  int lruSize() {
+    return lruSize;
+  }
+
+  int minFreq() {
+    return minFreq;
+  }
+
+  /** remove all the keys, the mapping can be reused for a new stream with the same configuration */
+  void clear() {
+    Arrays.fill(buckets, null);
+    Arrays.fill(indexed, 0, indexedCount, null);
+    this.lruHead = new ItemNode();
+    this.indexedCount = 0;
+    this.lruUsed = 0;
+  }
+
   public String get(final int index) {
     return indexed[index].key;
   }
 
+  public int size() {
+    return indexedCount;
+  }
+
   public int add(final String key) {
     if (key.length() < MIN_ENUM_STRING_LENGTH) return -1;
 
@@ -66,6 +101,69 @@ class YajbeEnumLruMapping implements YajbeEnumMapping {
     return incFreq(item);
   }
 
+  // ====================================================================================================
+  //  Snapshot related (used by YajbeArrayIndex to resume the decoding in the middle of a stream)
+  //  the indexed keys are append-only, so the snapshot only needs their count.
+  //  the lru keys are stored from the oldest to the newest, with their frequency.
+  // ====================================================================================================
+  record Snapshot (int indexedCount, String[] lruKeys, int[] lruFreqs) {}
+
+  Snapshot snapshot() {
+    final String[] keys = new String[lruUsed];
+    final int[] freqs = new int[lruUsed];
+    ItemNode node = lruHead.lruPrev;
+    for (int i = 0; i < lruUsed; ++i) {
+      keys[i] = node.key;
+      freqs[i] = node.freq;
+      node = node.lruPrev;
+    }
+    return new Snapshot(indexedCount, keys, freqs);
+  }
+
+  static YajbeEnumLruMapping restore(final int lruSize, final int minFreq, final String[] indexedKeys, final Snapshot snapshot) {
+    final YajbeEnumLruMapping mapping = new YajbeEnumLruMapping(lruSize, minFreq);
+    mapping.addIndexed(indexedKeys, snapshot.indexedCount());
+
+    final int mask = mapping.buckets.length - 1;
+    final String[] lruKeys = snapshot.lruKeys();
+    for (int i = 0; i < lruKeys.length; ++i) {
+      final int hash = hash(lruKeys[i]);
+      final ItemNode node = mapping.addNode(lruKeys[i], hash, mapping.buckets[hash & mask]);
+      node.freq = snapshot.lruFreqs()[i];
+      mapping.buckets[hash & mask] = node;
+    }
+    return mapping;
+  }
+
+  /**
+   * Add the keys as already indexed (e.g. the enum strings of a {@link YajbeDictionary}),
+   * the mapping must be empty. The keys will have the index 0 to count - 1.
+   * @param keys the keys to index
+   * @param count the number of keys to index
+   */
+  void addIndexed(final String[] keys, final int count) {
+    if (indexedCount != 0 || lruUsed != 0) {
+      throw new IllegalStateException("enum mapping already in use");
+    }
+
+    if (count > indexed.length) {
+      indexed = new ItemNode[Integer.highestOneBit(count - 1) << 1];
+    }
+    final int tableSize = tableSizeForItems(lruSize + count);
+    if (buckets.length != tableSize) buckets = new ItemNode[tableSize];
+
+    final int mask = buckets.length - 1;
+    for (int i = 0; i < count; ++i) {
+      final ItemNode node = new ItemNode();
+      node.set(keys[i], hash(keys[i]));
+      node.setIndex(i);
+      node.hashNext = buckets[node.hash & mask];
+      buckets[node.hash & mask] = node;
+      indexed[i] = node;
+    }
+    indexedCount = count;
+  }
+
   private ItemNode findNode(ItemNode node, final String key, final int keyHash) {
     while (node != null && !node.match(key, keyHash)) {
       node = node.hashNext;
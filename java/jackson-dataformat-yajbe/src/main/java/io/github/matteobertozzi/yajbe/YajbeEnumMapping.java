@@ -17,6 +17,8 @@
 
 package io.github.matteobertozzi.yajbe;
 
+import java.io.Serializable;
+
 /**
  * Interface implemented by enum mapping algorithms.
  */
@@ -39,6 +41,15 @@ public interface YajbeEnumMapping {
    */
   int add(String key);
 
+  /**
+   * Used by {@link YajbeDocument} to know if an index is already mapped, the default throws.
+   * @return the number of indexed strings (the valid indexes for {@link #get(int)})
+   * @throws UnsupportedOperationException if the mapping does not track the number of indexed strings
+   */
+  default int size() {
+    throw new UnsupportedOperationException(getClass().getName() + " does not support size()");
+  }
+
   /**
    * Creates an instance of the enum mapping algorithm given the configuration.
    * @param config the enum mapping algo configuration
@@ -48,17 +59,22 @@ public interface YajbeEnumMapping {
     if (config instanceof final YajbeEnumLruMappingConfig lruConfig) {
       return new YajbeEnumLruMapping(lruConfig.lruSize(), lruConfig.minFreq());
     }
+    if (config instanceof final YajbeEnumTinyLfuMappingConfig tinyLfuConfig) {
+      return new YajbeEnumTinyLfuMapping(tinyLfuConfig.width(), tinyLfuConfig.minFreq());
+    }
     throw new IllegalArgumentException("invalid config " + config);
   }
 
   /**
    * Base class to for the enum mapping config
    */
-  interface YajbeEnumMappingConfig {
+  interface YajbeEnumMappingConfig extends Serializable {
     /** types of enum maping */
     enum Type {
       /** mapping algo that uses an LRU to keep track of most common strings */
-      LRU
+      LRU,
+      /** mapping algo that uses a frequency sketch (TinyLFU) to keep track of most common strings */
+      TINY_LFU
     }
 
     /** @return The type of the enum mapping */
@@ -71,6 +87,26 @@ public interface YajbeEnumMapping {
    * @param minFreq the minimum frequency after which the text will be added to the index
    */
   record YajbeEnumLruMappingConfig (int lruSize, int minFreq) implements YajbeEnumMappingConfig {
+    /** @throws IllegalArgumentException if the lru size is not between 32 and 1M */
+    public YajbeEnumLruMappingConfig {
+      YajbeEnumLruMapping.checkLruSize(lruSize);
+    }
+
     public Type type() { return Type.LRU; }
   }
+
+  /**
+   * Enum Mapping algorithm using a frequency sketch, with a fixed memory usage (5 * width bytes).
+   * Better than the LRU when there are many more distinct strings than repeated ones (e.g. logs).
+   * @param width the number of counters per sketch row, should be a power of 2 (32 to 1M) and larger than your string repetition
+   * @param minFreq the minimum frequency after which the text will be added to the index
+   */
+  record YajbeEnumTinyLfuMappingConfig (int width, int minFreq) implements YajbeEnumMappingConfig {
+    /** @throws IllegalArgumentException if the width is not a power of 2 between 32 and 1M */
+    public YajbeEnumTinyLfuMappingConfig {
+      YajbeEnumTinyLfuMapping.checkWidth(width);
+    }
+
+    public Type type() { return Type.TINY_LFU; }
+  }
 }
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import java.util.Arrays;
+
+/**
+ * Enum mapping that uses a frequency sketch (TinyLFU) to decide which strings to index.
+ * <p>
+ * The candidate strings are not stored: the first occurrence is recorded in a doorkeeper bitset,
+ * the next ones in a count-min sketch of 4 rows of counters saturated at 15 (conservative update).
+ * When the estimated frequency reaches minFreq the string is indexed.
+ * Every 8 * width additions the counters are halved and the doorkeeper is cleared,
+ * so the old strings fade out. The memory is fixed (5 * width bytes) and it does not depend
+ * on the number of distinct strings, so high-cardinality streams do not thrash it like the LRU.
+ * <p>
+ * Everything depends only on the sequence of strings, so the decoder is an exact mirror of the encoder.
+ */
+final class YajbeEnumTinyLfuMapping implements YajbeEnumMapping {
+  private static final int ROWS = 4;
+  private static final int MAX_COUNT = 15;
+  static final int MIN_WIDTH = 1 << 5;
+  static final int MAX_WIDTH = 1 << 20;
+
+  private final int width;
+  private final int minFreq;
+  private final int counterShift;
+  private final int doorkeeperShift;
+  private final int sampleSize;
+
+  private final byte[] counters;
+  private final long[] doorkeeper;
+  private int additions;
+
+  private String[] indexed = new String[64];
+  private int[] indexedHashes = new int[64];
+  private int[] indexedTable = new int[128];
+  private int indexedCount;
+
+  public YajbeEnumTinyLfuMapping(final int width, final int minFreq) {
+    checkWidth(width);
+    this.width = width;
+    this.minFreq = minFreq;
+    this.counterShift = Integer.numberOfLeadingZeros(width) + 1;
+    this.doorkeeperShift = Integer.numberOfLeadingZeros(width << 3) + 1;
+    this.sampleSize = width << 3;
+    this.counters = new byte[ROWS * width];
+    this.doorkeeper = new long[width >> 3];
+  }
+
+  /**
+   * The width is written in the low 4 bits of the config (2^5 to 2^20),
+   * a larger one would overflow into the config type.
+   * @param width the number of counters per sketch row
+   */
+  static void checkWidth(final int width) {
+    if (Integer.bitCount(width) != 1 || width < MIN_WIDTH || width > MAX_WIDTH) {
+      throw new IllegalArgumentException("expected a power of 2 width between " + MIN_WIDTH + " and " + MAX_WIDTH + ", got " + width);
+    }
+  }
+
+  int width() {
+    return width;
+  }
+
+  int minFreq() {
+    return minFreq;
+  }
+
+  public String get(final int index) {
+    return indexed[index];
+  }
+
+  public int size() {
+    return indexedCount;
+  }
+
+  public int add(final String key) {
+    if (key.length() < MIN_ENUM_STRING_LENGTH) return -1;
+
+    final int hash = hash(key);
+    final int index = indexOf(key, hash);
+    if (index >= 0) return index;
+    if (indexedCount == MAX_INDEX_LENGTH) return -1;
+
+    // first we add the key to the indexed list, next time we will return the index
+    if (incFreq(hash) >= minFreq) {
+      addToIndex(key, hash);
+    }
+    return -1;
+  }
+
+  /**
+   * Add the keys as already indexed (e.g. the enum strings of a {@link YajbeDictionary}),
+   * the mapping must be empty. The keys will have the index 0 to count - 1.
+   */
+  void addIndexed(final String[] keys, final int count) {
+    if (indexedCount != 0 || additions != 0) {
+      throw new IllegalStateException("enum mapping already in use");
+    }
+    for (int i = 0; i < count; ++i) {
+      addToIndex(keys[i], hash(keys[i]));
+    }
+  }
+
+  // ====================================================================================================
+  //  Sketch related
+  // ====================================================================================================
+  private int incFreq(final int hash) {
+    final int h2 = Integer.rotateLeft(hash, 16) | 1;
+    final int bitA = hash >>> doorkeeperShift;
+    final int bitB = h2 >>> doorkeeperShift;
+
+    int freq;
+    if (isSet(bitA) && isSet(bitB)) {
+      // conservative update: only the smallest counters are incremented
+      int minCount = MAX_COUNT;
+      for (int r = 0; r < ROWS; ++r) {
+        minCount = Math.min(minCount, counters[counterIndex(hash, h2, r)]);
+      }
+      if (minCount < MAX_COUNT) {
+        for (int r = 0; r < ROWS; ++r) {
+          final int index = counterIndex(hash, h2, r);
+          if (counters[index] == minCount) counters[index]++;
+        }
+        minCount++;
+      }
+      freq = 1 + minCount;
+    } else {
+      doorkeeper[bitA >>> 6] |= 1L << bitA;
+      doorkeeper[bitB >>> 6] |= 1L << bitB;
+      freq = 1;
+    }
+
+    if (++additions == sampleSize) {
+      reset();
+    }
+    return freq;
+  }
+
+  private int counterIndex(final int hash, final int h2, final int row) {
+    return (row * width) + ((hash + row * h2) >>> counterShift);
+  }
+
+  private boolean isSet(final int bit) {
+    return (doorkeeper[bit >>> 6] & (1L << bit)) != 0;
+  }
+
+  private void reset() {
+    for (int i = 0; i < counters.length; ++i) {
+      counters[i] >>= 1;
+    }
+    Arrays.fill(doorkeeper, 0);
+    additions = 0;
+  }
+
+  // ====================================================================================================
+  //  Index related
+  // ====================================================================================================
+  private int indexOf(final String key, final int hash) {
+    final int mask = indexedTable.length - 1;
+    for (int slot = slot(hash, mask); indexedTable[slot] != 0; slot = (slot + 1) & mask) {
+      final int index = indexedTable[slot] - 1;
+      if (indexedHashes[index] == hash && indexed[index].equals(key)) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  private void addToIndex(final String key, final int hash) {
+    if (indexedCount == indexed.length) {
+      indexed = Arrays.copyOf(indexed, indexedCount << 1);
+      indexedHashes = Arrays.copyOf(indexedHashes, indexedCount << 1);
+    }
+    if ((indexedCount << 1) >= indexedTable.length) {
+      indexedTable = new int[indexedTable.length << 1];
+      for (int i = 0; i < indexedCount; ++i) {
+        insertSlot(indexedHashes[i], i);
+      }
+    }
+
+    indexed[indexedCount] = key;
+    indexedHashes[indexedCount] = hash;
+    insertSlot(hash, indexedCount++);
+  }
+
+  private void insertSlot(final int hash, final int index) {
+    final int mask = indexedTable.length - 1;
+    int slot = slot(hash, mask);
+    while (indexedTable[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    indexedTable[slot] = index + 1;
+  }
+
+  private static int slot(final int hash, final int mask) {
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  private static int hash(final String key) {
+    return key.hashCode() * 0x9e3779b9;
+  }
+}
@@ -17,13 +17,21 @@
 
 package io.github.matteobertozzi.yajbe;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
+import com.fasterxml.jackson.core.FormatFeature;
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.TSFBuilder;
 import com.fasterxml.jackson.core.io.IOContext;
 
 import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumMappingConfig;
@@ -44,15 +52,45 @@ import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumMappingConfig;
 public class YajbeFactory extends JsonFactory {
   private static final long serialVersionUID = 1; // 2.6
 
+  // the string value cache is shared by all the parsers, only the short strings are stored
+  private static final int STRING_VALUE_CACHE_CAPACITY = 4096;
+  private static final int STRING_VALUE_CACHE_MAX_LENGTH = 64;
+
   /** the enum mapping configuration that will be passed to the YajbeGenerator */
   private final YajbeEnumMappingConfig enumConfig;
 
+  /** the dictionary written at the beginning of the streams by the YajbeGenerator */
+  private final YajbeDictionary dictionary;
+
+  /**
+   * the dictionaries known by the YajbeParser, it contains the factory dictionary.
+   * not serialized, the deserialized factory knows only its own dictionary.
+   */
+  private final transient YajbeDictionaryRegistry dictionaries = new YajbeDictionaryRegistry();
+
+  /** the {@link YajbeGeneratorFeature} flags that will be passed to the YajbeGenerator */
+  private int formatGeneratorFeatures = YajbeGeneratorFeature.collectDefaults();
+
+  /** the {@link YajbeParserFeature} flags that will be passed to the YajbeParser */
+  private int formatParserFeatures = YajbeParserFeature.collectDefaults();
+
+  /** the {@link YajbeFactoryFeature} flags */
+  private int yajbeFactoryFeatures = YajbeFactoryFeature.collectDefaults();
+
+  /** the field names shared by the parsers, see {@link JsonFactory.Feature#CANONICALIZE_FIELD_NAMES} */
+  private transient YajbeFieldNameCanonicalizer fieldNames;
+
+  /** the short string values shared by the parsers, see {@link YajbeParserFeature#STRING_VALUE_CACHE} */
+  private transient YajbeFieldNameCanonicalizer stringValues;
+
+  /** the parser and generator state (field names, stacks, enum mapping) reused across calls */
+  private transient YajbeRecycler.Pool recyclerPool;
+
   /**
    * Creates a new YajbeFactory without enum mapping
    */
   public YajbeFactory() {
-    super();
-    this.enumConfig = null;
+    this((YajbeEnumMappingConfig) null, null);
   }
 
   /**
@@ -60,19 +98,461 @@ public class YajbeFactory extends JsonFactory {
    * @param enumConfig the enum-mapping configuration
    */
   public YajbeFactory(final YajbeEnumMappingConfig enumConfig) {
+    this(enumConfig, null);
+  }
+
+  /**
+   * Creates a new YajbeFactory with the specified enum mapping config and dictionary.
+   * The generators reference the dictionary at the beginning of each stream: the field names
+   * and (with an enum mapping config) the enum strings are indexed from their first occurrence.
+   * The parsers of this factory know the dictionary, the other ones need it in their registry.
+   *
+   * @param enumConfig the enum-mapping configuration, null to disable the enum mapping
+   * @param dictionary the dictionary used by the generators, null to not use a dictionary
+   */
+  public YajbeFactory(final YajbeEnumMappingConfig enumConfig, final YajbeDictionary dictionary) {
+    super();
     this.enumConfig = enumConfig;
+    this.dictionary = dictionary;
+    if (dictionary != null) dictionaries.register(dictionary);
+  }
+
+  /**
+   * Copy constructor, used on deserialization.
+   * @param src the factory to copy the configuration from
+   * @param codec the codec to use, may be null
+   */
+  private YajbeFactory(final YajbeFactory src, final ObjectCodec codec) {
+    super(src, codec);
+    this.enumConfig = src.enumConfig;
+    this.dictionary = src.dictionary;
+    this.formatGeneratorFeatures = src.formatGeneratorFeatures;
+    this.formatParserFeatures = src.formatParserFeatures;
+    this.yajbeFactoryFeatures = src.yajbeFactoryFeatures;
+    if (dictionary != null) dictionaries.register(dictionary);
+  }
+
+  /**
+   * The transient state (dictionary registry, caches, recycler pool) is re-created.
+   * @return a new YajbeFactory with the configuration of the deserialized one
+   */
+  @Override
+  protected Object readResolve() {
+    return new YajbeFactory(this, _objectCodec);
+  }
+
+  private YajbeFactory(final Builder builder) {
+    super(builder, false);
+    this.enumConfig = builder.enumConfig;
+    this.dictionary = builder.dictionary;
+    this.formatGeneratorFeatures = builder.formatGeneratorFeatures;
+    this.formatParserFeatures = builder.formatParserFeatures;
+    this.yajbeFactoryFeatures = builder.yajbeFactoryFeatures;
+    if (dictionary != null) dictionaries.register(dictionary);
+  }
+
+  /**
+   * @return a builder for a new YajbeFactory without enum mapping
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * The builder has the configuration of this factory,
+   * the dictionaries registered after the creation are not copied.
+   * @return a builder for a new YajbeFactory with the configuration of this one
+   */
+  @Override
+  public Builder rebuild() {
+    return new Builder(this);
+  }
+
+  /**
+   * Builder of {@link YajbeFactory}, to configure the {@link JsonFactory.Feature}s
+   * without the deprecated mutators of the factory.
+   */
+  public static final class Builder extends TSFBuilder<YajbeFactory, Builder> {
+    private YajbeEnumMappingConfig enumConfig;
+    private YajbeDictionary dictionary;
+    private int formatGeneratorFeatures;
+    private int formatParserFeatures;
+    private int yajbeFactoryFeatures;
+
+    private Builder() {
+      this.formatGeneratorFeatures = YajbeGeneratorFeature.collectDefaults();
+      this.formatParserFeatures = YajbeParserFeature.collectDefaults();
+      this.yajbeFactoryFeatures = YajbeFactoryFeature.collectDefaults();
+    }
+
+    private Builder(final YajbeFactory factory) {
+      super(factory);
+      this.enumConfig = factory.enumConfig;
+      this.dictionary = factory.dictionary;
+      this.formatGeneratorFeatures = factory.formatGeneratorFeatures;
+      this.formatParserFeatures = factory.formatParserFeatures;
+      this.yajbeFactoryFeatures = factory.yajbeFactoryFeatures;
+    }
+
+    /**
+     * @param enumConfig the enum-mapping configuration, null to disable the enum mapping
+     * @return this builder
+     */
+    public Builder enumMapping(final YajbeEnumMappingConfig enumConfig) {
+      this.enumConfig = enumConfig;
+      return this;
+    }
+
+    /**
+     * @param dictionary the dictionary used by the generators, null to not use a dictionary
+     * @return this builder
+     */
+    public Builder dictionary(final YajbeDictionary dictionary) {
+      this.dictionary = dictionary;
+      return this;
+    }
+
+    /**
+     * @param f the generator feature to enable
+     * @return this builder
+     */
+    public Builder enable(final YajbeGeneratorFeature f) {
+      formatGeneratorFeatures |= f.getMask();
+      return this;
+    }
+
+    /**
+     * @param f the generator feature to disable
+     * @return this builder
+     */
+    public Builder disable(final YajbeGeneratorFeature f) {
+      formatGeneratorFeatures &= ~f.getMask();
+      return this;
+    }
+
+    /**
+     * @param f the parser feature to enable
+     * @return this builder
+     */
+    public Builder enable(final YajbeParserFeature f) {
+      formatParserFeatures |= f.getMask();
+      return this;
+    }
+
+    /**
+     * @param f the parser feature to disable
+     * @return this builder
+     */
+    public Builder disable(final YajbeParserFeature f) {
+      formatParserFeatures &= ~f.getMask();
+      return this;
+    }
+
+    /**
+     * @param f the factory feature to enable
+     * @return this builder
+     */
+    public Builder enable(final YajbeFactoryFeature f) {
+      yajbeFactoryFeatures |= f.getMask();
+      return this;
+    }
+
+    /**
+     * @param f the factory feature to disable
+     * @return this builder
+     */
+    public Builder disable(final YajbeFactoryFeature f) {
+      yajbeFactoryFeatures &= ~f.getMask();
+      return this;
+    }
+
+    @Override
+    public YajbeFactory build() {
+      return new YajbeFactory(this);
+    }
+  }
+
+  /**
+   * The dictionaries known by the parsers of this factory.
+   * Register the previous versions of the dictionary, to decode the streams encoded with them.
+   * @return the dictionary registry of the factory
+   */
+  public YajbeDictionaryRegistry dictionaries() {
+    return dictionaries;
+  }
+
+
+  /**
+   * Enable or disable the specified generator feature
+   * @param f the feature to configure
+   * @param state true to enable the feature, false to disable it
+   * @return this factory
+   */
+  public YajbeFactory configure(final YajbeGeneratorFeature f, final boolean state) {
+    return state ? enable(f) : disable(f);
+  }
+
+  /**
+   * @param f the generator feature to enable
+   * @return this factory
+   */
+  public YajbeFactory enable(final YajbeGeneratorFeature f) {
+    formatGeneratorFeatures |= f.getMask();
+    return this;
+  }
+
+  /**
+   * @param f the generator feature to disable
+   * @return this factory
+   */
+  public YajbeFactory disable(final YajbeGeneratorFeature f) {
+    formatGeneratorFeatures &= ~f.getMask();
+    return this;
+  }
+
+  /**
+   * @param f the generator feature to check
+   * @return true if the feature is enabled
+   */
+  public boolean isEnabled(final YajbeGeneratorFeature f) {
+    return f.enabledIn(formatGeneratorFeatures);
+  }
+
+  /**
+   * Enable or disable the specified parser feature
+   * @param f the feature to configure
+   * @param state true to enable the feature, false to disable it
+   * @return this factory
+   */
+  public YajbeFactory configure(final YajbeParserFeature f, final boolean state) {
+    return state ? enable(f) : disable(f);
   }
 
+  /**
+   * @param f the parser feature to enable
+   * @return this factory
+   */
+  public YajbeFactory enable(final YajbeParserFeature f) {
+    formatParserFeatures |= f.getMask();
+    return this;
+  }
+
+  /**
+   * @param f the parser feature to disable
+   * @return this factory
+   */
+  public YajbeFactory disable(final YajbeParserFeature f) {
+    formatParserFeatures &= ~f.getMask();
+    return this;
+  }
+
+  /**
+   * @param f the parser feature to check
+   * @return true if the feature is enabled
+   */
+  public boolean isEnabled(final YajbeParserFeature f) {
+    return f.enabledIn(formatParserFeatures);
+  }
+
+  /**
+   * Enable or disable the specified factory feature
+   * @param f the feature to configure
+   * @param state true to enable the feature, false to disable it
+   * @return this factory
+   */
+  public YajbeFactory configure(final YajbeFactoryFeature f, final boolean state) {
+    return state ? enable(f) : disable(f);
+  }
+
+  /**
+   * @param f the factory feature to enable
+   * @return this factory
+   */
+  public YajbeFactory enable(final YajbeFactoryFeature f) {
+    yajbeFactoryFeatures |= f.getMask();
+    return this;
+  }
+
+  /**
+   * @param f the factory feature to disable
+   * @return this factory
+   */
+  public YajbeFactory disable(final YajbeFactoryFeature f) {
+    yajbeFactoryFeatures &= ~f.getMask();
+    return this;
+  }
+
+  /**
+   * @param f the factory feature to check
+   * @return true if the feature is enabled
+   */
+  public boolean isEnabled(final YajbeFactoryFeature f) {
+    return f.enabledIn(yajbeFactoryFeatures);
+  }
 
   @Override public String getFormatName() { return "YAJBE"; }
 
+  @Override public int getFormatGeneratorFeatures() { return formatGeneratorFeatures; }
+  @Override public Class<? extends FormatFeature> getFormatWriteFeatureType() { return YajbeGeneratorFeature.class; }
+  @Override public int getFormatParserFeatures() { return formatParserFeatures; }
+  @Override public Class<? extends FormatFeature> getFormatReadFeatureType() { return YajbeParserFeature.class; }
+
   @Override public boolean requiresPropertyOrdering() { return false; }
   @Override public boolean canHandleBinaryNatively() { return true; }
   @Override public boolean canUseCharArrays() { return false; }
+  @Override public boolean canParseAsync() { return true; }
+
+  /**
+   * Creates a parser on top of a memory-mapped view of the file.
+   * The file is not loaded in memory, so it can be larger than the heap (or 2GiB).
+   * If an {@link com.fasterxml.jackson.core.io.InputDecorator} is configured
+   * the file will be read as a stream instead.
+   */
+  @Override
+  public JsonParser createParser(final File f) throws IOException {
+    if (_inputDecorator != null) return super.createParser(f);
+
+    final IOContext ctxt = _createContext(_createContentReference(f), true);
+    return newParser(ctxt, YajbeReader.fromFile(f));
+  }
+
+  /**
+   * Creates a parser reading the content between the position and the limit of the buffer.
+   * Heap buffers are read in place, direct buffers are read with absolute gets.
+   * The position of the buffer is not modified.
+   * @param buf the buffer containing the YAJBE encoded data
+   * @return the parser
+   */
+  public JsonParser createParser(final ByteBuffer buf) {
+    final IOContext ctxt = _createContext(_createContentReference(buf), false);
+    return newParser(ctxt, YajbeReader.fromBuffer(buf));
+  }
+
+  /**
+   * Creates a parser positioned at an element of a top-level array, using an index built
+   * with {@link YajbeArrayIndex#build(byte[], int)}.
+   * The parser current token is START_ARRAY, and the array contains the elements from the requested one to the end.
+   * @param data the YAJBE encoded top-level array
+   * @param index the index of the data
+   * @param element the index of the first element to read
+   * @return the parser
+   * @throws IOException if the data cannot be read
+   */
+  public JsonParser createParser(final byte[] data, final YajbeArrayIndex index, final long element) throws IOException {
+    final IOContext ctxt = _createContext(_createContentReference(data), true);
+    return createIndexedParser(ctxt, YajbeReader.fromBytes(data), index, element);
+  }
+
+  /**
+   * Creates a parser positioned at an element of a top-level array, using an index built
+   * with {@link YajbeArrayIndex#build(ByteBuffer, int)}.
+   * The position of the buffer is not modified.
+   * @param buf the buffer containing the YAJBE encoded top-level array
+   * @param index the index of the data
+   * @param element the index of the first element to read
+   * @return the parser
+   * @throws IOException if the data cannot be read
+   */
+  public JsonParser createParser(final ByteBuffer buf, final YajbeArrayIndex index, final long element) throws IOException {
+    final IOContext ctxt = _createContext(_createContentReference(buf), false);
+    return createIndexedParser(ctxt, YajbeReader.fromBuffer(buf), index, element);
+  }
+
+  /**
+   * Creates a parser positioned at an element of a top-level array, using an index built
+   * with {@link YajbeArrayIndex#build(File, int)}. The file is memory-mapped.
+   * @param file the file containing the YAJBE encoded top-level array
+   * @param index the index of the data
+   * @param element the index of the first element to read
+   * @return the parser
+   * @throws IOException if the file cannot be read
+   */
+  public JsonParser createParser(final File file, final YajbeArrayIndex index, final long element) throws IOException {
+    final IOContext ctxt = _createContext(_createContentReference(file), true);
+    return createIndexedParser(ctxt, YajbeReader.fromFile(file), index, element);
+  }
+
+  private JsonParser createIndexedParser(final IOContext ctxt, final YajbeReader reader,
+      final YajbeArrayIndex index, final long element) throws IOException {
+    final YajbeParser parser = newParser(ctxt, reader);
+    index.seek(parser, reader, element);
+    return parser;
+  }
+
+  /**
+   * Creates a non-blocking parser, the data is pushed using the
+   * {@link com.fasterxml.jackson.core.async.ByteArrayFeeder} returned by getNonBlockingInputFeeder().
+   * nextToken() returns {@link com.fasterxml.jackson.core.JsonToken#NOT_AVAILABLE} until
+   * the next token is fully available.
+   */
+  @Override
+  public JsonParser createNonBlockingByteArrayParser() {
+    final IOContext ctxt = _createNonBlockingContext(null);
+    return newParser(ctxt, new YajbeReaderFeeder());
+  }
+
+  /**
+   * Creates a non-blocking parser, the data is pushed using the
+   * {@link com.fasterxml.jackson.core.async.ByteBufferFeeder} returned by getNonBlockingInputFeeder().
+   * nextToken() returns {@link com.fasterxml.jackson.core.JsonToken#NOT_AVAILABLE} until
+   * the next token is fully available.
+   */
+  @Override
+  public JsonParser createNonBlockingByteBufferParser() {
+    final IOContext ctxt = _createNonBlockingContext(null);
+    return newParser(ctxt, new YajbeReaderFeeder());
+  }
+
+  private YajbeParser newParser(final IOContext ctxt, final YajbeReader reader) {
+    final YajbeParser parser = new YajbeParser(ctxt, _parserFeatures, formatParserFeatures, _objectCodec, reader,
+      fieldNameCanonicalizer(), stringValueCache(), acquireRecycler());
+    parser.setDictionaries(dictionaries);
+    return parser;
+  }
+
+  private YajbeGenerator newGenerator(final IOContext ctxt, final YajbeWriter writer) throws IOException {
+    final YajbeGenerator generator = new YajbeGenerator(ctxt, _generatorFeatures, formatGeneratorFeatures, _objectCodec, writer, enumConfig, acquireRecycler());
+    if (dictionary != null) generator.setDictionary(dictionary);
+    return generator;
+  }
+
+  private YajbeRecycler acquireRecycler() {
+    if (!YajbeFactoryFeature.RECYCLE_STATE.enabledIn(yajbeFactoryFeatures)) return null;
+
+    // racy lazy init (the field is transient): at worst a few recyclers end up in a dropped pool
+    YajbeRecycler.Pool pool = recyclerPool;
+    if (pool == null) {
+      pool = new YajbeRecycler.Pool();
+      recyclerPool = pool;
+    }
+    return pool.acquireAndLinkPooled();
+  }
+
+  YajbeFieldNameCanonicalizer fieldNameCanonicalizer() {
+    if (!isEnabled(JsonFactory.Feature.CANONICALIZE_FIELD_NAMES)) return null;
+
+    // racy lazy init (the field is transient): at worst two parsers start with different tables
+    YajbeFieldNameCanonicalizer canonicalizer = fieldNames;
+    if (canonicalizer == null) {
+      canonicalizer = new YajbeFieldNameCanonicalizer();
+      fieldNames = canonicalizer;
+    }
+    return canonicalizer;
+  }
+
+  YajbeFieldNameCanonicalizer stringValueCache() {
+    // the feature can be enabled per parser (e.g. ObjectReader.with()), the parser gets the table anyway
+    YajbeFieldNameCanonicalizer canonicalizer = stringValues;
+    if (canonicalizer == null) {
+      canonicalizer = new YajbeFieldNameCanonicalizer(STRING_VALUE_CACHE_CAPACITY, STRING_VALUE_CACHE_MAX_LENGTH);
+      stringValues = canonicalizer;
+    }
+    return canonicalizer;
+  }
 
   @Override
   protected YajbeParser _createParser(final InputStream in, final IOContext ctxt) {
-    return new YajbeParser(ctxt, _parserFeatures, _objectCodec, YajbeReader.fromStream(in));
+    return newParser(ctxt, YajbeReader.fromStream(in));
   }
 
   @Override
@@ -88,7 +568,7 @@ public class YajbeFactory extends JsonFactory {
 
   @Override
   protected YajbeParser _createParser(final byte[] data, final int offset, final int len, final IOContext ctxt) {
-    return new YajbeParser(ctxt, _parserFeatures, _objectCodec, YajbeReader.fromBytes(data, offset, len));
+    return newParser(ctxt, YajbeReader.fromBytes(data, offset, len));
   }
 
   @Override
@@ -97,7 +577,32 @@ public class YajbeFactory extends JsonFactory {
   }
 
   @Override
-  protected YajbeGenerator _createUTF8Generator(final OutputStream out, final IOContext ctxt) {
-    return new YajbeGenerator(ctxt, _generatorFeatures, _objectCodec, out, enumConfig);
+  protected YajbeGenerator _createUTF8Generator(final OutputStream out, final IOContext ctxt) throws IOException {
+    final YajbeWriter writer = YajbeWriter.forBufferedStream(out, ctxt.allocWriteEncodingBuffer(9));
+    return newGenerator(ctxt, writer);
+  }
+
+  /**
+   * Creates a generator that writes the encoded data into the buffer, starting from its position.
+   * @param out the target buffer (heap or direct)
+   * @return the generator
+   * @throws IOException if the dictionary header cannot be written
+   */
+  public JsonGenerator createGenerator(final ByteBuffer out) throws IOException {
+    final IOContext ctxt = _createContext(_createContentReference(out), false);
+    final YajbeWriter writer = YajbeWriter.forByteBuffer(out, ctxt.allocWriteEncodingBuffer(9));
+    return _decorate(newGenerator(ctxt, writer));
+  }
+
+  /**
+   * Creates a generator that writes the encoded data into the channel.
+   * @param out the target channel
+   * @return the generator
+   * @throws IOException if the dictionary header cannot be written
+   */
+  public JsonGenerator createGenerator(final WritableByteChannel out) throws IOException {
+    final IOContext ctxt = _createContext(_createContentReference(out), false);
+    final YajbeWriter writer = YajbeWriter.forChannel(out, ctxt.allocWriteEncodingBuffer(9));
+    return _decorate(newGenerator(ctxt, writer));
   }
 }
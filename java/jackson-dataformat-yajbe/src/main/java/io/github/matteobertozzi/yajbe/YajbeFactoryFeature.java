@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.matteobertozzi.yajbe;
+
+import com.fasterxml.jackson.core.util.JacksonFeature;
+
+/**
+ * YAJBE specific features of the {@link YajbeFactory}, they apply to all its parsers and generators.
+ */
+public enum YajbeFactoryFeature implements JacksonFeature {
+  /**
+   * Reuse the per-stream state (field names, nesting stack, enum mapping) of the closed parsers and generators,
+   * instead of allocating it for each one. The state is kept in a pool owned by the factory.
+   * Disable it to let each parser/generator own its state (e.g. when they are rarely closed).
+   */
+  RECYCLE_STATE(true);
+
+  private final boolean defaultState;
+  private final int mask;
+
+  YajbeFactoryFeature(final boolean defaultState) {
+    this.defaultState = defaultState;
+    this.mask = (1 << ordinal());
+  }
+
+  /**
+   * @return the flags of the features enabled by default
+   */
+  public static int collectDefaults() {
+    int flags = 0;
+    for (final YajbeFactoryFeature f: values()) {
+      if (f.enabledByDefault()) flags |= f.getMask();
+    }
+    return flags;
+  }
+
+  @Override
+  public boolean enabledByDefault() {
+    return defaultState;
+  }
+
+  @Override
+  public int getMask() {
+    return mask;
+  }
+
+  @Override
+  public boolean enabledIn(final int flags) {
+    return (flags & mask) != 0;
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.matteobertozzi.yajbe;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import io.github.matteobertozzi.yajbe.YajbeReader.ByteArraySlice;
+
+/**
+ * Bounded table of the field names, shared by all the parsers created by a {@link YajbeFactory}.
+ * Maps the utf-8 bytes of a field name to a canonical String, so documents with the same
+ * schema do not decode (and allocate) the same names over and over.
+ * The same table (with a smaller max length) is used by the reader for the short string values,
+ * see {@link YajbeParserFeature#STRING_VALUE_CACHE}.
+ * Like the jackson ByteQuadsCanonicalizer, but with no per-parser child tables:
+ * the entries are immutable and the slots are written without locks, a lookup
+ * sees either a complete entry or nothing. When the probe window is full the first slot is replaced.
+ */
+final class YajbeFieldNameCanonicalizer {
+  private static final int DEFAULT_CAPACITY = 4096;
+  private static final int MAX_NAME_LENGTH = 256;
+  private static final int MAX_PROBES = 4;
+
+  private record Entry(byte[] utf8, int hash, String name) {}
+
+  private final Entry[] slots;
+  private final int mask;
+  private final int maxLength;
+
+  YajbeFieldNameCanonicalizer() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  YajbeFieldNameCanonicalizer(final int capacity) {
+    this(capacity, MAX_NAME_LENGTH);
+  }
+
+  /**
+   * @param capacity the max number of entries (rounded down to a power of 2)
+   * @param maxLength the utf-8 length of the longest string stored in the table
+   */
+  YajbeFieldNameCanonicalizer(final int capacity, final int maxLength) {
+    this.slots = new Entry[Integer.highestOneBit(Math.max(MAX_PROBES, capacity))];
+    this.mask = slots.length - 1;
+    this.maxLength = maxLength;
+  }
+
+  int maxLength() {
+    return maxLength;
+  }
+
+  int capacity() {
+    return slots.length;
+  }
+
+  int size() {
+    int count = 0;
+    for (final Entry entry: slots) {
+      if (entry != null) count++;
+    }
+    return count;
+  }
+
+  /**
+   * @param utf8 the utf-8 bytes of the field name
+   * @return the canonical String of the field name, decoded only the first time it is seen
+   */
+  String canonicalize(final ByteArraySlice utf8) {
+    return canonicalize(utf8.buf(), utf8.off(), utf8.len());
+  }
+
+  String canonicalize(final byte[] buf, final int off, final int len) {
+    if (len > maxLength) {
+      return new String(buf, off, len, StandardCharsets.UTF_8);
+    }
+
+    final int hash = hash(buf, off, len);
+    final int index = hash & mask;
+    int freeSlot = -1;
+    for (int i = 0; i < MAX_PROBES; ++i) {
+      final int slot = (index + i) & mask;
+      final Entry entry = slots[slot];
+      if (entry == null) {
+        // entries are never removed, there is nothing after an empty slot
+        freeSlot = slot;
+        break;
+      }
+      if (entry.hash == hash && Arrays.equals(entry.utf8, 0, entry.utf8.length, buf, off, off + len)) {
+        return entry.name;
+      }
+    }
+
+    final byte[] key = Arrays.copyOfRange(buf, off, off + len);
+    final String name = new String(key, StandardCharsets.UTF_8);
+    slots[freeSlot >= 0 ? freeSlot : index] = new Entry(key, hash, name);
+    return name;
+  }
+
+  private static int hash(final byte[] buf, final int off, final int len) {
+    int h = len;
+    for (int i = 0; i < len; ++i) {
+      h = 31 * h + buf[off + i];
+    }
+    return h ^ (h >>> 16);
+  }
+}
@@ -21,17 +21,46 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
+import com.fasterxml.jackson.core.SerializableString;
+
+import io.github.matteobertozzi.yajbe.YajbeFieldNameWriter.IdentityIndexMap;
 import io.github.matteobertozzi.yajbe.YajbeReader.ByteArraySlice;
 
 final class YajbeFieldNameReader {
-  private final YajbeReader reader;
+  private YajbeFieldNameCanonicalizer canonicalizer;
+  private YajbeReader reader;
 
   private Object[] indexedNames = new Object[32];
   private int indexedNameCount = 0;
   private ByteArraySlice lastKey;
+  private int lastIndex = -1;
+
+  // field index of the names already matched by lastNameEquals() (e.g. the bean properties)
+  private final IdentityIndexMap serializedIndex = new IdentityIndexMap(16);
 
   public YajbeFieldNameReader(final YajbeReader reader) {
+    this(reader, null);
+  }
+
+  public YajbeFieldNameReader(final YajbeReader reader, final YajbeFieldNameCanonicalizer canonicalizer) {
+    this.reader = reader;
+    this.canonicalizer = canonicalizer;
+  }
+
+  void reset(final YajbeReader reader, final YajbeFieldNameCanonicalizer canonicalizer) {
     this.reader = reader;
+    this.canonicalizer = canonicalizer;
+  }
+
+  /** drop the names, and the references to the data of the stream (the slices may point to the input) */
+  void clear() {
+    Arrays.fill(indexedNames, 0, indexedNameCount, null);
+    this.indexedNameCount = 0;
+    this.lastKey = null;
+    this.lastIndex = -1;
+    serializedIndex.clear();
+    this.reader = null;
+    this.canonicalizer = null;
   }
 
   void setInitialFieldNames(final String[] names) {
@@ -40,7 +69,7 @@ final class YajbeFieldNameReader {
     }
 
     if (indexedNames.length <= (names.length * 2)) {
-      indexedNames = Arrays.copyOf(names, names.length * 2);
+      indexedNames = new Object[names.length * 4];
     }
 
     for (int i = 0; i < names.length; ++i) {
@@ -49,18 +78,100 @@ final class YajbeFieldNameReader {
     }
   }
 
+  /**
+   * Restore the state of the reader at a specific point of the stream.
+   * @param names the field names indexed by the stream (at least count)
+   * @param count the number of names indexed at that point
+   * @param lastKey the last field name read, used by the prefix compression
+   */
+  void restore(final byte[][] names, final int count, final byte[] lastKey) {
+    this.indexedNames = new Object[Math.max(32, count << 1)];
+    this.indexedNameCount = 0;
+    for (int i = 0; i < count; ++i) {
+      indexedNames[indexedNameCount++] = new ByteArraySlice(names[i]);
+      indexedNames[indexedNameCount++] = null;
+    }
+    this.lastKey = lastKey != null ? new ByteArraySlice(lastKey) : null;
+    this.lastIndex = -1;
+  }
+
+  ByteArraySlice lastKey() {
+    return lastKey;
+  }
+
+  /**
+   * @return the index of the last field name read (or skipped), -1 if there is none.
+   *         the same name has always the same index in a stream
+   */
+  int lastIndex() {
+    return lastIndex;
+  }
+
   public String read() throws IOException {
     final int head = this.reader.read();
     return switch ((head >> 5) & 0b111) {
-      case 0b100 -> this.readFullFieldName(head);
+      case 0b100 -> this.addToIndex(this.readFullFieldName(head), true);
       case 0b101 -> this.readIndexedFieldName(head);
-      case 0b110 -> this.readPrefix(head);
-      case 0b111 -> this.readPrefixSuffix(head);
+      case 0b110 -> this.addToIndex(this.readPrefix(head), true);
+      case 0b111 -> this.addToIndex(this.readPrefixSuffix(head), true);
       default -> throw new Error("unexpected head: " + Integer.toBinaryString(head));
     };
   }
 
+  /**
+   * Consume the next field name without creating the String.
+   * The name is still added to the index (and used as lastKey for the prefix compression),
+   * the String will be created only if the name is referenced again with read().
+   */
+  public void skip() throws IOException {
+    final int head = this.reader.read();
+    switch ((head >> 5) & 0b111) {
+      case 0b100 -> this.addToIndex(this.readFullFieldName(head), false);
+      case 0b101 -> {
+        this.lastIndex = this.readLength(head);
+        this.lastKey = (ByteArraySlice) this.indexedNames[lastIndex << 1];
+      }
+      case 0b110 -> this.addToIndex(this.readPrefix(head), false);
+      case 0b111 -> this.addToIndex(this.readPrefixSuffix(head), false);
+      default -> throw new Error("unexpected head: " + Integer.toBinaryString(head));
+    }
+  }
+
+  /**
+   * Compare the last field name read with a pre-encoded name.
+   * Once the name is matched its field index is cached: the next calls are an int comparison.
+   * @param key the name to match
+   * @param lastName the String of the last field name read
+   * @return true if the last field name read is the specified one
+   */
+  boolean lastNameEquals(final SerializableString key, final String lastName) {
+    final int index = serializedIndex.get(key);
+    if (index >= 0) {
+      // an indexed name is always referenced by its index, a name past the limit is never an indexed one
+      return index == lastIndex;
+    }
+
+    if (!key.getValue().equals(lastName)) return false;
+    if (lastIndex < YajbeFieldNameWriter.MAX_INDEXED_NAMES) {
+      // the names after the writer limit are written in full, the same name may get different indexes
+      serializedIndex.put(key, lastIndex);
+    }
+    return true;
+  }
+
+  int indexedCount() {
+    return indexedNameCount >> 1;
+  }
+
+  ByteArraySlice indexedKey(final int index) {
+    return (ByteArraySlice) indexedNames[index << 1];
+  }
+
   private int readLength(final int head) throws IOException {
+    return readLength(reader, head);
+  }
+
+  static int readLength(final YajbeReader reader, final int head) throws IOException {
     final int length = (head & 0b000_11111);
     if (length < 30) return length;
     if (length == 30) return reader.read() + 29;
@@ -70,12 +181,13 @@ final class YajbeFieldNameReader {
     return 284 + 256 * b1 + b2;
   }
 
-  private String addToIndex(final ByteArraySlice utf8) {
+  private String addToIndex(final ByteArraySlice utf8, final boolean decode) {
     if (indexedNameCount == indexedNames.length) {
       indexedNames = Arrays.copyOf(indexedNames, indexedNameCount << 1);
     }
 
-    final String str = utf8.toString(StandardCharsets.UTF_8);
+    final String str = decode ? decode(utf8) : null;
+    this.lastIndex = indexedNameCount >> 1;
     indexedNames[indexedNameCount++] = utf8;
     indexedNames[indexedNameCount++] = str;
 
@@ -83,29 +195,40 @@ final class YajbeFieldNameReader {
     return str;
   }
 
-  private String readFullFieldName(final int head) throws IOException {
+  private String decode(final ByteArraySlice utf8) {
+    return canonicalizer != null ? canonicalizer.canonicalize(utf8) : utf8.toString(StandardCharsets.UTF_8);
+  }
+
+  private ByteArraySlice readFullFieldName(final int head) throws IOException {
     final int length = this.readLength(head);
-    final ByteArraySlice utf8 = this.reader.readNBytes(length);
-    return addToIndex(utf8);
+    return this.reader.readNBytes(length);
   }
 
   private String readIndexedFieldName(final int head) throws IOException {
-    final int fieldIndex = this.readLength(head) << 1;
+    this.lastIndex = this.readLength(head);
+    final int fieldIndex = lastIndex << 1;
     this.lastKey = (ByteArraySlice) this.indexedNames[fieldIndex];
-    return (String) this.indexedNames[fieldIndex + 1];
+
+    final String name = (String) this.indexedNames[fieldIndex + 1];
+    if (name != null) return name;
+
+    // the name was added by skip()
+    final String str = decode(this.lastKey);
+    this.indexedNames[fieldIndex + 1] = str;
+    return str;
   }
 
-  private String readPrefix(final int head) throws IOException {
+  private ByteArraySlice readPrefix(final int head) throws IOException {
     final int length = this.readLength(head);
     final int prefix = this.reader.read();
 
     final byte[] utf8 = new byte[prefix + length];
     System.arraycopy(this.lastKey.buf(), this.lastKey.off(), utf8, 0, prefix);
     this.reader.readNBytes(utf8, prefix, length);
-    return addToIndex(new ByteArraySlice(utf8));
+    return new ByteArraySlice(utf8);
   }
 
-  private String readPrefixSuffix(final int head) throws IOException {
+  private ByteArraySlice readPrefixSuffix(final int head) throws IOException {
     final int length = this.readLength(head);
     final int prefix = this.reader.read();
     final int suffix = this.reader.read();
@@ -114,7 +237,6 @@ final class YajbeFieldNameReader {
     System.arraycopy(this.lastKey.buf(), this.lastKey.off(), utf8, 0, prefix);
     System.arraycopy(lastKey.buf(), lastKey.off() + lastKey.len() - suffix, utf8, prefix + length, suffix);
     this.reader.readNBytes(utf8, prefix, length);
-
-    return addToIndex(new ByteArraySlice(utf8));
+    return new ByteArraySlice(utf8);
   }
 }
@@ -21,11 +21,15 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
+import com.fasterxml.jackson.core.SerializableString;
+
 final class YajbeFieldNameWriter {
-  private static final int MAX_INDEXED_NAMES = 65819;
+  // the max index that can be encoded, the names after it are always written in full
+  static final int MAX_INDEXED_NAMES = 65819;
 
   private final IndexedHashSet indexedMap = new IndexedHashSet(128);
-  private final YajbeWriter stream;
+  private final IdentityIndexMap serializedIndex = new IdentityIndexMap(32);
+  private YajbeWriter stream;
 
   private String lastKey;
   private byte[] lastKeyUtf8;
@@ -34,6 +38,22 @@ final class YajbeFieldNameWriter {
     this.stream = stream;
   }
 
+  void reset(final YajbeWriter stream) {
+    this.stream = stream;
+  }
+
+  void clear() {
+    indexedMap.clear();
+    serializedIndex.clear();
+    this.lastKey = null;
+    this.lastKeyUtf8 = null;
+    this.stream = null;
+  }
+
+  int indexedCount() {
+    return indexedMap.size();
+  }
+
   void setInitialFieldNames(final String[] names) {
     if (indexedMap.size != 0) {
       throw new UnsupportedOperationException("field names already added");
@@ -45,15 +65,40 @@ final class YajbeFieldNameWriter {
   }
 
   public void write(final String key) throws IOException {
+    write(key, null);
+  }
+
+  /**
+   * Write a pre-encoded field name (e.g. the SerializedString of the bean properties).
+   * The instances are mapped by identity to the index of the name: once the name is indexed
+   * there is no hashing of the string, and the first write uses the cached utf-8 bytes.
+   */
+  public void write(final SerializableString key) throws IOException {
+    final int index = this.serializedIndex.get(key);
+    if (index >= 0) {
+      this.writeIndexedFieldName(index);
+      this.lastKey = key.getValue();
+      this.lastKeyUtf8 = null;
+      return;
+    }
+
+    final int keyIndex = write(key.getValue(), key);
+    if (keyIndex >= 0) {
+      serializedIndex.put(key, keyIndex);
+    }
+  }
+
+  private int write(final String key, final SerializableString serializedKey) throws IOException {
     final int index = this.indexedMap.get(key);
     if (index >= 0) {
       this.writeIndexedFieldName(index);
       this.lastKey = key;
       this.lastKeyUtf8 = null;
-      return;
+      return index;
     }
 
-    final byte[] utf8 = key.getBytes(StandardCharsets.UTF_8);
+    // the SerializedString bytes are cached, and only read
+    final byte[] utf8 = (serializedKey != null) ? serializedKey.asUnquotedUTF8() : key.getBytes(StandardCharsets.UTF_8);
 
     if (this.lastKey != null && utf8.length > 4) {
       checkPrefixAndWrite(utf8);
@@ -61,11 +106,14 @@ final class YajbeFieldNameWriter {
       writeFullFieldName(utf8);
     }
 
+    int keyIndex = -1;
     if (indexedMap.size() < MAX_INDEXED_NAMES) {
+      keyIndex = indexedMap.size();
       indexedMap.add(key);
     }
     this.lastKey = key;
     this.lastKeyUtf8 = utf8;
+    return keyIndex;
   }
 
   private void checkPrefixAndWrite(final byte[] utf8) throws IOException {
@@ -159,6 +207,66 @@ final class YajbeFieldNameWriter {
     return len;
   }
 
+  static final class IdentityIndexMap {
+    private Object[] keys;
+    private int[] values;
+    private int size;
+
+    public IdentityIndexMap(final int capacity) {
+      this.keys = new Object[capacity];
+      this.values = new int[capacity];
+      this.size = 0;
+    }
+
+    public int get(final Object key) {
+      final int mask = keys.length - 1;
+      for (int i = hash(key) & mask; true; i = (i + 1) & mask) {
+        final Object k = keys[i];
+        if (k == key) return values[i];
+        if (k == null) return -1;
+      }
+    }
+
+    public void clear() {
+      if (size == 0) return;
+      Arrays.fill(keys, null);
+      this.size = 0;
+    }
+
+    public void put(final Object key, final int value) {
+      if ((size + 1) * 2 > keys.length) {
+        resize();
+      }
+      insert(keys, values, key, value);
+      size++;
+    }
+
+    private void resize() {
+      final Object[] newKeys = new Object[keys.length << 1];
+      final int[] newValues = new int[newKeys.length];
+      for (int i = 0; i < keys.length; ++i) {
+        if (keys[i] != null) insert(newKeys, newValues, keys[i], values[i]);
+      }
+      this.keys = newKeys;
+      this.values = newValues;
+    }
+
+    private static void insert(final Object[] keys, final int[] values, final Object key, final int value) {
+      final int mask = keys.length - 1;
+      int i = hash(key) & mask;
+      while (keys[i] != null) {
+        i = (i + 1) & mask;
+      }
+      keys[i] = key;
+      values[i] = value;
+    }
+
+    private static int hash(final Object key) {
+      final int h = System.identityHashCode(key);
+      return h ^ (h >>> 16);
+    }
+  }
+
   private static final class IndexedHashSet {
     private String[] values;
     private int[] table; // hash/next
@@ -177,6 +285,13 @@ final class YajbeFieldNameWriter {
       return size;
     }
 
+    public void clear() {
+      if (size == 0) return;
+      Arrays.fill(values, 0, size, null);
+      Arrays.fill(buckets, -1);
+      this.size = 0;
+    }
+
     public void add(final String key) {
       if (size == values.length) {
         resize();
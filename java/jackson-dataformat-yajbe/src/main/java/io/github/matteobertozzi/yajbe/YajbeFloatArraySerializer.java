@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Wraps the jackson float[] serializer, which writes one number at the time.
+ * When the generator is a {@link YajbeGenerator} the array is written in bulk
+ * with {@link YajbeGenerator#writeArray(float[], int, int)}.
+ */
+final class YajbeFloatArraySerializer extends StdSerializer<float[]> implements ContextualSerializer {
+  private static final long serialVersionUID = 1L;
+
+  private final JsonSerializer<float[]> delegate;
+  // the delegate has a per-property format, which may ask to unwrap single element arrays
+  private final boolean propertyFormat;
+
+  YajbeFloatArraySerializer(final JsonSerializer<float[]> delegate) {
+    this(delegate, false);
+  }
+
+  private YajbeFloatArraySerializer(final JsonSerializer<float[]> delegate, final boolean propertyFormat) {
+    super(float[].class);
+    this.delegate = delegate;
+    this.propertyFormat = propertyFormat;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public JsonSerializer<?> createContextual(final SerializerProvider prov, final BeanProperty property) throws JsonMappingException {
+    if (!(delegate instanceof final ContextualSerializer contextual)) return this;
+
+    final JsonSerializer<?> contextualDelegate = contextual.createContextual(prov, property);
+    return (contextualDelegate == delegate) ? this : new YajbeFloatArraySerializer((JsonSerializer<float[]>) contextualDelegate, true);
+  }
+
+  @Override
+  public boolean isEmpty(final SerializerProvider provider, final float[] value) {
+    return delegate.isEmpty(provider, value);
+  }
+
+  @Override
+  public void serialize(final float[] value, final JsonGenerator gen, final SerializerProvider provider) throws IOException {
+    // single element arrays may be unwrapped, the jackson serializer knows the configuration
+    final boolean unwrapSingle = propertyFormat || provider.isEnabled(SerializationFeature.WRITE_SINGLE_ELEM_ARRAYS_UNWRAPPED);
+    if ((value.length == 1 && unwrapSingle) || !(gen instanceof final YajbeGenerator yajbeGen)) {
+      delegate.serialize(value, gen, provider);
+      return;
+    }
+
+    yajbeGen.assignCurrentValue(value);
+    yajbeGen.writeArray(value, 0, value.length);
+  }
+
+  @Override
+  public void serializeWithType(final float[] value, final JsonGenerator gen, final SerializerProvider provider,
+      final TypeSerializer typeSer) throws IOException {
+    delegate.serializeWithType(value, gen, provider, typeSer);
+  }
+}
@@ -18,7 +18,7 @@
 package io.github.matteobertozzi.yajbe;
 
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
@@ -27,6 +27,7 @@ import java.util.Arrays;
 import com.fasterxml.jackson.core.Base64Variant;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.SerializableString;
 import com.fasterxml.jackson.core.base.GeneratorBase;
 import com.fasterxml.jackson.core.io.IOContext;
 
@@ -36,24 +37,69 @@ import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumMappingConfig;
  * {@link JsonGenerator} implementation that writes YAJBE encoded content.
  */
 final class YajbeGenerator extends GeneratorBase {
-  private final YajbeFieldNameWriter fileNameWriter;
+  private YajbeFieldNameWriter fileNameWriter;
+  private YajbeRecycler recycler;
   private final YajbeEnumMappingConfig enumConfig;
+  private YajbeDictionary dictionary;
   private final YajbeWriter stream;
-  private final byte[] wbuffer;
 
-  YajbeGenerator(final IOContext ctxt, final int features, final ObjectCodec codec, final OutputStream stream, final YajbeEnumMappingConfig enumConfig) {
+  private int formatFeatures;
+  private boolean typedArrays;
+  private boolean compactFloats;
+
+  YajbeGenerator(final IOContext ctxt, final int features, final int formatFeatures, final ObjectCodec codec,
+      final YajbeWriter stream, final YajbeEnumMappingConfig enumConfig, final YajbeRecycler recycler) {
     super(features, codec, ctxt, null);
 
-    this.wbuffer = ctxt.allocWriteEncodingBuffer(9);
-    this.stream = YajbeWriter.forBufferedStream(stream, wbuffer);
-    this.fileNameWriter = new YajbeFieldNameWriter(this.stream);
+    this.stream = stream;
     this.enumConfig = enumConfig;
+    this.recycler = recycler;
+    if (recycler != null) {
+      this.fileNameWriter = recycler.fieldNameWriter(stream);
+      this.stackBlocks = recycler.generatorStack();
+      stream.setRecycler(recycler);
+    } else {
+      this.fileNameWriter = new YajbeFieldNameWriter(stream);
+      this.stackBlocks = new boolean[32];
+    }
+    setFormatFeatures(formatFeatures);
+  }
+
+  @Override
+  public int getFormatFeatures() {
+    return formatFeatures;
+  }
+
+  @Override
+  public JsonGenerator overrideFormatFeatures(final int values, final int mask) {
+    setFormatFeatures((formatFeatures & ~mask) | (values & mask));
+    return this;
+  }
+
+  private void setFormatFeatures(final int formatFeatures) {
+    this.formatFeatures = formatFeatures;
+    this.typedArrays = YajbeGeneratorFeature.TYPED_ARRAYS.enabledIn(formatFeatures);
+    this.compactFloats = YajbeGeneratorFeature.COMPACT_FLOATS.enabledIn(formatFeatures);
+    stream.setEnumIndexMarkers(YajbeGeneratorFeature.ENUM_INDEX_MARKERS.enabledIn(formatFeatures));
   }
 
   void setInitialFieldNames(final String[] names) {
     fileNameWriter.setInitialFieldNames(names);
   }
 
+  void setDictionary(final YajbeDictionary dictionary) throws IOException {
+    if (this.dictionary != null) {
+      // the factory dictionary is already in the stream
+      if (this.dictionary.equals(dictionary)) return;
+      throw new IllegalStateException("dictionary " + this.dictionary.id() + " already set, unable to use " + dictionary.id());
+    }
+
+    // the field names must be the first ones, the decoder will add them when the config is found
+    fileNameWriter.setInitialFieldNames(dictionary.rawFieldNames());
+    stream.writeDictionaryConfig(dictionary);
+    this.dictionary = dictionary;
+  }
+
   @Override
   public void close() throws IOException {
     flush();
@@ -61,6 +107,19 @@ final class YajbeGenerator extends GeneratorBase {
     super.close();
   }
 
+  private void releaseRecycler() {
+    if (recycler == null) return;
+
+    // the state is now owned by the next generator, any use after close() must fail
+    recycler.release(fileNameWriter, stackBlocks);
+    recycler.release(stream.enumMapping());
+    stream.setRecycler(null);
+    recycler.releaseToPool();
+    this.recycler = null;
+    this.fileNameWriter = null;
+    this.stackBlocks = null;
+  }
+
   @Override
   public void flush() throws IOException {
     stream.flush();
@@ -68,7 +127,8 @@ final class YajbeGenerator extends GeneratorBase {
 
   @Override
   protected void _releaseBuffers() {
-    _ioContext.releaseWriteEncodingBuffer(wbuffer);
+    _ioContext.releaseWriteEncodingBuffer(stream.rawBuffer());
+    releaseRecycler();
   }
 
   @Override
@@ -76,10 +136,16 @@ final class YajbeGenerator extends GeneratorBase {
     // TODO Auto-generated method stub
   }
 
-  private boolean[] stackBlocks = new boolean[32]; // it can be a bitset (eof required true/false)
+  private boolean[] stackBlocks; // it can be a bitset (eof required true/false)
   private int stackSize = 0;
 
-  private void openBlock(final boolean eofRequired) {
+  private void checkNotClosed() throws IOException {
+    // the recycled state (field names, stack, enum mapping) is owned by the next generator after close()
+    if (isClosed()) _reportError("Generator closed");
+  }
+
+  private void openBlock(final boolean eofRequired) throws IOException {
+    checkNotClosed();
     if (stackSize == stackBlocks.length) {
       stackBlocks = Arrays.copyOf(stackBlocks, stackSize + 16);
     }
@@ -87,6 +153,7 @@ final class YajbeGenerator extends GeneratorBase {
   }
 
   private void closeBlock() throws IOException {
+    checkNotClosed();
     if (stackBlocks[--stackSize]) {
       stream.writeEof();
     }
@@ -110,12 +177,44 @@ final class YajbeGenerator extends GeneratorBase {
 
   @Override
   public void writeArray(final int[] array, final int offset, final int length) throws IOException {
-    stream.writeArray(array, offset, length);
+    if (typedArrays) {
+      stream.writeTypedArray(array, offset, length);
+    } else {
+      stream.writeArray(array, offset, length);
+    }
   }
 
   @Override
   public void writeArray(final long[] array, final int offset, final int length) throws IOException {
-    stream.writeArray(array, offset, length);
+    if (typedArrays) {
+      stream.writeTypedArray(array, offset, length);
+    } else {
+      stream.writeArray(array, offset, length);
+    }
+  }
+
+  @Override
+  public void writeArray(final double[] array, final int offset, final int length) throws IOException {
+    if (typedArrays) {
+      stream.writeTypedArray(array, offset, length, compactFloats);
+    } else {
+      stream.writeArray(array, offset, length, compactFloats);
+    }
+  }
+
+  /**
+   * Same as {@link #writeArray(double[], int, int)} for floats, jackson has no float[] variant.
+   * @param array the array to write
+   * @param offset the offset of the first element to write
+   * @param length the number of elements to write
+   * @throws IOException if the write fails
+   */
+  public void writeArray(final float[] array, final int offset, final int length) throws IOException {
+    if (typedArrays) {
+      stream.writeTypedArray(array, offset, length, compactFloats);
+    } else {
+      stream.writeArray(array, offset, length, compactFloats);
+    }
   }
 
   @Override
@@ -136,6 +235,13 @@ final class YajbeGenerator extends GeneratorBase {
 
   @Override
   public void writeFieldName(final String name) throws IOException {
+    checkNotClosed();
+    fileNameWriter.write(name);
+  }
+
+  @Override
+  public void writeFieldName(final SerializableString name) throws IOException {
+    checkNotClosed();
     fileNameWriter.write(name);
   }
 
@@ -147,7 +253,7 @@ final class YajbeGenerator extends GeneratorBase {
     }
 
     if (enumConfig != null && text.length() >= YajbeEnumMapping.MIN_ENUM_STRING_LENGTH) {
-      stream.writeStringOrEnum(enumConfig, text);
+      writeStringOrEnum(text);
     } else {
       stream.writeString(text);
     }
@@ -156,17 +262,21 @@ final class YajbeGenerator extends GeneratorBase {
   @Override
   public void writeString(final char[] buffer, final int offset, final int len) throws IOException {
     if (len != 0) {
-      final String text = new String(buffer, offset, len);
       if (enumConfig != null && len >= YajbeEnumMapping.MIN_ENUM_STRING_LENGTH) {
-        stream.writeStringOrEnum(enumConfig, text);
+        writeStringOrEnum(new String(buffer, offset, len));
       } else {
-        stream.writeString(text);
+        stream.writeString(buffer, offset, len);
       }
     } else {
       stream.writeEmptyString();
     }
   }
 
+  private void writeStringOrEnum(final String text) throws IOException {
+    checkNotClosed();
+    stream.writeStringOrEnum(enumConfig, text);
+  }
+
   @Override
   public void writeRawUTF8String(final byte[] buffer, final int offset, final int len) {
     throw new UnsupportedOperationException();
@@ -176,7 +286,7 @@ final class YajbeGenerator extends GeneratorBase {
   public void writeUTF8String(final byte[] buffer, final int offset, final int len) throws IOException {
     if (len != 0) {
       if (enumConfig != null && len >= YajbeEnumMapping.MIN_ENUM_STRING_LENGTH) {
-        stream.writeStringOrEnum(enumConfig, new String(buffer, offset, len, StandardCharsets.UTF_8));
+        writeStringOrEnum(new String(buffer, offset, len, StandardCharsets.UTF_8));
       } else {
         stream.writeUtf8(buffer, offset, len);
       }
@@ -210,6 +320,11 @@ final class YajbeGenerator extends GeneratorBase {
     stream.writeBytes(data, offset, len);
   }
 
+  @Override
+  public int writeBinary(final Base64Variant bv, final InputStream data, final int dataLength) throws IOException {
+    return stream.writeBytes(data, dataLength);
+  }
+
   @Override
   public void writeNumber(final int v) throws IOException {
     stream.writeInt(v);
@@ -231,12 +346,20 @@ final class YajbeGenerator extends GeneratorBase {
 
   @Override
   public void writeNumber(final float v) throws IOException {
-    stream.writeFloat32(v);
+    if (compactFloats) {
+      stream.writeCompactFloat(v);
+    } else {
+      stream.writeFloat32(v);
+    }
   }
 
   @Override
   public void writeNumber(final double v) throws IOException {
-    stream.writeFloat64(v);
+    if (compactFloats) {
+      stream.writeCompactFloat(v);
+    } else {
+      stream.writeFloat64(v);
+    }
   }
 
   @Override
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import com.fasterxml.jackson.core.FormatFeature;
+
+/**
+ * YAJBE specific features of the generator.
+ * The features can be enabled on the {@link YajbeFactory}, or per writer
+ * with {@code mapper.writer().with(YajbeGeneratorFeature.TYPED_ARRAYS)}.
+ */
+public enum YajbeGeneratorFeature implements FormatFeature {
+  /**
+   * Write int[], long[], float[] and double[] as typed arrays: a single head with the item type
+   * followed by the raw little-endian items, instead of one head per item.
+   * The output can be read only by decoders that support typed arrays.
+   */
+  TYPED_ARRAYS(false),
+
+  /**
+   * Write floats and doubles with the smallest lossless encoding: int, float16, float32 or float64.
+   * e.g. 1.0 is a single byte and 0.5 is 3 bytes instead of 9. The value is preserved,
+   * but it may be read back with a different number type (e.g. 1.0 as an int).
+   */
+  COMPACT_FLOATS(false),
+
+  /**
+   * Mark the strings added to the enum index (one more byte, the first time they are indexed).
+   * The decoder just appends the marked strings, instead of replaying the enum mapping algorithm on every string.
+   * The output can be read only by decoders that support the enum index markers.
+   */
+  ENUM_INDEX_MARKERS(false);
+
+  private final boolean defaultState;
+  private final int mask;
+
+  YajbeGeneratorFeature(final boolean defaultState) {
+    this.defaultState = defaultState;
+    this.mask = (1 << ordinal());
+  }
+
+  /**
+   * @return the flags of the features enabled by default
+   */
+  public static int collectDefaults() {
+    int flags = 0;
+    for (final YajbeGeneratorFeature f: values()) {
+      if (f.enabledByDefault()) flags |= f.getMask();
+    }
+    return flags;
+  }
+
+  @Override
+  public boolean enabledByDefault() {
+    return defaultState;
+  }
+
+  @Override
+  public int getMask() {
+    return mask;
+  }
+
+  @Override
+  public boolean enabledIn(final int flags) {
+    return (flags & mask) != 0;
+  }
+}
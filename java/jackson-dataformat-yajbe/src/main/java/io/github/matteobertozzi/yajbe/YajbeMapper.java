@@ -26,6 +26,8 @@ import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 import com.fasterxml.jackson.core.FormatSchema;
 import com.fasterxml.jackson.core.JsonEncoding;
@@ -33,10 +35,12 @@ import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.PrettyPrinter;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationConfig;
 import com.fasterxml.jackson.databind.InjectableValues;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.ObjectWriter;
@@ -52,6 +56,15 @@ public class YajbeMapper extends ObjectMapper {
   /** Config name for the known field names */
   public static final String CONFIG_MAP_FIELD_NAMES = "map.field.names";
 
+  /** Config name for the {@link YajbeDictionary} used by the encoder */
+  public static final String CONFIG_DICTIONARY = "dictionary";
+
+  /** Config name for the {@link YajbeDictionaryRegistry} used by the decoder to lookup the stream dictionary */
+  public static final String CONFIG_DICTIONARY_REGISTRY = "dictionary.registry";
+
+  /** Config name for the {@link YajbeProjection} used to decode only some paths */
+  public static final String CONFIG_PROJECTION = "projection";
+
   /**
    * Default constructor, which will construct the default {@link YajbeFactory}
    */
@@ -68,9 +81,136 @@ public class YajbeMapper extends ObjectMapper {
    */
   public YajbeMapper(final YajbeFactory factory) {
     super(factory);
+    registerModule(new YajbeModule());
     // enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
   }
 
+  @Override
+  public YajbeFactory getFactory() {
+    return (YajbeFactory) _jsonFactory;
+  }
+
+  // ==========================================================================================
+  // Projection related
+  // ==========================================================================================
+  /**
+   * Creates a reader that decodes only the paths of the projection,
+   * everything else is skipped without being decoded.
+   *
+   * @param projection the paths to decode
+   * @return the reader with the projection configured
+   */
+  public ObjectReader reader(final YajbeProjection projection) {
+    _assertNotNull("projection", projection);
+    return reader().withAttribute(CONFIG_PROJECTION, projection);
+  }
+
+  /**
+   * Deserialize only the paths of the projection.
+   *
+   * @param <T> the type of the value
+   * @param src the YAJBE encoded data
+   * @param projection the paths to decode
+   * @param valueType the class of the value
+   * @return the decoded value
+   * @throws IOException if the data is not a valid YAJBE value
+   */
+  public <T> T readValue(final byte[] src, final YajbeProjection projection, final Class<T> valueType) throws IOException {
+    return reader(projection).forType(valueType).readValue(src);
+  }
+
+  /**
+   * Deserialize only the paths of the projection as a tree.
+   *
+   * @param src the YAJBE encoded data
+   * @param projection the paths to decode
+   * @return the tree containing only the projected paths
+   * @throws IOException if the data is not a valid YAJBE value
+   */
+  public JsonNode readTree(final byte[] src, final YajbeProjection projection) throws IOException {
+    return reader(projection).readTree(src);
+  }
+
+  // ==========================================================================================
+  // ByteBuffer/Channel related
+  // ==========================================================================================
+  /**
+   * Deserialize the content between the position and the limit of the buffer.
+   * The buffer (heap or direct) is read in place and its position is not modified.
+   *
+   * @param <T> the type of the value
+   * @param src the buffer containing the YAJBE encoded data
+   * @param valueType the class of the value
+   * @return the decoded value
+   * @throws IOException if the buffer does not contain a valid YAJBE value
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T readValue(final ByteBuffer src, final Class<T> valueType) throws IOException {
+    _assertNotNull("src", src);
+    return (T) _readMapAndClose(getFactory().createParser(src), _typeFactory.constructType(valueType));
+  }
+
+  /**
+   * Same as {@link #readValue(ByteBuffer, Class)} but with a {@link TypeReference}.
+   *
+   * @param <T> the type of the value
+   * @param src the buffer containing the YAJBE encoded data
+   * @param valueTypeRef the type of the value
+   * @return the decoded value
+   * @throws IOException if the buffer does not contain a valid YAJBE value
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T readValue(final ByteBuffer src, final TypeReference<T> valueTypeRef) throws IOException {
+    _assertNotNull("src", src);
+    return (T) _readMapAndClose(getFactory().createParser(src), _typeFactory.constructType(valueTypeRef));
+  }
+
+  /**
+   * Same as {@link #readValue(ByteBuffer, Class)} but with a {@link JavaType}.
+   *
+   * @param <T> the type of the value
+   * @param src the buffer containing the YAJBE encoded data
+   * @param valueType the type of the value
+   * @return the decoded value
+   * @throws IOException if the buffer does not contain a valid YAJBE value
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T readValue(final ByteBuffer src, final JavaType valueType) throws IOException {
+    _assertNotNull("src", src);
+    return (T) _readMapAndClose(getFactory().createParser(src), valueType);
+  }
+
+  /**
+   * Serialize the value into the buffer, starting from its position.
+   * The position of the buffer is moved after the last byte written.
+   *
+   * @param out the target buffer (heap or direct)
+   * @param value the value to serialize
+   * @throws IOException if the value cannot be serialized
+   * @throws java.nio.BufferOverflowException if the buffer has not enough space
+   */
+  public void writeValue(final ByteBuffer out, final Object value) throws IOException {
+    _assertNotNull("out", out);
+    final JsonGenerator g = getFactory().createGenerator(out);
+    _serializationConfig.initialize(g);
+    _writeValueAndClose(g, value);
+  }
+
+  /**
+   * Serialize the value into the channel.
+   * The channel is not closed.
+   *
+   * @param out the target channel
+   * @param value the value to serialize
+   * @throws IOException if the value cannot be serialized or written
+   */
+  public void writeValue(final WritableByteChannel out, final Object value) throws IOException {
+    _assertNotNull("out", out);
+    final JsonGenerator g = getFactory().createGenerator(out);
+    _serializationConfig.initialize(g);
+    _writeValueAndClose(g, value);
+  }
+
   // ==========================================================================================
   // Writer
   // ==========================================================================================
@@ -155,7 +295,7 @@ public class YajbeMapper extends ObjectMapper {
       return _configureAttrs(super.createGenerator(out));
     }
 
-    private JsonGenerator _configureAttrs(final JsonGenerator g) {
+    private JsonGenerator _configureAttrs(final JsonGenerator g) throws IOException {
       final Object initialFields = _config.getAttributes().getAttribute(CONFIG_MAP_FIELD_NAMES);
       if (initialFields != null) {
         if (initialFields instanceof final String[] names) {
@@ -165,6 +305,16 @@ public class YajbeMapper extends ObjectMapper {
           throw new IllegalArgumentException("expected String[] for " + CONFIG_MAP_FIELD_NAMES + ": " + initialFields);
         }
       }
+
+      final Object dictionary = _config.getAttributes().getAttribute(CONFIG_DICTIONARY);
+      if (dictionary != null) {
+        if (dictionary instanceof final YajbeDictionary yajbeDictionary) {
+          final YajbeGenerator yg = (YajbeGenerator) g;
+          yg.setDictionary(yajbeDictionary);
+        } else {
+          throw new IllegalArgumentException("expected YajbeDictionary for " + CONFIG_DICTIONARY + ": " + dictionary);
+        }
+      }
       return g;
     }
   }
@@ -291,6 +441,26 @@ public class YajbeMapper extends ObjectMapper {
           throw new IllegalArgumentException("expected String[] for " + CONFIG_MAP_FIELD_NAMES + ": " + initialFields);
         }
       }
+
+      final Object dictionaries = _config.getAttributes().getAttribute(CONFIG_DICTIONARY_REGISTRY);
+      if (dictionaries != null) {
+        if (dictionaries instanceof final YajbeDictionaryRegistry registry) {
+          final YajbeParser yp = (YajbeParser) p;
+          yp.setDictionaries(registry);
+        } else {
+          throw new IllegalArgumentException("expected YajbeDictionaryRegistry for " + CONFIG_DICTIONARY_REGISTRY + ": " + dictionaries);
+        }
+      }
+
+      final Object projection = _config.getAttributes().getAttribute(CONFIG_PROJECTION);
+      if (projection != null) {
+        if (projection instanceof final YajbeProjection yajbeProjection) {
+          final YajbeParser yp = (YajbeParser) p;
+          yp.setProjection(yajbeProjection);
+        } else {
+          throw new IllegalArgumentException("expected YajbeProjection for " + CONFIG_PROJECTION + ": " + projection);
+        }
+      }
       return p;
     }
   }
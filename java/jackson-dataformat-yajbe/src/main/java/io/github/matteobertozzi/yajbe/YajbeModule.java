@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.deser.BeanDeserializer;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.type.ArrayType;
+
+/**
+ * Jackson module with the YAJBE specific (de)serializers.
+ * <ul>
+ *  <li>int[], long[], float[] and double[] are decoded in bulk from the stream,
+ *      without going through nextToken() for each element.
+ *  <li>float[] is written in bulk (double[] uses the generator writeArray() already).
+ *  <li>the bean properties are looked up by the index of the field name in the stream,
+ *      instead of hashing the name for every object.
+ * </ul>
+ * The module is registered by default by the {@link YajbeMapper},
+ * it can be registered on a plain ObjectMapper that uses a {@link YajbeFactory}.
+ * With other formats the standard jackson deserializers are used.
+ */
+public class YajbeModule extends SimpleModule {
+  private static final long serialVersionUID = 1L;
+
+  public YajbeModule() {
+    super("YajbeModule", Version.unknownVersion());
+    setDeserializerModifier(new YajbeDeserializerModifier());
+    setSerializerModifier(new YajbeSerializerModifier());
+  }
+
+  private static final class YajbeSerializerModifier extends BeanSerializerModifier {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public JsonSerializer<?> modifyArraySerializer(final SerializationConfig config, final ArrayType valueType,
+        final BeanDescription beanDesc, final JsonSerializer<?> serializer) {
+      if (valueType.getRawClass() != float[].class) return serializer;
+      return new YajbeFloatArraySerializer((JsonSerializer<float[]>) serializer);
+    }
+  }
+
+  private static final class YajbeDeserializerModifier extends BeanDeserializerModifier {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public JsonDeserializer<?> modifyDeserializer(final DeserializationConfig config, final BeanDescription beanDesc,
+        final JsonDeserializer<?> deserializer) {
+      // only the plain bean deserializer, not the subclasses (e.g. builder or throwable)
+      if (deserializer.getClass() != BeanDeserializer.class) return deserializer;
+      return new YajbeBeanDeserializer((BeanDeserializer) deserializer);
+    }
+
+    @Override
+    public JsonDeserializer<?> modifyArrayDeserializer(final DeserializationConfig config, final ArrayType valueType,
+        final BeanDescription beanDesc, final JsonDeserializer<?> deserializer) {
+      final Class<?> rawType = valueType.getRawClass();
+      if (!YajbePrimitiveArrayDeserializer.isSupported(rawType)) return deserializer;
+      return new YajbePrimitiveArrayDeserializer(rawType, deserializer);
+    }
+  }
+}
@@ -21,44 +21,165 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
 import com.fasterxml.jackson.core.Base64Variant;
 import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonStreamContext;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.SerializableString;
 import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.core.async.NonBlockingInputFeeder;
 import com.fasterxml.jackson.core.base.ParserMinimalBase;
+import com.fasterxml.jackson.core.io.ContentReference;
 import com.fasterxml.jackson.core.io.IOContext;
 
 /**
  * {@link ParserMinimalBase} implementation that reads YAJBE encoded content.
  */
 final class YajbeParser extends ParserMinimalBase {
-  private final YajbeFieldNameReader fieldNameReader;
+  private YajbeFieldNameReader fieldNameReader;
+  private YajbeRecycler recycler;
+  private final YajbeReaderFeeder feeder;
   private final YajbeReader stream;
   private final ObjectCodec codec;
+  private final ContentReference contentReference;
 
   private boolean isClosed = false;
+  private String currentName;
 
   YajbeParser(final IOContext ctxt, final int features, final ObjectCodec codec, final YajbeReader stream) {
+    this(ctxt, features, 0, codec, stream, null, null, null);
+  }
+
+  YajbeParser(final IOContext ctxt, final int features, final int formatFeatures, final ObjectCodec codec,
+      final YajbeReader stream, final YajbeFieldNameCanonicalizer fieldNames, final YajbeFieldNameCanonicalizer stringValues,
+      final YajbeRecycler recycler) {
     super(features);
+    this.stringValues = stringValues;
     this.stream = stream;
-    this.fieldNameReader = new YajbeFieldNameReader(stream);
+    this.feeder = (stream instanceof YajbeReaderFeeder) ? (YajbeReaderFeeder) stream : null;
     this.codec = codec;
+    this.contentReference = (ctxt != null) ? ctxt.contentReference() : ContentReference.unknown();
+    this.recycler = recycler;
+    if (recycler != null) {
+      this.fieldNameReader = recycler.fieldNameReader(stream, fieldNames);
+      this.stackItem = recycler.parserStack();
+      this.stackCount = recycler.parserStackCounts(stackItem.length);
+      this.stackNames = recycler.parserStackNames(stackItem.length);
+      this.stackValues = recycler.parserStackValues();
+      stream.setRecycler(recycler);
+    } else {
+      this.fieldNameReader = new YajbeFieldNameReader(stream, fieldNames);
+      this.stackItem = new long[32];
+      this.stackCount = new int[stackItem.length];
+      this.stackNames = new String[stackItem.length];
+    }
+    setFormatFeatures(formatFeatures);
+  }
+
+  private int formatFeatures;
+  // the factory string value cache, used when STRING_VALUE_CACHE is enabled
+  private final YajbeFieldNameCanonicalizer stringValues;
+
+  @Override
+  public int getFormatFeatures() {
+    return formatFeatures;
+  }
+
+  @Override
+  public JsonParser overrideFormatFeatures(final int values, final int mask) {
+    setFormatFeatures((formatFeatures & ~mask) | (values & mask));
+    return this;
+  }
+
+  private void setFormatFeatures(final int formatFeatures) {
+    this.formatFeatures = formatFeatures;
+    stream.setTextBuffer(YajbeParserFeature.TEXT_BUFFER.enabledIn(formatFeatures));
+    stream.setStringValueCache(YajbeParserFeature.STRING_VALUE_CACHE.enabledIn(formatFeatures) ? stringValues : null);
   }
 
   void setInitialFieldNames(final String[] names) {
     fieldNameReader.setInitialFieldNames(names);
   }
 
+  void setDictionaries(final YajbeDictionaryRegistry dictionaries) {
+    stream.setDictionaries(dictionaries);
+  }
+
+  private void decodeConfig(final int head) throws IOException {
+    final YajbeDictionary dictionary = stream.decodeConfig(head);
+    if (dictionary != null) fieldNameReader.setInitialFieldNames(dictionary.rawFieldNames());
+  }
+
+  YajbeFieldNameReader fieldNameReader() {
+    return fieldNameReader;
+  }
+
+  // ---------------------------------------------------------------------------
+  //  Field Index Caches
+  //  the callers (e.g. the bean deserializers) map the field index to their own
+  //  objects, the index of a name does not change for the life of the parser.
+  // ---------------------------------------------------------------------------
+  private IdentityHashMap<Object, Object[]> fieldIndexCaches;
+  private Object fieldIndexCacheOwner;
+  private Object[] fieldIndexCache;
+
+  /**
+   * @return the index of the current field name in the stream, -1 if the current token is not a FIELD_NAME
+   */
+  int currentFieldIndex() throws IOException {
+    checkNotClosed();
+    return (_currToken == JsonToken.FIELD_NAME) ? fieldNameReader.lastIndex() : -1;
+  }
+
+  /**
+   * @param owner the owner of the cache
+   * @param fieldIndex the field index that must be addressable
+   * @return the cache of the owner, with at least (fieldIndex + 1) slots
+   */
+  Object[] fieldIndexCache(final Object owner, final int fieldIndex) throws IOException {
+    checkNotClosed();
+    if (owner != fieldIndexCacheOwner) {
+      if (fieldIndexCacheOwner != null) {
+        if (fieldIndexCaches == null) fieldIndexCaches = new IdentityHashMap<>();
+        fieldIndexCaches.put(fieldIndexCacheOwner, fieldIndexCache);
+      }
+      final Object[] cache = (fieldIndexCaches != null) ? fieldIndexCaches.get(owner) : null;
+      this.fieldIndexCacheOwner = owner;
+      this.fieldIndexCache = (cache != null) ? cache : new Object[Math.max(16, fieldNameReader.indexedCount())];
+    }
+
+    if (fieldIndex >= fieldIndexCache.length) {
+      fieldIndexCache = Arrays.copyOf(fieldIndexCache, Math.max(fieldIndex + 1, fieldIndexCache.length << 1));
+    }
+    return fieldIndexCache;
+  }
+
   @Override
   public void close() {
     if (isClosed) return;
 
     isClosed = true;
+    if (recycler != null) {
+      // the state is now owned by the next parser, any use after close() must fail
+      recycler.release(fieldNameReader, stackItem, stackCount, stackNames, stackValues);
+      recycler.release(stream.enumMapping());
+      stream.setEnumMapping(null);
+      stream.setRecycler(null);
+      recycler.releaseToPool();
+      this.recycler = null;
+      this.fieldNameReader = null;
+      this.stackItem = null;
+      this.stackCount = null;
+      this.stackNames = null;
+      this.stackValues = null;
+    }
   }
 
   @Override
@@ -66,33 +187,53 @@ final class YajbeParser extends ParserMinimalBase {
     return isClosed;
   }
 
+  private void checkNotClosed() throws IOException {
+    // the recycled state (field names, stack) is owned by the next parser after close()
+    if (isClosed) throw _constructReadException("Parser closed");
+  }
+
   // ====================================================================================================
   //  Reader Stack Related
   //   - array fixed length (STACK_FLAG_ARRAY | length)
   //   - array eof (STACK_FLAG_ARRAY | STACK_FLAG_EOF)
+  //   - typed array (STACK_FLAG_ARRAY | STACK_FLAG_TYPED | length)
   //   - object fixed length (length)
   //   - object eof (STACK_FLAG_EOF)
   // stackState used to know if we have to call the stackStateHandler
   //   - array length = 0
   //   - array/object eof check
   //   - object field/value check
+  //   - typed array item (the items have no head, they are decoded by the state handler)
+  // stackStateHandler is one of the STATE_* constants (and not a method reference)
+  // so entering/leaving a container does not allocate.
   // ====================================================================================================
-  interface StackStateHandler {
-    JsonToken nextToken() throws IOException;
-  }
+  private static final int STATE_FIXED_OBJECT = 0;
+  private static final int STATE_EOF_OBJECT = 1;
+  private static final int STATE_FIXED_ARRAY = 2;
+  private static final int STATE_EOF_ARRAY = 3;
+  private static final int STATE_TYPED_ARRAY = 4;
 
   private static final long STACK_FLAG_ARRAY = (1L << 62);
   private static final long STACK_FLAG_EOF = (1L << 61);
+  private static final long STACK_FLAG_TYPED = (1L << 60);
   private static final long STACK_MASK_LENGTH = 0x7fffffffL;
   private static final long STACK_MASK_INFO = 0x7fffffff_00000000L;
 
-  private long[] stackItem = new long[32];
+  private long[] stackItem;
   private int stackSize = -1;
+  // used by the parsing context: the length (or the number of items read, for eof containers)
+  // and the current field name of the containers below the top of the stack
+  private int[] stackCount;
+  private String[] stackNames;
 
-  private StackStateHandler stackStateHandler;
+  private int stackStateHandler;
   private long stackState = Long.MAX_VALUE;
   private int stackObjectAvail;
 
+  // a typed array contains only numbers, so it is always on top of the stack while its items are read
+  private int typedArrayHead;
+  private int typedArrayAvail;
+
   private void stackPush(final long newItem) {
     if (stackSize != -1) {
       final long item = stackItem[stackSize];
@@ -100,34 +241,42 @@ final class YajbeParser extends ParserMinimalBase {
         final long length = ((item & STACK_FLAG_ARRAY) == STACK_FLAG_ARRAY) ? stackState : stackObjectAvail;
         stackItem[stackSize] = (item & STACK_MASK_INFO) | length;
       }
+      stackNames[stackSize] = currentName;
     }
 
     if (++stackSize == stackItem.length) {
       stackItem = Arrays.copyOf(stackItem, stackSize + 16);
+      stackCount = Arrays.copyOf(stackCount, stackItem.length);
+      stackNames = Arrays.copyOf(stackNames, stackItem.length);
     }
     stackItem[stackSize] = newItem;
+    stackCount[stackSize] = (int) (newItem & STACK_MASK_LENGTH);
   }
 
   private void stackPop() {
+    if (stackValues != null && stackSize + 1 < stackValues.length) stackValues[stackSize + 1] = null;
     if (stackSize-- == 0) {
       this.stackState = Long.MAX_VALUE;
+      this.currentName = null;
       return;
     }
 
+    this.currentName = stackNames[stackSize];
+    stackNames[stackSize] = null;
     final long item = stackItem[stackSize];
     if ((item & STACK_FLAG_ARRAY) == STACK_FLAG_ARRAY) {
       if ((item & STACK_FLAG_EOF) == STACK_FLAG_EOF) {
-        this.stackStateHandler = this::stackEofArrayStateHandler;
+        this.stackStateHandler = STATE_EOF_ARRAY;
         this.stackState = 0;
       } else {
-        this.stackStateHandler = this::stackFixedArrayStateHandler;
+        this.stackStateHandler = STATE_FIXED_ARRAY;
         this.stackState = (int) (item & STACK_MASK_LENGTH);
       }
     } else {
       if ((item & STACK_FLAG_EOF) == STACK_FLAG_EOF) {
-        this.stackStateHandler = this::stackEofObjectStateHandler;
+        this.stackStateHandler = STATE_EOF_OBJECT;
       } else {
-        this.stackStateHandler = this::stackFixedObjectStateHandler;
+        this.stackStateHandler = STATE_FIXED_OBJECT;
         this.stackObjectAvail = (int) (item & STACK_MASK_LENGTH);
       }
       this.stackState = 0;
@@ -140,14 +289,15 @@ final class YajbeParser extends ParserMinimalBase {
   private void startFixedObject(final int head) throws IOException {
     final int length = stream.readItemCount(head);
     stackPush(length);
-    this.stackStateHandler = this::stackFixedObjectStateHandler;
+    this.stackStateHandler = STATE_FIXED_OBJECT;
     this.stackState = 0;
     this.stackObjectAvail = length;
   }
 
-  private JsonToken stackFixedObjectStateHandler() {
+  private JsonToken stackFixedObjectStateHandler() throws IOException {
     this.stackState = 1;
     if (stackObjectAvail-- != 0) {
+      currentName = fieldNameReader.read();
       return JsonToken.FIELD_NAME;
     }
 
@@ -157,13 +307,17 @@ final class YajbeParser extends ParserMinimalBase {
 
   private void startEofObject() {
     stackPush(STACK_FLAG_EOF);
-    this.stackStateHandler = this::stackEofObjectStateHandler;
+    this.stackStateHandler = STATE_EOF_OBJECT;
     this.stackState = 0;
   }
 
   private JsonToken stackEofObjectStateHandler() throws IOException {
     this.stackState = 1;
-    if (stream.peek() != 1) return JsonToken.FIELD_NAME;
+    if (stream.peek() != 1) {
+      stackCount[stackSize]++;
+      currentName = fieldNameReader.read();
+      return JsonToken.FIELD_NAME;
+    }
 
     stream.read();
     stackPop();
@@ -176,7 +330,7 @@ final class YajbeParser extends ParserMinimalBase {
   private void startFixedArray(final int head) throws IOException {
     final int length = stream.readItemCount(head);
     stackPush(STACK_FLAG_ARRAY | length);
-    this.stackStateHandler = this::stackFixedArrayStateHandler;
+    this.stackStateHandler = STATE_FIXED_ARRAY;
     this.stackState = length;
   }
 
@@ -187,27 +341,97 @@ final class YajbeParser extends ParserMinimalBase {
 
   private void startEofArray() {
     stackPush(STACK_FLAG_ARRAY | STACK_FLAG_EOF);
-    this.stackStateHandler = this::stackEofArrayStateHandler;
+    this.stackStateHandler = STATE_EOF_ARRAY;
     this.stackState = 0;
   }
 
   private JsonToken stackEofArrayStateHandler() throws IOException {
     this.stackState = 0;
-    if (stream.peek() != 1) return null;
+    if (stream.peek() != 1) {
+      stackCount[stackSize]++;
+      return null;
+    }
 
     stream.read();
     stackPop();
     return JsonToken.END_ARRAY;
   }
 
+  // ---------------------------------------------------------------------------
+  //  Reader Stack - Typed Array Related
+  // ---------------------------------------------------------------------------
+  private void startTypedArray(final int head) throws IOException {
+    final int length = stream.readTypedArrayLength();
+    stackPush(STACK_FLAG_ARRAY | STACK_FLAG_TYPED | length);
+    this.stackStateHandler = STATE_TYPED_ARRAY;
+    this.stackState = 0;
+    this.typedArrayHead = head;
+    this.typedArrayAvail = length;
+  }
+
+  private JsonToken stackTypedArrayStateHandler() throws IOException {
+    this.stackState = 0;
+    if (typedArrayAvail == 0) {
+      stackPop();
+      return JsonToken.END_ARRAY;
+    }
+
+    typedArrayAvail--;
+    stream.decodeTypedItem(typedArrayHead);
+    return YajbeReader.isTypedIntArray(typedArrayHead) ? JsonToken.VALUE_NUMBER_INT : JsonToken.VALUE_NUMBER_FLOAT;
+  }
+
+  boolean isTypedArray() {
+    return stackSize >= 0 && (stackItem[stackSize] & STACK_FLAG_TYPED) == STACK_FLAG_TYPED;
+  }
+
+  boolean isEofArray() {
+    return (stackItem[stackSize] & (STACK_FLAG_ARRAY | STACK_FLAG_EOF)) == (STACK_FLAG_ARRAY | STACK_FLAG_EOF);
+  }
+
+  /**
+   * Used by {@link YajbeArrayIndex}, the stream is positioned at an element of the top-level array.
+   * The parser behaves as if START_ARRAY was just returned, with the elements before "skip" already consumed.
+   * @param eofArray true if the top-level array is terminated by the EOF marker
+   * @param remaining the number of elements from the current position to the end of the array
+   * @param skip the number of elements to skip from the current position
+   */
+  void startArrayAt(final boolean eofArray, final long remaining, long skip) throws IOException {
+    if (eofArray) {
+      startEofArray();
+    } else {
+      stackPush(STACK_FLAG_ARRAY | remaining);
+      this.stackStateHandler = STATE_FIXED_ARRAY;
+      this.stackState = remaining;
+    }
+
+    while (skip-- > 0) {
+      skipValue(stream.read());
+      if (!eofArray) stackState--;
+    }
+    _currToken = JsonToken.START_ARRAY;
+  }
+
+  private JsonToken stackStateNextToken() throws IOException {
+    return switch (stackStateHandler) {
+      case STATE_FIXED_OBJECT -> stackFixedObjectStateHandler();
+      case STATE_EOF_OBJECT -> stackEofObjectStateHandler();
+      case STATE_FIXED_ARRAY -> stackFixedArrayStateHandler();
+      case STATE_EOF_ARRAY -> stackEofArrayStateHandler();
+      case STATE_TYPED_ARRAY -> stackTypedArrayStateHandler();
+      default -> throw new IllegalStateException("unexpected stack state " + stackStateHandler);
+    };
+  }
+
   // =====================================================================================
   //  NOTE: to avoid too many ifs, we pre-build a map with the tokens.
   //  so we can find the token just by looking up TOKEN_MAP[head]
   private static final byte[] TOKEN_MAP = new byte[] {
     0, -1, 1, 2,
     12, 13, 14, 15,
-    8, 9, 9,
-    -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+    8, 9, 9, 9,
+    -1, -1, -1, -1,
+    20, 20, 20, 20, 20, 20, 20, 20, -1, -1, -1, -1, 20, 20, 20, -1,
     16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 17,
     18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 19,
     3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4,
@@ -228,7 +452,7 @@ final class YajbeParser extends ParserMinimalBase {
   private static final int TOKEN_ENUM_STRING  = 9;
   private static final int TOKEN_SMALL_BYTES  = 10;
   private static final int TOKEN_BYTES        = 11;
-  private static final int TOKEN_FLOAT_VLE    = 12;
+  private static final int TOKEN_FLOAT_16     = 12;
   private static final int TOKEN_FLOAT_32     = 13;
   private static final int TOKEN_FLOAT_64     = 14;
   private static final int TOKEN_BIG_DECIMAL  = 15;
@@ -236,6 +460,7 @@ final class YajbeParser extends ParserMinimalBase {
   private static final int TOKEN_ARRAY_EOF    = 17;
   private static final int TOKEN_OBJECT       = 18;
   private static final int TOKEN_OBJECT_EOF   = 19;
+  private static final int TOKEN_TYPED_ARRAY  = 20;
 
   private static final JsonToken[] JSON_TOKEN_MAP = new JsonToken[] {
     JsonToken.VALUE_NULL,
@@ -258,30 +483,139 @@ final class YajbeParser extends ParserMinimalBase {
     JsonToken.START_ARRAY,            // eof array
     JsonToken.START_OBJECT,           // fixed object
     JsonToken.START_OBJECT,           // eof object
+    JsonToken.START_ARRAY,            // typed array
   };
 
   @Override
   public JsonToken nextToken() throws IOException {
+    if (isClosed) return null;
+    if (feeder != null && !isNextTokenAvailable()) {
+      return _currToken = nextTokenNotAvailable();
+    }
+
+    if (projectionNodes != null) {
+      return nextProjectedToken();
+    }
+    return readNextToken();
+  }
+
+  // ====================================================================================================
+  //  nextXyz() fast paths, used by the jackson deserializers
+  // ====================================================================================================
+  @Override
+  public String nextFieldName() throws IOException {
+    if (isFieldNameNext()) {
+      // same as readNextToken() with the object state handler on top of the stack
+      tokenOffset = stream.inputOffset();
+      _currToken = (stackStateHandler == STATE_FIXED_OBJECT) ? stackFixedObjectStateHandler() : stackEofObjectStateHandler();
+      return (_currToken == JsonToken.FIELD_NAME) ? currentName : null;
+    }
+    return (nextToken() == JsonToken.FIELD_NAME) ? currentName : null;
+  }
+
+  @Override
+  public boolean nextFieldName(final SerializableString str) throws IOException {
+    final String name = nextFieldName();
+    return name != null && fieldNameReader.lastNameEquals(str, name);
+  }
+
+  @Override
+  public String nextTextValue() throws IOException {
+    final int head = peekValueHead();
+    if (head >= 0) {
+      switch (TOKEN_MAP[head]) {
+        case TOKEN_SMALL_STRING -> { consumeValueHead(); stream.decodeSmallString(head); }
+        case TOKEN_STRING -> { consumeValueHead(); stream.decodeString(head); }
+        case TOKEN_ENUM_STRING -> { consumeValueHead(); stream.decodeEnumString(head); }
+        default -> { return (nextToken() == JsonToken.VALUE_STRING) ? stream.stringValue() : null; }
+      }
+      _currToken = JsonToken.VALUE_STRING;
+      return stream.stringValue();
+    }
+    return (nextToken() == JsonToken.VALUE_STRING) ? stream.stringValue() : null;
+  }
+
+  @Override
+  public int nextIntValue(final int defaultValue) throws IOException {
+    if (decodeNextInt()) {
+      return (stream.numberType() == NumberType.INT) ? stream.intValue() : getIntValue();
+    }
+    return (nextToken() == JsonToken.VALUE_NUMBER_INT) ? getIntValue() : defaultValue;
+  }
+
+  @Override
+  public long nextLongValue(final long defaultValue) throws IOException {
+    if (decodeNextInt()) {
+      return (stream.numberType() == NumberType.INT) ? stream.intValue() : stream.longValue();
+    }
+    return (nextToken() == JsonToken.VALUE_NUMBER_INT) ? getLongValue() : defaultValue;
+  }
+
+  private boolean decodeNextInt() throws IOException {
+    final int head = peekValueHead();
+    if (head < 0) return false;
+    switch (TOKEN_MAP[head]) {
+      case TOKEN_INT_SMALL -> { consumeValueHead(); stream.decodeSmallInt(head); }
+      case TOKEN_INT_POSITIVE -> { consumeValueHead(); stream.decodeIntPositive(head); }
+      case TOKEN_INT_NEGATIVE -> { consumeValueHead(); stream.decodeIntNegative(head); }
+      default -> { return false; }
+    }
+    _currToken = JsonToken.VALUE_NUMBER_INT;
+    return true;
+  }
+
+  /**
+   * The value of an object field, or an item of a fixed array, is read without calling the state handler
+   * (stackState > 0). In that case the head can be decoded directly, as readNextToken() would do.
+   * @return the head of the next value, or -1 if the next token must go through nextToken()
+   */
+  private int peekValueHead() throws IOException {
+    if (stackState <= 0 || stackSize < 0 || isClosed || feeder != null || projectionNodes != null) return -1;
+    return stream.peek();
+  }
+
+  private void consumeValueHead() throws IOException {
+    stackState--;
+    tokenOffset = stream.inputOffset();
+    stream.read();
+  }
+
+  private boolean isFieldNameNext() {
+    // the feeder may not have the name yet, and the projection may skip it
+    return stackState == 0 && !isClosed && feeder == null && projectionNodes == null
+      && (stackStateHandler == STATE_FIXED_OBJECT || stackStateHandler == STATE_EOF_OBJECT);
+  }
+
+  private JsonToken readNextToken() throws IOException {
+    if (stackSize < 0) rootIndex++;
+    tokenOffset = stream.inputOffset();
     if (stackState-- == 0) {
-      if ((_currToken = stackStateHandler.nextToken()) != null) {
+      if ((_currToken = stackStateNextToken()) != null) {
         return _currToken;
       }
     }
 
     do {
+      tokenOffset = stream.inputOffset();
       final int head = stream.read();
+      if (head < 0) {
+        _handleEOF();
+        return _currToken = null;
+      }
+
       final int tokenId = TOKEN_MAP[head];
       switch (tokenId) {
+        case -1 -> throw _constructReadException("unexpected head 0x" + Integer.toHexString(head));
         case TOKEN_INT_SMALL -> stream.decodeSmallInt(head);
         case TOKEN_INT_POSITIVE -> stream.decodeIntPositive(head);
         case TOKEN_INT_NEGATIVE -> stream.decodeIntNegative(head);
         case TOKEN_SMALL_STRING -> stream.decodeSmallString(head);
         case TOKEN_STRING -> stream.decodeString(head);
-        case TOKEN_ENUM_CONFIG -> stream.decodeEnumConfig(head);
+        case TOKEN_ENUM_CONFIG -> decodeConfig(head);
         case TOKEN_ENUM_STRING -> stream.decodeEnumString(head);
         case TOKEN_SMALL_BYTES -> stream.decodeSmallBytes(head);
         case TOKEN_BYTES -> stream.decodeBytes(head);
-        case TOKEN_FLOAT_VLE -> stream.decodeFloatVle();
+        case TOKEN_FLOAT_16 -> stream.decodeFloat16();
         case TOKEN_FLOAT_32 -> stream.decodeFloat32();
         case TOKEN_FLOAT_64 -> stream.decodeFloat64();
         case TOKEN_BIG_DECIMAL -> stream.decodeBigDecimal();
@@ -289,30 +623,513 @@ final class YajbeParser extends ParserMinimalBase {
         case TOKEN_ARRAY_EOF -> startEofArray();
         case TOKEN_OBJECT -> startFixedObject(head);
         case TOKEN_OBJECT_EOF -> startEofObject();
+        case TOKEN_TYPED_ARRAY -> startTypedArray(head);
       }
       _currToken = JSON_TOKEN_MAP[tokenId];
     } while (_currToken == null);
     return _currToken;
   }
 
+  // ====================================================================================================
+  //  Projection related
+  //  projectionNodes[i] is the projection node of the container at stackItem[i].
+  //  before returning a field or an array element we check if it is part of the projection,
+  //  if it is not, the value is skipped at byte level (and the stack state updated as if it was read).
+  // ====================================================================================================
+  private YajbeProjection.Node[] projectionNodes;
+  private int[] projectionIndex;
+  private YajbeProjection.Node projectionRoot;
+  private YajbeProjection.Node projectionNext;
+
+  void setProjection(final YajbeProjection projection) {
+    if (feeder != null) {
+      throw new UnsupportedOperationException("projection is not supported by the non-blocking parser");
+    }
+
+    this.projectionRoot = projection.root();
+    this.projectionNodes = new YajbeProjection.Node[stackItem.length];
+    this.projectionIndex = new int[stackItem.length];
+  }
+
+  private JsonToken nextProjectedToken() throws IOException {
+    while (true) {
+      if (stackSize < 0) {
+        projectionNext = projectionRoot;
+      } else if (!projectionNodes[stackSize].isAll() && isArrayElementNext()) {
+        final YajbeProjection.Node node = projectionNodes[stackSize].element(projectionIndex[stackSize]++);
+        if (!isProjected(node)) {
+          skipArrayElement();
+          continue;
+        }
+        projectionNext = node;
+      }
+
+      final JsonToken token = readNextToken();
+      if (token == null) return null;
+
+      switch (token) {
+        case FIELD_NAME -> {
+          final YajbeProjection.Node parent = projectionNodes[stackSize];
+          if (parent.isAll()) return token;
+
+          final YajbeProjection.Node node = parent.field(currentName);
+          if (!isProjected(node)) {
+            // skip the value, stackState goes from 1 (value to read) to 0 (next field or end of object)
+            skipValue(stream.read());
+            stackState--;
+            continue;
+          }
+          projectionNext = node;
+          return token;
+        }
+        case START_OBJECT, START_ARRAY -> {
+          if (stackSize == projectionNodes.length) {
+            projectionNodes = Arrays.copyOf(projectionNodes, stackItem.length);
+            projectionIndex = Arrays.copyOf(projectionIndex, stackItem.length);
+          }
+          final boolean parentAll = stackSize > 0 && projectionNodes[stackSize - 1].isAll();
+          projectionNodes[stackSize] = parentAll ? projectionNodes[stackSize - 1] : projectionNext;
+          projectionIndex[stackSize] = 0;
+          return token;
+        }
+        default -> {
+          return token;
+        }
+      }
+    }
+  }
+
+  private boolean isArrayElementNext() throws IOException {
+    final long item = stackItem[stackSize];
+    if ((item & STACK_FLAG_ARRAY) != STACK_FLAG_ARRAY) return false;
+    if ((item & STACK_FLAG_TYPED) == STACK_FLAG_TYPED) return typedArrayAvail > 0;
+    if ((item & STACK_FLAG_EOF) == STACK_FLAG_EOF) return stream.peek() != 1;
+    return stackState > 0;
+  }
+
+  private void skipArrayElement() throws IOException {
+    final long item = stackItem[stackSize];
+    if ((item & STACK_FLAG_TYPED) == STACK_FLAG_TYPED) {
+      stream.skipTypedItems(typedArrayHead, 1);
+      typedArrayAvail--;
+    } else {
+      skipValue(stream.read());
+      if ((item & STACK_FLAG_EOF) != STACK_FLAG_EOF) {
+        stackState--;
+      } else {
+        stackCount[stackSize]++;
+      }
+    }
+  }
+
+  private boolean isProjected(final YajbeProjection.Node node) throws IOException {
+    if (node == null) return false;
+    if (node.isAll()) return true;
+    // typed array items are numbers, they have no head to peek
+    if (isTypedArray()) return false;
+    // partial match (e.g. /a/b on "a"): only containers can contain the requested paths
+    final int head = stream.peek();
+    return (head & 0b111_00000) == 0b001_00000 || YajbeReader.isTypedArray(head);
+  }
+
+  // ====================================================================================================
+  //  Skip related
+  //  skipChildren() consumes the container content without creating tokens or values,
+  //  using the item counts and the length prefixes. field names and strings are still
+  //  added to the field-name index and to the enum mapping, since later values may refer to them.
+  // ====================================================================================================
   @Override
-  protected void _handleEOF() {
-    // TODO Auto-generated method stub
+  public JsonParser skipChildren() throws IOException {
+    if (_currToken != JsonToken.START_OBJECT && _currToken != JsonToken.START_ARRAY) {
+      return this;
+    }
+
+    // in non-blocking mode the container may not be fully available
+    if (feeder != null) return super.skipChildren();
+
+    // START_OBJECT/START_ARRAY was just returned, so the container is on top of the stack
+    // and stackState/stackObjectAvail still have the full item count.
+    final long item = stackItem[stackSize];
+    if ((item & STACK_FLAG_ARRAY) == STACK_FLAG_ARRAY) {
+      if ((item & STACK_FLAG_TYPED) == STACK_FLAG_TYPED) {
+        stream.skipTypedItems(typedArrayHead, typedArrayAvail);
+        typedArrayAvail = 0;
+      } else if ((item & STACK_FLAG_EOF) == STACK_FLAG_EOF) {
+        skipEofArrayItems();
+      } else {
+        skipArrayItems(stackState);
+      }
+      _currToken = JsonToken.END_ARRAY;
+    } else {
+      if ((item & STACK_FLAG_EOF) == STACK_FLAG_EOF) {
+        skipEofObjectItems();
+      } else {
+        skipObjectItems(stackObjectAvail);
+      }
+      _currToken = JsonToken.END_OBJECT;
+    }
+    stackPop();
+    return this;
+  }
+
+  private void skipValue(final int head) throws IOException {
+    if (head < 0) {
+      _handleEOF();
+      _reportInvalidEOF(": expected a value", _currToken);
+    }
+
+    switch (TOKEN_MAP[head]) {
+      case TOKEN_NULL, TOKEN_FALSE, TOKEN_TRUE, TOKEN_INT_SMALL -> {
+        // no-op: the head is the value
+      }
+      case TOKEN_INT_POSITIVE, TOKEN_INT_NEGATIVE -> stream.skipInt(head);
+      case TOKEN_SMALL_STRING -> stream.skipSmallString(head);
+      case TOKEN_STRING -> stream.skipString(head);
+      case TOKEN_ENUM_CONFIG -> {
+        decodeConfig(head);
+        skipValue(stream.read());
+      }
+      case TOKEN_ENUM_STRING -> stream.skipEnumString(head);
+      case TOKEN_SMALL_BYTES -> stream.skipSmallBytes(head);
+      case TOKEN_BYTES -> stream.skipBytes(head);
+      case TOKEN_FLOAT_16 -> stream.skipNBytes(2);
+      case TOKEN_FLOAT_32 -> stream.skipNBytes(4);
+      case TOKEN_FLOAT_64 -> stream.skipNBytes(8);
+      case TOKEN_BIG_DECIMAL -> stream.skipBigDecimal();
+      case TOKEN_ARRAY -> skipArrayItems(stream.readItemCount(head));
+      case TOKEN_ARRAY_EOF -> skipEofArrayItems();
+      case TOKEN_OBJECT -> skipObjectItems(stream.readItemCount(head));
+      case TOKEN_OBJECT_EOF -> skipEofObjectItems();
+      case TOKEN_TYPED_ARRAY -> stream.skipTypedArray(head);
+      default -> throw _constructReadException("unexpected head: " + Integer.toBinaryString(head));
+    }
+  }
+
+  private void skipArrayItems(long count) throws IOException {
+    while (count-- > 0) {
+      skipValue(stream.read());
+    }
+  }
+
+  private void skipEofArrayItems() throws IOException {
+    int head;
+    while ((head = stream.read()) != 1) {
+      skipValue(head);
+    }
+  }
+
+  private void skipObjectItems(int count) throws IOException {
+    while (count-- > 0) {
+      fieldNameReader.skip();
+      skipValue(stream.read());
+    }
+  }
+
+  private void skipEofObjectItems() throws IOException {
+    while (stream.peek() != 1) {
+      fieldNameReader.skip();
+      skipValue(stream.read());
+    }
+    stream.read();
   }
 
   @Override
-  public String getCurrentName() throws IOException {
-    return fieldNameReader.read();
+  protected void _handleEOF() throws JsonParseException {
+    if (stackSize >= 0) {
+      final boolean isArray = (stackItem[stackSize] & STACK_FLAG_ARRAY) == STACK_FLAG_ARRAY;
+      _reportInvalidEOF(": expected close marker for " + (isArray ? "Array" : "Object"), _currToken);
+    }
+  }
+
+  // ====================================================================================================
+  //  Primitive arrays related
+  //  used by YajbePrimitiveArrayDeserializer, after START_ARRAY the numeric elements are decoded
+  //  directly from the stream, without going through nextToken() and the number accessors.
+  //  the decode stops at the end of the array, at the first element that is not a plain number,
+  //  or when the buffer is full. the stack state is updated as if the elements were returned by nextToken(),
+  //  so the caller can continue with nextToken() to read the remaining elements or the END_ARRAY.
+  // ====================================================================================================
+  /**
+   * @return the number of elements of the array just started, or -1 if unknown (eof array)
+   */
+  int arrayItemCount() {
+    final long item = stackItem[stackSize];
+    if ((item & STACK_FLAG_TYPED) == STACK_FLAG_TYPED) return typedArrayAvail;
+    return ((item & STACK_FLAG_EOF) == STACK_FLAG_EOF) ? -1 : (int) stackState;
+  }
+
+  private boolean canReadArrayItems() {
+    // the non-blocking parser may not have the data, and the projection must see each element
+    return feeder == null && projectionNodes == null && stackSize >= 0
+        && (stackItem[stackSize] & STACK_FLAG_ARRAY) == STACK_FLAG_ARRAY;
+  }
+
+  /** @return the token of the next array element if it is an int or a float, otherwise -1 */
+  private int peekArrayNumberItem() throws IOException {
+    if ((stackItem[stackSize] & STACK_FLAG_EOF) != STACK_FLAG_EOF && stackState <= 0) return -1;
+
+    final int head = stream.peek();
+    if (head < 0) return -1;
+
+    final int tokenId = TOKEN_MAP[head];
+    return switch (tokenId) {
+      case TOKEN_INT_SMALL, TOKEN_INT_POSITIVE, TOKEN_INT_NEGATIVE, TOKEN_FLOAT_16, TOKEN_FLOAT_32, TOKEN_FLOAT_64 -> tokenId;
+      default -> -1;
+    };
   }
 
+  private void readArrayNumberItem(final int tokenId) throws IOException {
+    final int head = stream.read();
+    switch (tokenId) {
+      case TOKEN_INT_SMALL -> stream.decodeSmallInt(head);
+      case TOKEN_INT_POSITIVE -> stream.decodeIntPositive(head);
+      case TOKEN_INT_NEGATIVE -> stream.decodeIntNegative(head);
+      case TOKEN_FLOAT_16 -> stream.decodeFloat16();
+      case TOKEN_FLOAT_32 -> stream.decodeFloat32();
+      case TOKEN_FLOAT_64 -> stream.decodeFloat64();
+    }
+    if ((stackItem[stackSize] & STACK_FLAG_EOF) != STACK_FLAG_EOF) {
+      stackState--;
+    } else {
+      stackCount[stackSize]++;
+    }
+  }
+
+  int readIntArrayItems(final int[] buf, final int off, final int len) throws IOException {
+    if (!canReadArrayItems()) return 0;
+    if (isTypedArray()) {
+      // typed float items and items wider than an int go through nextToken() and the coercion rules
+      return (YajbeReader.isTypedIntArray(typedArrayHead) && YajbeReader.typedItemWidth(typedArrayHead) <= 4)
+        ? readTypedArrayItems(buf, off, len) : 0;
+    }
+
+    int count = 0;
+    int tokenId;
+    while (count < len && ((tokenId = peekArrayNumberItem()) == TOKEN_INT_SMALL
+        || tokenId == TOKEN_INT_POSITIVE || tokenId == TOKEN_INT_NEGATIVE)) {
+      readArrayNumberItem(tokenId);
+      if (stream.numberType() != NumberType.INT) {
+        // stop at the item that does not fit an int, the caller reads it as the current token
+        _currToken = JsonToken.VALUE_NUMBER_INT;
+        break;
+      }
+      buf[off + count++] = stream.intValue();
+    }
+    return count;
+  }
+
+  int readLongArrayItems(final long[] buf, final int off, final int len) throws IOException {
+    if (!canReadArrayItems()) return 0;
+    if (isTypedArray()) {
+      // typed float items go through nextToken() and the coercion rules
+      return YajbeReader.isTypedIntArray(typedArrayHead) ? readTypedArrayItems(buf, off, len) : 0;
+    }
+
+    int count = 0;
+    int tokenId;
+    while (count < len && ((tokenId = peekArrayNumberItem()) == TOKEN_INT_SMALL
+        || tokenId == TOKEN_INT_POSITIVE || tokenId == TOKEN_INT_NEGATIVE)) {
+      readArrayNumberItem(tokenId);
+      buf[off + count++] = (stream.numberType() == NumberType.INT) ? stream.intValue() : stream.longValue();
+    }
+    return count;
+  }
+
+  int readDoubleArrayItems(final double[] buf, final int off, final int len) throws IOException {
+    if (!canReadArrayItems()) return 0;
+    if (isTypedArray()) return readTypedArrayItems(buf, off, len);
+
+    int count = 0;
+    int tokenId;
+    while (count < len && (tokenId = peekArrayNumberItem()) >= 0) {
+      readArrayNumberItem(tokenId);
+      buf[off + count++] = switch (stream.numberType()) {
+        case INT -> stream.intValue();
+        case LONG -> stream.longValue();
+        case FLOAT -> stream.floatValue();
+        default -> stream.doubleValue();
+      };
+    }
+    return count;
+  }
+
+  int readFloatArrayItems(final float[] buf, final int off, final int len) throws IOException {
+    if (!canReadArrayItems()) return 0;
+    if (isTypedArray()) return readTypedArrayItems(buf, off, len);
+
+    int count = 0;
+    int tokenId;
+    while (count < len && (tokenId = peekArrayNumberItem()) >= 0) {
+      readArrayNumberItem(tokenId);
+      buf[off + count++] = switch (stream.numberType()) {
+        case INT -> stream.intValue();
+        case LONG -> stream.longValue();
+        case FLOAT -> stream.floatValue();
+        default -> (float) stream.doubleValue();
+      };
+    }
+    return count;
+  }
+
+  private int readTypedArrayItems(final int[] buf, final int off, final int len) throws IOException {
+    final int n = Math.min(len, typedArrayAvail);
+    stream.readTypedItems(typedArrayHead, buf, off, n);
+    typedArrayAvail -= n;
+    return n;
+  }
+
+  private int readTypedArrayItems(final long[] buf, final int off, final int len) throws IOException {
+    final int n = Math.min(len, typedArrayAvail);
+    stream.readTypedItems(typedArrayHead, buf, off, n);
+    typedArrayAvail -= n;
+    return n;
+  }
+
+  private int readTypedArrayItems(final float[] buf, final int off, final int len) throws IOException {
+    final int n = Math.min(len, typedArrayAvail);
+    stream.readTypedItems(typedArrayHead, buf, off, n);
+    typedArrayAvail -= n;
+    return n;
+  }
+
+  private int readTypedArrayItems(final double[] buf, final int off, final int len) throws IOException {
+    final int n = Math.min(len, typedArrayAvail);
+    stream.readTypedItems(typedArrayHead, buf, off, n);
+    typedArrayAvail -= n;
+    return n;
+  }
+
+  // ====================================================================================================
+  //  Non-Blocking related
+  //  before decoding anything we check that the whole token is available in the feeder,
+  //  so the parser state is never left in the middle of a token.
+  // ====================================================================================================
   @Override
-  public JsonStreamContext getParsingContext() {
+  public boolean canParseAsync() {
+    return feeder != null;
+  }
+
+  @Override
+  public NonBlockingInputFeeder getNonBlockingInputFeeder() {
+    return feeder;
+  }
+
+  private boolean isNextTokenAvailable() throws IOException {
+    if (stackState != 0) return feeder.hasValue(0);
+
+    final long item = stackItem[stackSize];
+    if ((item & STACK_FLAG_TYPED) == STACK_FLAG_TYPED) {
+      return typedArrayAvail == 0 || feeder.hasByte(YajbeReader.typedItemWidth(typedArrayHead) - 1);
+    }
+
+    final boolean isArray = (item & STACK_FLAG_ARRAY) == STACK_FLAG_ARRAY;
+    if ((item & STACK_FLAG_EOF) == STACK_FLAG_EOF) {
+      if (!feeder.hasByte(0)) return false;
+      if (stream.peek() == 1) return true;
+    } else if (isArray || stackObjectAvail == 0) {
+      return true;
+    }
+    return isArray ? feeder.hasValue(0) : feeder.hasFieldName(0);
+  }
+
+  private JsonToken nextTokenNotAvailable() throws IOException {
+    if (!feeder.isEndOfInput()) {
+      feeder.setNeedMoreInput();
+      return JsonToken.NOT_AVAILABLE;
+    }
+
+    _handleEOF();
+    if (feeder.available() != 0) {
+      _reportInvalidEOF(": incomplete value", _currToken);
+    }
     return null;
   }
 
+  @Override
+  public String getCurrentName() {
+    // START_OBJECT/START_ARRAY are in the parent container, the name is the one of the field with the container
+    final int level = (_currToken == JsonToken.START_OBJECT || _currToken == JsonToken.START_ARRAY) ? stackSize - 1 : stackSize;
+    if (level < 0 || stackItem == null || (stackItem[level] & STACK_FLAG_ARRAY) == STACK_FLAG_ARRAY) return null;
+    return currentName;
+  }
+
+  // ====================================================================================================
+  //  Parsing Context related
+  //  the context is not tracked while parsing, it is a view of the stack built by getParsingContext().
+  //  the context instances are reused, so a context returned is valid only until the next token.
+  //  the current values (assigned by the deserializers) are stored per stack level.
+  // ====================================================================================================
+  private ParsingContext[] contexts;
+  private Object[] stackValues;
+  private int rootIndex = -1;
+  private long tokenOffset;
+
+  @Override
+  public JsonStreamContext getParsingContext() {
+    // the stack may be owned by the next parser after close(), the context is just the root
+    final int depth = isClosed ? 0 : stackSize + 1;
+    if (contexts == null || contexts.length <= depth) {
+      final int oldLength = (contexts != null) ? contexts.length : 0;
+      contexts = (contexts != null) ? Arrays.copyOf(contexts, depth + 8) : new ParsingContext[depth + 8];
+      for (int i = oldLength; i < contexts.length; ++i) {
+        contexts[i] = new ParsingContext(i, (i > 0) ? contexts[i - 1] : null);
+      }
+    }
+
+    contexts[0].update(JsonStreamContext.TYPE_ROOT, rootIndex, null);
+    for (int level = 0; level < depth; ++level) {
+      final boolean isTop = (level == stackSize);
+      final long item = stackItem[level];
+      final int count = stackCount[level];
+      if ((item & STACK_FLAG_ARRAY) == STACK_FLAG_ARRAY) {
+        final int index;
+        if ((item & STACK_FLAG_EOF) == STACK_FLAG_EOF) {
+          index = count - 1;
+        } else if ((item & STACK_FLAG_TYPED) == STACK_FLAG_TYPED) {
+          index = count - typedArrayAvail - 1;
+        } else {
+          index = count - (int) (isTop ? stackState : (item & STACK_MASK_LENGTH)) - 1;
+        }
+        contexts[level + 1].update(JsonStreamContext.TYPE_ARRAY, index, null);
+      } else {
+        final int index;
+        if ((item & STACK_FLAG_EOF) == STACK_FLAG_EOF) {
+          index = count - 1;
+        } else {
+          index = count - (isTop ? stackObjectAvail : (int) (item & STACK_MASK_LENGTH)) - 1;
+        }
+        final String name = isTop ? (_currToken == JsonToken.START_OBJECT ? null : currentName) : stackNames[level];
+        contexts[level + 1].update(JsonStreamContext.TYPE_OBJECT, Math.max(-1, index), name);
+      }
+    }
+    return contexts[depth];
+  }
+
+  @Override
+  public Object currentValue() {
+    // called for each bean by the deserializers, without building the context
+    return stackValue(stackSize + 1);
+  }
+
+  @Override
+  public void assignCurrentValue(final Object value) {
+    setStackValue(stackSize + 1, value);
+  }
+
+  private Object stackValue(final int level) {
+    return (stackValues != null && level < stackValues.length) ? stackValues[level] : null;
+  }
+
+  private void setStackValue(final int level, final Object value) {
+    if (stackValues == null || level >= stackValues.length) {
+      stackValues = (stackValues != null) ? Arrays.copyOf(stackValues, level + 8) : new Object[level + 8];
+    }
+    stackValues[level] = value;
+  }
+
   @Override
   public JsonLocation getTokenLocation() {
-    return null;
+    return new JsonLocation(contentReference, tokenOffset, -1, -1, -1);
   }
 
   @Override
@@ -322,32 +1139,40 @@ final class YajbeParser extends ParserMinimalBase {
 
   @Override
   public String getText() {
+    if (_currToken == JsonToken.FIELD_NAME) return currentName;
     return stream.stringValue();
   }
 
   @Override
   public boolean hasTextCharacters() {
-    return false;
+    // the string value is in the text buffer, and the String was not created yet
+    return _currToken == JsonToken.VALUE_STRING && stream.hasTextCharacters();
   }
 
   @Override
   public char[] getTextCharacters() {
-    throw new UnsupportedOperationException();
+    if (_currToken == JsonToken.VALUE_STRING) return stream.textCharacters();
+
+    final String text = getText();
+    return (text != null) ? text.toCharArray() : null;
   }
 
   @Override
   public int getTextOffset() {
-    throw new UnsupportedOperationException();
+    return 0;
   }
 
   @Override
   public int getTextLength() {
-    throw new UnsupportedOperationException();
+    if (_currToken == JsonToken.VALUE_STRING) return stream.textLength();
+
+    final String text = getText();
+    return (text != null) ? text.length() : 0;
   }
 
   @Override
   public byte[] getBinaryValue(final Base64Variant b64variant) {
-    return stream.bytesValue().toByteArray();
+    return stream.bytesCopy();
   }
 
   @Override
@@ -355,7 +1180,7 @@ final class YajbeParser extends ParserMinimalBase {
     return switch (_currToken) {
       case START_ARRAY -> List.of();
       case START_OBJECT -> Map.of();
-      case VALUE_EMBEDDED_OBJECT -> stream.bytesValue().toByteArray();
+      case VALUE_EMBEDDED_OBJECT -> stream.bytesCopy();
       default -> throw new IllegalArgumentException();
     };
   }
@@ -377,7 +1202,7 @@ final class YajbeParser extends ParserMinimalBase {
 
   @Override
   public JsonLocation getCurrentLocation() {
-    throw new UnsupportedOperationException();
+    return new JsonLocation(contentReference, stream.inputOffset(), -1, -1, -1);
   }
 
   @Override
@@ -408,26 +1233,46 @@ final class YajbeParser extends ParserMinimalBase {
   }
 
   @Override
-  public int getIntValue() {
+  public int getIntValue() throws IOException {
     return switch (stream.numberType()) {
       case INT -> stream.intValue();
-      case LONG -> Math.toIntExact(stream.longValue());
+      case LONG -> {
+        final long value = stream.longValue();
+        if (value != (int) value) reportOverflowInt(String.valueOf(value));
+        yield (int) value;
+      }
       case FLOAT -> (int)stream.floatValue();
       case DOUBLE -> (int)stream.doubleValue();
-      case BIG_INTEGER -> stream.bigInteger().intValueExact();
-      case BIG_DECIMAL -> stream.bigDecimal().intValueExact();
+      case BIG_INTEGER -> {
+        final BigInteger value = stream.bigInteger();
+        if (value.bitLength() > 31) reportOverflowInt(value.toString());
+        yield value.intValue();
+      }
+      case BIG_DECIMAL -> {
+        final BigDecimal value = stream.bigDecimal();
+        if (value.compareTo(BD_MIN_INT) < 0 || value.compareTo(BD_MAX_INT) > 0) reportOverflowInt(value.toString());
+        yield value.intValue();
+      }
     };
   }
 
   @Override
-  public long getLongValue() {
+  public long getLongValue() throws IOException {
     return switch (stream.numberType()) {
       case INT -> stream.intValue();
       case LONG -> stream.longValue();
       case FLOAT -> (long)stream.floatValue();
       case DOUBLE -> (long)stream.doubleValue();
-      case BIG_INTEGER -> stream.bigInteger().longValueExact();
-      case BIG_DECIMAL -> stream.bigDecimal().longValueExact();
+      case BIG_INTEGER -> {
+        final BigInteger value = stream.bigInteger();
+        if (value.bitLength() > 63) reportOverflowLong(value.toString());
+        yield value.longValue();
+      }
+      case BIG_DECIMAL -> {
+        final BigDecimal value = stream.bigDecimal();
+        if (value.compareTo(BD_MIN_LONG) < 0 || value.compareTo(BD_MAX_LONG) > 0) reportOverflowLong(value.toString());
+        yield value.longValue();
+      }
     };
   }
 
@@ -515,12 +1360,13 @@ final class YajbeParser extends ParserMinimalBase {
       } else if ((head & 0b0010_0000) == 0b0010_0000) {
         tokens[i] = TOKEN_ARRAY;
       } else if ((head & 0b0001_0000) == 0b0001_0000) {
-        tokens[i] = -1;
+        tokens[i] = YajbeReader.isTypedArray(head) ? TOKEN_TYPED_ARRAY : -1;
       } else if ((head & 0b00001_000) == 0b00001_000) {
         switch (head) {
           case 0b00001000 -> tokens[i] = TOKEN_ENUM_CONFIG;
           case 0b00001001 -> tokens[i] = TOKEN_ENUM_STRING;
           case 0b00001010 -> tokens[i] = TOKEN_ENUM_STRING;
+          case 0b00001011 -> tokens[i] = TOKEN_ENUM_STRING;
           default -> tokens[i] = -1;
         }
       } else switch (head) {
@@ -528,7 +1374,7 @@ final class YajbeParser extends ParserMinimalBase {
         case 0b00000001 -> tokens[i] = -1;
         case 0b00000010 -> tokens[i] = TOKEN_FALSE;
         case 0b00000011 -> tokens[i] = TOKEN_TRUE;
-        case 0b00000100 -> tokens[i] = TOKEN_FLOAT_VLE;
+        case 0b00000100 -> tokens[i] = TOKEN_FLOAT_16;
         case 0b00000101 -> tokens[i] = TOKEN_FLOAT_32;
         case 0b00000110 -> tokens[i] = TOKEN_FLOAT_64;
         case 0b00000111 -> tokens[i] = TOKEN_BIG_DECIMAL;
@@ -538,4 +1384,42 @@ final class YajbeParser extends ParserMinimalBase {
 
     System.out.println(Arrays.toString(tokens));
   }
+
+  private final class ParsingContext extends JsonStreamContext {
+    private final ParsingContext parent;
+    private final int level;
+    private String name;
+
+    private ParsingContext(final int level, final ParsingContext parent) {
+      this.parent = parent;
+      this.level = level;
+      this._nestingDepth = level;
+    }
+
+    private void update(final int type, final int index, final String name) {
+      this._type = type;
+      this._index = index;
+      this.name = name;
+    }
+
+    @Override
+    public JsonStreamContext getParent() {
+      return parent;
+    }
+
+    @Override
+    public String getCurrentName() {
+      return name;
+    }
+
+    @Override
+    public Object getCurrentValue() {
+      return stackValue(level);
+    }
+
+    @Override
+    public void setCurrentValue(final Object value) {
+      setStackValue(level, value);
+    }
+  }
 }
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import com.fasterxml.jackson.core.FormatFeature;
+
+/**
+ * YAJBE specific features of the parser.
+ * The features can be enabled on the {@link YajbeFactory}, or per reader
+ * with {@code mapper.reader().with(YajbeParserFeature.TEXT_BUFFER)}.
+ */
+public enum YajbeParserFeature implements FormatFeature {
+  /**
+   * Decode the string values into a char[] reused by the parser, instead of creating a String for each value.
+   * The String is created only if requested with getText(), the callers that use
+   * getTextCharacters() (e.g. number and date parsing, token buffers) do not allocate it.
+   */
+  TEXT_BUFFER(false),
+
+  /**
+   * Keep a bounded table of the short string values (e.g. hostnames, status, ids) decoded by the parser.
+   * A value already in the table returns the same String instance, instead of decoding a new one.
+   * Useful when the enum mapping is not used, or the values are not repeated enough to be indexed.
+   * The table is owned by the {@link YajbeFactory} and shared by its parsers, so the values are
+   * deduplicated across documents (e.g. many short messages with the same hostnames or tenant ids).
+   */
+  STRING_VALUE_CACHE(false);
+
+  private final boolean defaultState;
+  private final int mask;
+
+  YajbeParserFeature(final boolean defaultState) {
+    this.defaultState = defaultState;
+    this.mask = (1 << ordinal());
+  }
+
+  /**
+   * @return the flags of the features enabled by default
+   */
+  public static int collectDefaults() {
+    int flags = 0;
+    for (final YajbeParserFeature f: values()) {
+      if (f.enabledByDefault()) flags |= f.getMask();
+    }
+    return flags;
+  }
+
+  @Override
+  public boolean enabledByDefault() {
+    return defaultState;
+  }
+
+  @Override
+  public int getMask() {
+    return mask;
+  }
+
+  @Override
+  public boolean enabledIn(final int flags) {
+    return (flags & mask) != 0;
+  }
+}
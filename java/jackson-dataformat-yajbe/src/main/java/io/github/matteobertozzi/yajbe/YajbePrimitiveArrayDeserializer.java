@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+/**
+ * Wraps the jackson int[], long[], float[] and double[] deserializers.
+ * When the parser is a {@link YajbeParser} the numbers are decoded in bulk from the stream,
+ * the elements that are not plain numbers (e.g. null, strings, big decimals) are handled
+ * one by one with the standard coercion rules. Anything else goes to the jackson deserializer.
+ */
+final class YajbePrimitiveArrayDeserializer extends StdDeserializer<Object> implements ContextualDeserializer {
+  private static final long serialVersionUID = 1L;
+
+  private static final int MIN_BUFFER_SIZE = 16;
+  // the item count comes from the input, the buffer grows past this only when the items are there
+  private static final int MAX_INITIAL_BUFFER_SIZE = 1024;
+
+  private final JsonDeserializer<?> delegate;
+
+  YajbePrimitiveArrayDeserializer(final Class<?> arrayType, final JsonDeserializer<?> delegate) {
+    super(arrayType);
+    this.delegate = delegate;
+  }
+
+  static boolean isSupported(final Class<?> arrayType) {
+    return arrayType == int[].class || arrayType == long[].class
+        || arrayType == float[].class || arrayType == double[].class;
+  }
+
+  @Override
+  public JsonDeserializer<?> createContextual(final DeserializationContext ctxt, final BeanProperty property) throws JsonMappingException {
+    if (!(delegate instanceof final ContextualDeserializer contextual)) return this;
+
+    final JsonDeserializer<?> contextualDelegate = contextual.createContextual(ctxt, property);
+    return (contextualDelegate == delegate) ? this : new YajbePrimitiveArrayDeserializer(handledType(), contextualDelegate);
+  }
+
+  @Override
+  public Object deserialize(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+    if (!(p instanceof final YajbeParser parser) || !p.hasToken(JsonToken.START_ARRAY)) {
+      return delegate.deserialize(p, ctxt);
+    }
+
+    final Class<?> arrayType = handledType();
+    if (arrayType == int[].class) return readIntArray(parser, ctxt);
+    if (arrayType == long[].class) return readLongArray(parser, ctxt);
+    if (arrayType == double[].class) return readDoubleArray(parser, ctxt);
+    return readFloatArray(parser, ctxt);
+  }
+
+  private static int initialSize(final YajbeParser parser) {
+    final int count = parser.arrayItemCount();
+    return count < 0 ? MIN_BUFFER_SIZE : Math.min(count, MAX_INITIAL_BUFFER_SIZE);
+  }
+
+  private static int grow(final int length) {
+    return Math.max(MIN_BUFFER_SIZE, length + (length >> 1));
+  }
+
+  private int[] readIntArray(final YajbeParser parser, final DeserializationContext ctxt) throws IOException {
+    int[] buf = new int[initialSize(parser)];
+    int count = 0;
+    try {
+      while (true) {
+        if (count == buf.length) buf = Arrays.copyOf(buf, grow(count));
+        final int avail = buf.length - count;
+        final int n = parser.readIntArrayItems(buf, count, avail);
+        count += n;
+        if (n < avail || parser.arrayItemCount() == 0) break;
+      }
+
+      // the bulk read stops at a long item, it is the current token and goes through the coercion rules
+      if (parser.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+        if (count == buf.length) buf = Arrays.copyOf(buf, grow(count));
+        buf[count] = _parseIntPrimitive(parser, ctxt);
+        count++;
+      }
+
+      // end of the array or an element that is not a plain int
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        if (count == buf.length) buf = Arrays.copyOf(buf, grow(count));
+        buf[count] = _parseIntPrimitive(parser, ctxt);
+        count++;
+      }
+    } catch (final Exception e) {
+      // same error as the jackson deserializer, with the index of the element
+      throw JsonMappingException.wrapWithPath(e, buf, count);
+    }
+    return count == buf.length ? buf : Arrays.copyOf(buf, count);
+  }
+
+  private long[] readLongArray(final YajbeParser parser, final DeserializationContext ctxt) throws IOException {
+    long[] buf = new long[initialSize(parser)];
+    int count = 0;
+    try {
+      while (true) {
+        if (count == buf.length) buf = Arrays.copyOf(buf, grow(count));
+        final int avail = buf.length - count;
+        final int n = parser.readLongArrayItems(buf, count, avail);
+        count += n;
+        if (n < avail || parser.arrayItemCount() == 0) break;
+      }
+
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        if (count == buf.length) buf = Arrays.copyOf(buf, grow(count));
+        buf[count] = _parseLongPrimitive(parser, ctxt);
+        count++;
+      }
+    } catch (final Exception e) {
+      // same error as the jackson deserializer, with the index of the element
+      throw JsonMappingException.wrapWithPath(e, buf, count);
+    }
+    return count == buf.length ? buf : Arrays.copyOf(buf, count);
+  }
+
+  private double[] readDoubleArray(final YajbeParser parser, final DeserializationContext ctxt) throws IOException {
+    double[] buf = new double[initialSize(parser)];
+    int count = 0;
+    try {
+      while (true) {
+        if (count == buf.length) buf = Arrays.copyOf(buf, grow(count));
+        final int avail = buf.length - count;
+        final int n = parser.readDoubleArrayItems(buf, count, avail);
+        count += n;
+        if (n < avail || parser.arrayItemCount() == 0) break;
+      }
+
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        if (count == buf.length) buf = Arrays.copyOf(buf, grow(count));
+        buf[count] = _parseDoublePrimitive(parser, ctxt);
+        count++;
+      }
+    } catch (final Exception e) {
+      // same error as the jackson deserializer, with the index of the element
+      throw JsonMappingException.wrapWithPath(e, buf, count);
+    }
+    return count == buf.length ? buf : Arrays.copyOf(buf, count);
+  }
+
+  private float[] readFloatArray(final YajbeParser parser, final DeserializationContext ctxt) throws IOException {
+    float[] buf = new float[initialSize(parser)];
+    int count = 0;
+    try {
+      while (true) {
+        if (count == buf.length) buf = Arrays.copyOf(buf, grow(count));
+        final int avail = buf.length - count;
+        final int n = parser.readFloatArrayItems(buf, count, avail);
+        count += n;
+        if (n < avail || parser.arrayItemCount() == 0) break;
+      }
+
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        if (count == buf.length) buf = Arrays.copyOf(buf, grow(count));
+        buf[count] = _parseFloatPrimitive(parser, ctxt);
+        count++;
+      }
+    } catch (final Exception e) {
+      // same error as the jackson deserializer, with the index of the element
+      throw JsonMappingException.wrapWithPath(e, buf, count);
+    }
+    return count == buf.length ? buf : Arrays.copyOf(buf, count);
+  }
+}
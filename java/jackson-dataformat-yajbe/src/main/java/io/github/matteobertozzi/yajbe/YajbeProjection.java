@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonPointer;
+
+/**
+ * Set of paths to decode, everything else is skipped at the byte level by the parser.
+ * <p>
+ * The paths are {@link JsonPointer}s (e.g. "/actor/login"), the segment "*" matches
+ * any field name or any array element (e.g. "/*&#47;actor/login" for an array of events).
+ * The subtree of a matching pointer is fully decoded, the ancestors of the matches
+ * are kept as containers, so the result has the same shape of the original document.
+ * Array elements and object fields that don't match are removed; a container on the path
+ * of a pointer is kept even when none of its items matches (e.g. "/a/b" with "a": {} or "a": []),
+ * while a scalar is kept only if the pointer ends there.
+ * <p>
+ * A projection is immutable and can be shared between threads.
+ * Use it with {@link YajbeMapper#reader(YajbeProjection)} or
+ * with the {@link YajbeMapper#CONFIG_PROJECTION} attribute.
+ */
+public final class YajbeProjection {
+  private static final String WILDCARD = "*";
+
+  private final Node root;
+
+  private YajbeProjection(final Node root) {
+    this.root = root;
+  }
+
+  /**
+   * @param paths the json pointers of the subtrees to decode (e.g. "/actor/login")
+   * @return the projection including only the specified paths
+   */
+  public static YajbeProjection of(final String... paths) {
+    final Node root = new Node();
+    for (final String path: paths) {
+      root.add(JsonPointer.compile(path));
+    }
+    return new YajbeProjection(root.freeze());
+  }
+
+  /**
+   * @param pointers the json pointers of the subtrees to decode
+   * @return the projection including only the specified paths
+   */
+  public static YajbeProjection of(final JsonPointer... pointers) {
+    return of(List.of(pointers));
+  }
+
+  /**
+   * @param pointers the json pointers of the subtrees to decode
+   * @return the projection including only the specified paths
+   */
+  public static YajbeProjection of(final Collection<JsonPointer> pointers) {
+    final Node root = new Node();
+    for (final JsonPointer pointer: pointers) {
+      root.add(pointer);
+    }
+    return new YajbeProjection(root.freeze());
+  }
+
+  Node root() {
+    return root;
+  }
+
+  /**
+   * Trie node, one for each path segment.
+   * A node with "all" set matches the whole subtree.
+   */
+  static final class Node {
+    private final HashMap<String, Node> fields = new HashMap<>();
+    private Node wildcard;
+    private boolean all;
+
+    boolean isAll() {
+      return all;
+    }
+
+    Node field(final String name) {
+      final Node node = fields.get(name);
+      return node != null ? node : wildcard;
+    }
+
+    Node element(final int index) {
+      if (fields.isEmpty()) return wildcard;
+
+      final Node node = fields.get(Integer.toString(index));
+      return node != null ? node : wildcard;
+    }
+
+    private void add(JsonPointer pointer) {
+      Node node = this;
+      while (!pointer.matches()) {
+        if (node.all) return;
+
+        final String segment = pointer.getMatchingProperty();
+        if (WILDCARD.equals(segment)) {
+          if (node.wildcard == null) node.wildcard = new Node();
+          node = node.wildcard;
+        } else {
+          node = node.fields.computeIfAbsent(segment, k -> new Node());
+        }
+        pointer = pointer.tail();
+      }
+      node.setAll();
+    }
+
+    private void setAll() {
+      this.all = true;
+      this.fields.clear();
+      this.wildcard = null;
+    }
+
+    private void merge(final Node other) {
+      if (all) return;
+      if (other.all) {
+        setAll();
+        return;
+      }
+
+      for (final Map.Entry<String, Node> entry: other.fields.entrySet()) {
+        fields.computeIfAbsent(entry.getKey(), k -> new Node()).merge(entry.getValue());
+      }
+      if (other.wildcard != null) {
+        if (wildcard == null) wildcard = new Node();
+        wildcard.merge(other.wildcard);
+      }
+    }
+
+    /**
+     * a field matching both a name and the wildcard, must include the paths of both.
+     * so the wildcard subtree is merged into the named nodes, and lookups are a single get.
+     */
+    private Node freeze() {
+      if (wildcard != null) {
+        for (final Node node: fields.values()) {
+          node.merge(wildcard);
+        }
+        wildcard.freeze();
+      }
+      for (final Node node: fields.values()) {
+        node.freeze();
+      }
+      return this;
+    }
+  }
+}
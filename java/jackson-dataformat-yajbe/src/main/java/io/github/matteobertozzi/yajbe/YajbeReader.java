@@ -17,12 +17,16 @@
 
 package io.github.matteobertozzi.yajbe;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.MathContext;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 import com.fasterxml.jackson.core.JsonParser.NumberType;
 
@@ -34,6 +38,20 @@ abstract class YajbeReader {
   protected abstract void readNBytes(final byte[] buf, final int off, final int len) throws IOException;
   protected abstract long readFixed(final int width) throws IOException;
   protected abstract int readFixedInt(final int width) throws IOException;
+  protected abstract void skipNBytes(final int n) throws IOException;
+
+  /** @return the number of bytes consumed from the beginning of the input */
+  abstract long inputOffset();
+
+  /** @return the current offset, for the readers that support random access */
+  long position() {
+    throw new UnsupportedOperationException();
+  }
+
+  /** move the reader to the specified offset, for the readers that support random access */
+  void seek(final long position) {
+    throw new UnsupportedOperationException();
+  }
 
   // =========================================================================================================
   @SuppressWarnings("fallthrough")
@@ -72,10 +90,21 @@ abstract class YajbeReader {
     return new YajbeReaderByteArray(buf, off, len);
   }
 
+  public static YajbeReader fromBuffer(final ByteBuffer buf) {
+    if (buf.hasArray()) {
+      return new YajbeReaderByteArray(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+    }
+    return new YajbeReaderByteBuffer(buf);
+  }
+
   public static YajbeReader fromStream(final InputStream in) {
     return new YajbeReaderStream(in);
   }
 
+  public static YajbeReader fromFile(final File file) throws IOException {
+    return YajbeReaderMappedFile.open(file);
+  }
+
   // =========================================================================================================
   private NumberType numberType;
   private int intValue;
@@ -86,6 +115,8 @@ abstract class YajbeReader {
   private BigDecimal bigDecimal;
   private String strValue;
   private ByteArraySlice bytesValue;
+  // the bytes value as a slice of the input buffer, set instead of bytesValue by the ByteBuffer based readers
+  private ByteBuffer bytesBuffer;
 
   public NumberType numberType() { return numberType; }
   public int intValue() { return intValue; }
@@ -94,48 +125,279 @@ abstract class YajbeReader {
   public double doubleValue() { return doubleValue; }
   public BigInteger bigInteger() { return bigInteger; }
   public BigDecimal bigDecimal() { return bigDecimal; }
-  public ByteArraySlice bytesValue() { return bytesValue; }
-  public String stringValue() { return strValue; }
+  public String stringValue() {
+    if (strValue == null && textLength >= 0) {
+      strValue = new String(textChars, 0, textLength);
+    }
+    return strValue;
+  }
 
   // ====================================================================================================
   //  String related
   // ====================================================================================================
   public final void decodeSmallString(final int head) throws IOException {
-    strValue = readString(head & 0b111111);
-    if (enumMapping != null) enumMapping.add(strValue);
+    readStringValue(head & 0b111111);
   }
 
   public final void decodeString(final int head) throws IOException {
-    final int length = 59 + readFixedInt((head & 0b111111) - 59);
+    readStringValue(59 + readFixedInt((head & 0b111111) - 59));
+  }
+
+  private void readStringValue(final int length) throws IOException {
+    if (stringValueCache != null && length <= stringValueCache.maxLength()) {
+      strValue = stringValueCache.canonicalize(readTextBytes(length), 0, length);
+      textLength = -1;
+      if (enumReplay != null) enumReplay.add(strValue);
+      return;
+    }
+
+    if (textBuffer && enumReplay == null) {
+      readText(length);
+      return;
+    }
+
     strValue = readString(length);
-    if (enumMapping != null) enumMapping.add(strValue);
+    textLength = -1;
+    if (enumReplay != null) enumReplay.add(strValue);
+  }
+
+  // ====================================================================================================
+  //  String value cache related
+  //  the short string values are mapped by their utf-8 bytes to the String instance already decoded,
+  //  the table is owned by the factory and shared by the parsers.
+  // ====================================================================================================
+  private YajbeFieldNameCanonicalizer stringValueCache;
+
+  void setStringValueCache(final YajbeFieldNameCanonicalizer stringValueCache) {
+    this.stringValueCache = stringValueCache;
+  }
+
+  // ====================================================================================================
+  //  Text buffer related
+  //  the string values are decoded into a reused char[], the String is created only by stringValue()
+  //  (the enum mapping replay needs the Strings, the text buffer is not used when the mapping is replayed)
+  // ====================================================================================================
+  private boolean textBuffer;
+  private byte[] textBytes;
+  private char[] textChars;
+  // the length of the value in textChars, -1 if the value is only in strValue
+  private int textLength = -1;
+
+  void setTextBuffer(final boolean enable) {
+    this.textBuffer = enable;
+  }
+
+  /** @return true if the string value is in the text buffer, and the String was not created */
+  boolean hasTextCharacters() {
+    return strValue == null && textLength >= 0;
+  }
+
+  /** @return the chars of the string value, from offset 0 to textLength() */
+  char[] textCharacters() {
+    if (textLength < 0 && strValue != null) {
+      textLength = strValue.length();
+      ensureTextChars(textLength);
+      strValue.getChars(0, textLength, textChars, 0);
+    }
+    return textChars;
+  }
+
+  int textLength() {
+    return (textLength >= 0) ? textLength : (strValue != null ? strValue.length() : 0);
+  }
+
+  private byte[] readTextBytes(final int length) throws IOException {
+    byte[] utf8 = textBytes;
+    if (utf8 == null || utf8.length < length) {
+      utf8 = textBytes = new byte[Math.max(64, Integer.highestOneBit(length) << 1)];
+    }
+    readNBytes(utf8, 0, length);
+    return utf8;
+  }
+
+  private void readText(final int length) throws IOException {
+    final byte[] utf8 = readTextBytes(length);
+    ensureTextChars(length);
+    final int charsLength = decodeUtf8(utf8, length, textChars);
+    if (charsLength >= 0) {
+      strValue = null;
+      textLength = charsLength;
+    } else {
+      // malformed utf-8, the String replaces the invalid sequences
+      strValue = new String(utf8, 0, length, StandardCharsets.UTF_8);
+      textLength = -1;
+    }
+  }
+
+  private void ensureTextChars(final int length) {
+    if (textChars == null || textChars.length < length) {
+      textChars = new char[Math.max(64, Integer.highestOneBit(length) << 1)];
+    }
+  }
+
+  /**
+   * Decode the utf-8 bytes into the chars (at least one char per byte).
+   * @return the number of chars, or -1 if the utf-8 is malformed
+   */
+  static int decodeUtf8(final byte[] utf8, final int length, final char[] chars) {
+    int off = 0;
+    int charsOff = 0;
+
+    // ascii fast path
+    while (off < length && utf8[off] >= 0) {
+      chars[charsOff++] = (char) utf8[off++];
+    }
+
+    while (off < length) {
+      final int b0 = utf8[off++];
+      if (b0 >= 0) {
+        chars[charsOff++] = (char) b0;
+      } else if ((b0 & 0xe0) == 0xc0 && off < length) {
+        final int b1 = utf8[off++];
+        if ((b1 & 0xc0) != 0x80 || (b0 & 0x1e) == 0) return -1;
+        chars[charsOff++] = (char) (((b0 & 0x1f) << 6) | (b1 & 0x3f));
+      } else if ((b0 & 0xf0) == 0xe0 && (off + 1) < length) {
+        final int b1 = utf8[off++];
+        final int b2 = utf8[off++];
+        if ((b1 & 0xc0) != 0x80 || (b2 & 0xc0) != 0x80) return -1;
+        final char c = (char) (((b0 & 0x0f) << 12) | ((b1 & 0x3f) << 6) | (b2 & 0x3f));
+        if (c < 0x800 || Character.isSurrogate(c)) return -1;
+        chars[charsOff++] = c;
+      } else if ((b0 & 0xf8) == 0xf0 && (off + 2) < length) {
+        final int b1 = utf8[off++];
+        final int b2 = utf8[off++];
+        final int b3 = utf8[off++];
+        if ((b1 & 0xc0) != 0x80 || (b2 & 0xc0) != 0x80 || (b3 & 0xc0) != 0x80) return -1;
+        final int cp = ((b0 & 0x07) << 18) | ((b1 & 0x3f) << 12) | ((b2 & 0x3f) << 6) | (b3 & 0x3f);
+        if (cp < 0x10000 || cp > Character.MAX_CODE_POINT) return -1;
+        chars[charsOff++] = Character.highSurrogate(cp);
+        chars[charsOff++] = Character.lowSurrogate(cp);
+      } else {
+        return -1;
+      }
+    }
+    return charsOff;
+  }
+
+  private int readStringLength(final int head) throws IOException {
+    if ((head & 0b11_000000) != 0b11_000000) {
+      throw new IOException("expected a string after the enum index marker, got " + Integer.toBinaryString(head));
+    }
+    final int w = head & 0b111111;
+    return (w <= 59) ? w : 59 + readFixedInt(w - 59);
   }
 
   // ====================================================================================================
   //  Enum/String related
   // ====================================================================================================
   private YajbeEnumMapping enumMapping;
+  // the mapping that sees every string, null if the encoder marks the indexed strings
+  private YajbeEnumMapping enumReplay;
+
+  YajbeEnumMapping enumMapping() {
+    return enumMapping;
+  }
+
+  void setEnumMapping(final YajbeEnumMapping enumMapping) {
+    this.enumMapping = enumMapping;
+    this.enumReplay = (enumMapping instanceof YajbeEnumListMapping) ? null : enumMapping;
+  }
 
-  public final void decodeEnumConfig(final int head) throws IOException {
+  private YajbeRecycler recycler;
+
+  void setRecycler(final YajbeRecycler recycler) {
+    this.recycler = recycler;
+  }
+
+  private YajbeDictionaryRegistry dictionaries;
+  private YajbeDictionary dictionary;
+
+  void setDictionaries(final YajbeDictionaryRegistry dictionaries) {
+    this.dictionaries = dictionaries;
+  }
+
+  /** @return the dictionary referenced by the stream, or null if there is none */
+  YajbeDictionary dictionary() {
+    return dictionary;
+  }
+
+  /**
+   * Restore the dictionary of a stream, when the decoding starts after the dictionary header.
+   * @param id the dictionary id referenced by the stream
+   * @throws IOException if the dictionary is not in the registry
+   */
+  void restoreDictionary(final int id) throws IOException {
+    dictionary = lookupDictionary(id);
+  }
+
+  private YajbeDictionary lookupDictionary(final int id) throws IOException {
+    final YajbeDictionary dict = (dictionaries != null) ? dictionaries.get(id) : null;
+    if (dict == null) throw new IOException("unknown dictionary " + id);
+    return dict;
+  }
+
+  /**
+   * Decode the config head (0b00001000), the type of config is in the high 4 bits of the next byte.
+   * @return the dictionary referenced by the stream, or null if the config is an enum mapping
+   */
+  public final YajbeDictionary decodeConfig(final int head) throws IOException {
     final int h1 = read();
     switch ((h1 >>> 4) & 0b1111) {
       case 0: // LRU
         final int freq = read();
-        enumMapping = new YajbeEnumLruMapping(1 << (5 + (h1 & 0b1111)), 1 + freq);
-        break;
+        final int lruSize = 1 << (5 + (h1 & 0b1111));
+        setEnumMapping((recycler != null) ? recycler.enumMapping(lruSize, 1 + freq) : new YajbeEnumLruMapping(lruSize, 1 + freq));
+        if (dictionary != null) dictionary.addEnumStrings(enumMapping);
+        return null;
+      case 1: // Dictionary
+        final int id = readFixedInt(1 + (h1 & 0b11));
+        if (enumMapping != null) throw new IOException("dictionary " + id + " after the enum config");
+        dictionary = lookupDictionary(id);
+        return dictionary;
+      case 2: // TinyLFU
+        setEnumMapping(new YajbeEnumTinyLfuMapping(1 << (5 + (h1 & 0b1111)), 1 + read()));
+        if (dictionary != null) dictionary.addEnumStrings(enumMapping);
+        return null;
+      case 3: // Index markers, the encoder marks the indexed strings
+        setEnumMapping(new YajbeEnumListMapping());
+        if (dictionary != null) dictionary.addEnumStrings(enumMapping);
+        return null;
+      default:
+        throw new IOException("unsupported config: " + Integer.toBinaryString(h1));
     }
   }
 
+  /**
+   * @param h1 the byte following the config head
+   * @return the length of the config, including the head
+   */
+  static int configLength(final int h1) {
+    return switch ((h1 >>> 4) & 0b1111) {
+      case 0, 2 -> 3;
+      case 1 -> 3 + (h1 & 0b11);
+      default -> 2;
+    };
+  }
+
   public final void decodeEnumString(final int head) throws IOException {
     switch (head) {
       case 0b00001001: {
         final int index = read();
         strValue = enumMapping.get(index);
+        textLength = -1;
         return;
       }
       case 0b00001010: {
         final int index = readFixedInt(2);
         strValue = enumMapping.get(index);
+        textLength = -1;
+        return;
+      }
+      case 0b00001011: {
+        // marked string, the next occurrences will be referenced by index
+        strValue = readString(readStringLength(read()));
+        textLength = -1;
+        enumMapping.add(strValue);
         return;
       }
     }
@@ -145,14 +407,43 @@ abstract class YajbeReader {
   //  Bytes related
   // ====================================================================================================
   public final void decodeSmallBytes(final int head) throws IOException {
-    bytesValue = readNBytes(head & 0b111111);
-    strValue = null;
+    readBytesValue(head & 0b111111);
   }
 
   public final void decodeBytes(final int head) throws IOException {
-    final int length = 59 + readFixedInt((head & 0b111111) - 59);
-    bytesValue = readNBytes(length);
+    readBytesValue(59 + readFixedInt((head & 0b111111) - 59));
+  }
+
+  private void readBytesValue(final int length) throws IOException {
+    bytesBuffer = readBufferSlice(length);
+    bytesValue = (bytesBuffer == null) ? readNBytes(length) : null;
     strValue = null;
+    textLength = -1;
+  }
+
+  /**
+   * Readers on top of a ByteBuffer return the bytes values as slices of the input, instead of copying them.
+   * @param n the number of bytes to read
+   * @return a read-only slice of the next n bytes of the input, or null if the bytes must be read with readNBytes()
+   */
+  protected ByteBuffer readBufferSlice(final int n) throws IOException {
+    return null;
+  }
+
+  /** @return a copy of the bytes value */
+  public byte[] bytesCopy() {
+    if (bytesBuffer != null) {
+      final byte[] data = new byte[bytesBuffer.remaining()];
+      bytesBuffer.get(0, data);
+      return data;
+    }
+    return bytesValue.toByteArray();
+  }
+
+  /** @return the bytes value as a read-only buffer, sharing the input data (no copy) */
+  public ByteBuffer bytesBuffer() {
+    if (bytesBuffer != null) return bytesBuffer.duplicate();
+    return ByteBuffer.wrap(bytesValue.buf(), bytesValue.off(), bytesValue.len()).slice().asReadOnlyBuffer();
   }
 
   // ====================================================================================================
@@ -193,8 +484,27 @@ abstract class YajbeReader {
   // ====================================================================================================
   //  Float related
   // ====================================================================================================
-  public final void decodeFloatVle() {
-    throw new UnsupportedOperationException("Not implemented decode float16/vle-float");
+  public final void decodeFloat16() throws IOException {
+    final int i16 = readFixedInt(2);
+    this.floatValue = float16ToFloat(i16);
+    this.numberType = NumberType.FLOAT;
+  }
+
+  /** IEEE 754 binary16 to float, every float16 value is exactly representable as float32 */
+  static float float16ToFloat(final int bits) {
+    final int sign = (bits & 0x8000) << 16;
+    final int exp = (bits >>> 10) & 0x1f;
+    final int mantissa = bits & 0x3ff;
+    if (exp == 0x1f) {
+      // infinity or NaN
+      return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+    }
+    if (exp == 0) {
+      // zero or subnormal: mantissa * 2^-24
+      final float v = mantissa * 0x1p-24f;
+      return (sign != 0) ? -v : v;
+    }
+    return Float.intBitsToFloat(sign | ((exp + 112) << 23) | (mantissa << 13));
   }
 
   public final void decodeFloat32() throws IOException {
@@ -235,6 +545,257 @@ abstract class YajbeReader {
     this.bigDecimal = new BigDecimal(unscaled, scale, new MathContext(precision));
   }
 
+  // ====================================================================================================
+  //  Typed Array related
+  //  0b0001_0www signed ints of (www + 1) bytes, 0b0001_1100 float16, 0b0001_1101 float32, 0b0001_1110 float64.
+  //  the head is followed by the item count (encoded as an int) and by the raw little-endian items.
+  // ====================================================================================================
+  private static final int TYPED_CHUNK_SIZE = 64 << 10;
+
+  static boolean isTypedArray(final int head) {
+    return (head & 0b1111_1000) == 0b0001_0000 || (head >= 0b0001_1100 && head <= 0b0001_1110);
+  }
+
+  static boolean isTypedIntArray(final int head) {
+    return (head & 0b1111_1000) == 0b0001_0000;
+  }
+
+  static int typedItemWidth(final int head) {
+    return switch (head) {
+      case 0b0001_1100 -> 2;
+      case 0b0001_1101 -> 4;
+      case 0b0001_1110 -> 8;
+      default -> 1 + (head & 0b111);
+    };
+  }
+
+  public final int readTypedArrayLength() throws IOException {
+    final int head = read();
+    if ((head & 0b111_00000) == 0b010_00000) {
+      final int w = head & 0b11111;
+      final long length = (w < 24) ? (1 + w) : (25 + readFixed(w - 23));
+      if (length <= Integer.MAX_VALUE) return (int) length;
+    } else if (head == 0b011_00000) {
+      return 0;
+    }
+    throw new IOException("invalid typed array length, head " + Integer.toBinaryString(head));
+  }
+
+  public final void decodeTypedItem(final int head) throws IOException {
+    switch (head) {
+      case 0b0001_1100 -> decodeFloat16();
+      case 0b0001_1101 -> decodeFloat32();
+      case 0b0001_1110 -> decodeFloat64();
+      default -> {
+        if (!isTypedIntArray(head)) {
+          throw new IOException("invalid typed array head " + Integer.toBinaryString(head));
+        }
+
+        final int width = 1 + (head & 0b111);
+        final int shift = 64 - (width << 3);
+        final long v = (readFixed(width) << shift) >> shift;
+        if (v >= Integer.MIN_VALUE && v <= Integer.MAX_VALUE) {
+          intValue = (int) v;
+          numberType = NumberType.INT;
+        } else {
+          longValue = v;
+          numberType = NumberType.LONG;
+        }
+      }
+    }
+  }
+
+  /** read the raw items of the typed array (in chunks, so the stream readers don't allocate the whole array) */
+  private ByteBuffer readTypedChunk(final int width, final int count) throws IOException {
+    final int length = width * count;
+    final ByteArraySlice slice = readNBytes(length);
+    if (slice.len() != length) {
+      throw new IOException("unable to read " + count + " typed array items");
+    }
+    return ByteBuffer.wrap(slice.buf(), slice.off(), length).slice().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private static long typedIntItem(final ByteBuffer chunk, final int index, final int width) {
+    return switch (width) {
+      case 1 -> chunk.get(index);
+      case 2 -> chunk.getShort(index << 1);
+      case 4 -> chunk.getInt(index << 2);
+      case 8 -> chunk.getLong(index << 3);
+      default -> {
+        final int shift = 64 - (width << 3);
+        yield (readFixed(chunk.array(), chunk.arrayOffset() + (index * width), width) << shift) >> shift;
+      }
+    };
+  }
+
+  public final void readTypedItems(final int head, final int[] buf, int off, int len) throws IOException {
+    if (!isTypedIntArray(head) || typedItemWidth(head) > 4) {
+      // the wider items may not fit, the caller must read them one by one and check the range
+      throw new IllegalArgumentException("expected a typed int array with items up to 4 bytes, got head " + Integer.toBinaryString(head));
+    }
+
+    final int width = typedItemWidth(head);
+    while (len > 0) {
+      final int count = Math.min(len, TYPED_CHUNK_SIZE / width);
+      final ByteBuffer chunk = readTypedChunk(width, count);
+      if (width == 4) {
+        chunk.asIntBuffer().get(buf, off, count);
+      } else {
+        for (int i = 0; i < count; ++i) buf[off + i] = (int) typedIntItem(chunk, i, width);
+      }
+      off += count;
+      len -= count;
+    }
+  }
+
+  public final void readTypedItems(final int head, final long[] buf, int off, int len) throws IOException {
+    if (!isTypedIntArray(head)) {
+      throw new IllegalArgumentException("expected a typed int array, got head " + Integer.toBinaryString(head));
+    }
+
+    final int width = typedItemWidth(head);
+    while (len > 0) {
+      final int count = Math.min(len, TYPED_CHUNK_SIZE / width);
+      final ByteBuffer chunk = readTypedChunk(width, count);
+      if (width == 8) {
+        chunk.asLongBuffer().get(buf, off, count);
+      } else {
+        for (int i = 0; i < count; ++i) buf[off + i] = typedIntItem(chunk, i, width);
+      }
+      off += count;
+      len -= count;
+    }
+  }
+
+  public final void readTypedItems(final int head, final float[] buf, int off, int len) throws IOException {
+    final int width = typedItemWidth(head);
+    while (len > 0) {
+      final int count = Math.min(len, TYPED_CHUNK_SIZE / width);
+      final ByteBuffer chunk = readTypedChunk(width, count);
+      switch (head) {
+        case 0b0001_1100 -> { for (int i = 0; i < count; ++i) buf[off + i] = float16ToFloat(chunk.getShort(i << 1)); }
+        case 0b0001_1101 -> chunk.asFloatBuffer().get(buf, off, count);
+        case 0b0001_1110 -> { for (int i = 0; i < count; ++i) buf[off + i] = (float) chunk.getDouble(i << 3); }
+        default -> { for (int i = 0; i < count; ++i) buf[off + i] = typedIntItem(chunk, i, width); }
+      }
+      off += count;
+      len -= count;
+    }
+  }
+
+  public final void readTypedItems(final int head, final double[] buf, int off, int len) throws IOException {
+    final int width = typedItemWidth(head);
+    while (len > 0) {
+      final int count = Math.min(len, TYPED_CHUNK_SIZE / width);
+      final ByteBuffer chunk = readTypedChunk(width, count);
+      switch (head) {
+        case 0b0001_1100 -> { for (int i = 0; i < count; ++i) buf[off + i] = float16ToFloat(chunk.getShort(i << 1)); }
+        case 0b0001_1101 -> { for (int i = 0; i < count; ++i) buf[off + i] = chunk.getFloat(i << 2); }
+        case 0b0001_1110 -> chunk.asDoubleBuffer().get(buf, off, count);
+        default -> { for (int i = 0; i < count; ++i) buf[off + i] = typedIntItem(chunk, i, width); }
+      }
+      off += count;
+      len -= count;
+    }
+  }
+
+  public final void skipTypedArray(final int head) throws IOException {
+    skipTypedItems(head, readTypedArrayLength());
+  }
+
+  public final void skipTypedItems(final int head, final int count) throws IOException {
+    long length = (long) count * typedItemWidth(head);
+    while (length > 0) {
+      final int n = (int) Math.min(length, Integer.MAX_VALUE);
+      skipNBytes(n);
+      length -= n;
+    }
+  }
+
+  // ====================================================================================================
+  //  Skip related (used by skipChildren(), the values are consumed without being decoded)
+  // ====================================================================================================
+  public final void skipSmallString(final int head) throws IOException {
+    skipStringBytes(head & 0b111111);
+  }
+
+  public final void skipString(final int head) throws IOException {
+    skipStringBytes(59 + readFixedInt((head & 0b111111) - 59));
+  }
+
+  private void skipStringBytes(final int length) throws IOException {
+    // strings may be indexed by the writer, so the enum mapping must see them
+    if (enumReplay != null && length >= YajbeEnumMapping.MIN_ENUM_STRING_LENGTH) {
+      enumReplay.add(readString(length));
+    } else {
+      skipNBytes(length);
+    }
+  }
+
+  public final void skipEnumString(final int head) throws IOException {
+    switch (head) {
+      case 0b00001001 -> skipNBytes(1);
+      case 0b00001010 -> skipNBytes(2);
+      case 0b00001011 -> {
+        // the marked string must be added to the index (if this reader owns it)
+        final int length = readStringLength(read());
+        if (enumMapping != null) enumMapping.add(readString(length)); else skipNBytes(length);
+      }
+    }
+  }
+
+  public final void skipSmallBytes(final int head) throws IOException {
+    skipNBytes(head & 0b111111);
+  }
+
+  public final void skipBytes(final int head) throws IOException {
+    skipNBytes(59 + readFixedInt((head & 0b111111) - 59));
+  }
+
+  public final void skipInt(final int head) throws IOException {
+    skipNBytes((head & 0b11111) - 23);
+  }
+
+  /**
+   * Skip the scalar value with the specified head.
+   * Typed arrays are skipped too, their items are numbers without field names or enum strings.
+   * @return false if the head is not a scalar (array, object, enum config, or an invalid head)
+   */
+  public final boolean skipScalar(final int head) throws IOException {
+    if ((head & 0b11_000000) == 0b11_000000) {
+      if ((head & 0b111111) <= 59) skipSmallString(head); else skipString(head);
+    } else if ((head & 0b10_000000) == 0b10_000000) {
+      if ((head & 0b111111) <= 59) skipSmallBytes(head); else skipBytes(head);
+    } else if ((head & 0b010_00000) == 0b010_00000) {
+      if ((head & 0b11111) >= 24) skipInt(head);
+    } else if ((head & 0b0011_0000) == 0b0001_0000) {
+      if (!isTypedArray(head)) return false;
+      skipTypedArray(head);
+    } else if ((head & 0b0011_0000) != 0) {
+      return false;
+    } else {
+      switch (head) {
+        case 0b00000000, 0b00000010, 0b00000011 -> { /* null, false, true */ }
+        case 0b00000100 -> skipNBytes(2);
+        case 0b00000101 -> skipNBytes(4);
+        case 0b00000110 -> skipNBytes(8);
+        case 0b00000111 -> skipBigDecimal();
+        case 0b00001001, 0b00001010, 0b00001011 -> skipEnumString(head);
+        default -> { return false; }
+      }
+    }
+    return true;
+  }
+
+  public final void skipBigDecimal() throws IOException {
+    final int head = read();
+    final int scaleBytes = 1 + ((head >> 5) & 3);
+    final int precisionBytes = 1 + ((head >> 3) & 3);
+    final int vDataBytes = 1 + (head & 3);
+    skipNBytes(scaleBytes + precisionBytes);
+    skipNBytes(readFixedInt(vDataBytes));
+  }
+
   // ====================================================================================================
   //  Array/Object length related
   // ====================================================================================================
@@ -22,13 +22,30 @@ import java.nio.charset.StandardCharsets;
 
 final class YajbeReaderByteArray extends YajbeReader {
   private final byte[] data;
+  private final int start;
   private final int length;
   private int offset;
 
   public YajbeReaderByteArray(final byte[] data, final int offset, final int len) {
     this.data = data;
+    this.start = offset;
     this.offset = offset;
-    this.length = len;
+    this.length = offset + len;
+  }
+
+  @Override
+  long inputOffset() {
+    return offset - start;
+  }
+
+  @Override
+  long position() {
+    return offset;
+  }
+
+  @Override
+  void seek(final long position) {
+    this.offset = (int) position;
   }
 
   @Override
@@ -43,8 +60,8 @@ final class YajbeReaderByteArray extends YajbeReader {
 
   @Override
   protected ByteArraySlice readNBytes(final int n) throws IOException {
-    if (data.length < (offset + n)) {
-      throw new IOException("invalid length:" + n + ", avail:" + (data.length - offset));
+    if (length < (offset + n)) {
+      throw new IOException("invalid length:" + n + ", avail:" + (length - offset));
     }
 
     final ByteArraySlice slice = new ByteArraySlice(data, offset, n);
@@ -78,4 +95,12 @@ final class YajbeReaderByteArray extends YajbeReader {
     this.offset += width;
     return readFixedInt(data, off, width);
   }
+
+  @Override
+  protected void skipNBytes(final int n) throws IOException {
+    if (length < (offset + n)) {
+      throw new IOException("invalid length:" + n + ", avail:" + (length - offset));
+    }
+    offset += n;
+  }
 }
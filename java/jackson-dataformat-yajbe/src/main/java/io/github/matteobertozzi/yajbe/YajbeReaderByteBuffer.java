@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reader for direct (or read-only) ByteBuffers.
+ * Heap buffers with an accessible array are read with the {@link YajbeReaderByteArray}.
+ * The reader uses absolute gets, so the position of the buffer is not modified.
+ */
+final class YajbeReaderByteBuffer extends YajbeReader {
+  private static final String EMPTY_STRING = "";
+
+  private final byte[] buf8 = new byte[8];
+  private final ByteBuffer buffer;
+  private final int start;
+  private final int length;
+  private int offset;
+
+  private byte[] strBuf = new byte[64];
+
+  public YajbeReaderByteBuffer(final ByteBuffer buffer) {
+    this.buffer = buffer;
+    this.start = buffer.position();
+    this.offset = start;
+    this.length = buffer.limit();
+  }
+
+  @Override
+  long inputOffset() {
+    return offset - start;
+  }
+
+  @Override
+  long position() {
+    return offset;
+  }
+
+  @Override
+  void seek(final long position) {
+    this.offset = (int) position;
+  }
+
+  @Override
+  protected int peek() {
+    return (offset < length) ? (buffer.get(offset) & 0xff) : -1;
+  }
+
+  @Override
+  protected int read() {
+    return (offset < length) ? (buffer.get(offset++) & 0xff) : -1;
+  }
+
+  @Override
+  protected String readString(final int n) throws IOException {
+    if (n == 0) return EMPTY_STRING;
+
+    if (n > strBuf.length) strBuf = new byte[n];
+    readNBytes(strBuf, 0, n);
+    return new String(strBuf, 0, n, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  protected ByteArraySlice readNBytes(final int n) throws IOException {
+    final byte[] buf = new byte[n];
+    readNBytes(buf, 0, n);
+    return new ByteArraySlice(buf);
+  }
+
+  @Override
+  protected ByteBuffer readBufferSlice(final int n) throws IOException {
+    if (n > length - offset) {
+      throw new IOException("invalid length:" + n + ", avail:" + (length - offset));
+    }
+
+    final ByteBuffer slice = buffer.slice(offset, n).asReadOnlyBuffer();
+    offset += n;
+    return slice;
+  }
+
+  @Override
+  protected void readNBytes(final byte[] buf, final int off, final int len) throws IOException {
+    if (len > length - offset) {
+      throw new IOException("invalid length:" + len + ", avail:" + (length - offset));
+    }
+
+    buffer.get(offset, buf, off, len);
+    offset += len;
+  }
+
+  @Override
+  protected long readFixed(final int width) throws IOException {
+    readNBytes(buf8, 0, width);
+    return readFixed(buf8, 0, width);
+  }
+
+  @Override
+  protected int readFixedInt(final int width) throws IOException {
+    readNBytes(buf8, 0, width);
+    return readFixedInt(buf8, 0, width);
+  }
+
+  @Override
+  protected void skipNBytes(final int n) throws IOException {
+    if (n > length - offset) {
+      throw new IOException("invalid length:" + n + ", avail:" + (length - offset));
+    }
+    offset += n;
+  }
+}
@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+
+/**
+ * Reader used by the non-blocking parser.
+ * The bytes are pushed by the user with feedInput() and accumulated in an internal buffer.
+ * Before decoding a token the parser checks with hasValue()/hasFieldName() that the
+ * whole token is available, so the decode methods are never called on partial data.
+ * Unlike feeders of the JSON parser, feedInput() can be called with undecoded bytes
+ * still in the buffer (e.g. the first half of a string), they will be kept.
+ */
+final class YajbeReaderFeeder extends YajbeReader implements ByteArrayFeeder, ByteBufferFeeder {
+  private static final String EMPTY_STRING = "";
+
+  private byte[] buffer = new byte[256];
+  private int offset = 0;
+  private int length = 0;
+  // the bytes dropped from the buffer, consumed before offset 0
+  private long compacted = 0;
+
+  private boolean needMoreInput = true;
+  private boolean endOfInput = false;
+
+  // ====================================================================================================
+  //  Feeder related
+  // ====================================================================================================
+  @Override
+  public void feedInput(final byte[] data, final int start, final int end) throws IOException {
+    if (endOfInput) throw new IOException("already closed, can not feed more input");
+    if (end < start) throw new IOException("input end (" + end + ") may not be before start (" + start + ")");
+
+    final int len = end - start;
+    ensureAvailable(len);
+    System.arraycopy(data, start, buffer, length, len);
+    length += len;
+    needMoreInput = false;
+  }
+
+  @Override
+  public void feedInput(final ByteBuffer data) throws IOException {
+    if (endOfInput) throw new IOException("already closed, can not feed more input");
+
+    final int len = data.remaining();
+    ensureAvailable(len);
+    data.get(buffer, length, len);
+    length += len;
+    needMoreInput = false;
+  }
+
+  @Override
+  public boolean needMoreInput() {
+    return !endOfInput && (needMoreInput || offset == length);
+  }
+
+  @Override
+  public void endOfInput() {
+    endOfInput = true;
+  }
+
+  boolean isEndOfInput() {
+    return endOfInput;
+  }
+
+  void setNeedMoreInput() {
+    needMoreInput = true;
+  }
+
+  @Override
+  long inputOffset() {
+    return compacted + offset;
+  }
+
+  int available() {
+    return length - offset;
+  }
+
+  private void ensureAvailable(final int len) {
+    if ((buffer.length - length) >= len) return;
+
+    // drop the consumed bytes, and grow only if the pending ones plus the new ones don't fit
+    final int pending = length - offset;
+    if ((pending + len) > buffer.length) {
+      final byte[] newBuffer = new byte[Math.max(buffer.length << 1, pending + len)];
+      System.arraycopy(buffer, offset, newBuffer, 0, pending);
+      buffer = newBuffer;
+    } else {
+      System.arraycopy(buffer, offset, buffer, 0, pending);
+    }
+    compacted += offset;
+    offset = 0;
+    length = pending;
+  }
+
+  // ====================================================================================================
+  //  Availability checks (no side effects on the read offset)
+  // ====================================================================================================
+  private int peekAt(final int at) {
+    return buffer[offset + at] & 0xff;
+  }
+
+  boolean hasByte(final int at) {
+    return (offset + at) < length;
+  }
+
+  /**
+   * @return true if the value (or container header) starting at offset+at is fully available
+   */
+  boolean hasValue(final int at) {
+    final int avail = available() - at;
+    if (avail < 1) return false;
+
+    final int head = peekAt(at);
+    if ((head & 0b11_000000) == 0b11_000000 || (head & 0b10_000000) == 0b10_000000) {
+      // string or bytes
+      final int w = head & 0b111111;
+      if (w <= 59) return avail > w;
+      final int nbytes = w - 59;
+      if (avail <= nbytes) return false;
+      final long len = 59 + (readFixedInt(buffer, offset + at + 1, nbytes) & 0xffffffffL);
+      return avail >= (1 + nbytes + len);
+    } else if ((head & 0b010_00000) == 0b010_00000) {
+      // int
+      final int w = head & 0b11111;
+      return w < 24 || avail > (w - 23);
+    } else if ((head & 0b0010_0000) == 0b0010_0000) {
+      // array/object header
+      final int w = head & 0b1111;
+      return w <= 10 || w == 0b1111 || avail > (w - 10);
+    } else if ((head & 0b0001_0000) == 0b0001_0000) {
+      // typed array header (head + item count), the items are checked one by one
+      if (avail < 2) return false;
+      final int w = peekAt(at + 1) & 0b11111;
+      return w < 24 || avail > (1 + w - 23);
+    }
+
+    return switch (head) {
+      case 0b00000100 -> avail >= 3;
+      case 0b00000101 -> avail >= 5;
+      case 0b00000110 -> avail >= 9;
+      case 0b00000111 -> hasBigDecimal(at, avail);
+      case 0b00001000 -> {
+        // enum config and dictionary are always followed by a value
+        if (avail < 2) yield false;
+        yield hasValue(at + configLength(peekAt(at + 1)));
+      }
+      case 0b00001001 -> avail >= 2;
+      case 0b00001010 -> avail >= 3;
+      case 0b00001011 -> hasValue(at + 1); // enum index marker, followed by the string
+      default -> true; // null, true, false, or invalid heads that will be reported by the parser
+    };
+  }
+
+  private boolean hasBigDecimal(final int at, final int avail) {
+    if (avail < 2) return false;
+    final int head = peekAt(at + 1);
+    final int scaleBytes = 1 + ((head >> 5) & 3);
+    final int precisionBytes = 1 + ((head >> 3) & 3);
+    final int vDataBytes = 1 + (head & 3);
+    final int headerLength = 2 + scaleBytes + precisionBytes + vDataBytes;
+    if (avail < headerLength) return false;
+
+    final long vDataLength = readFixedInt(buffer, offset + at + headerLength - vDataBytes, vDataBytes) & 0xffffffffL;
+    return avail >= (headerLength + vDataLength);
+  }
+
+  /**
+   * @return true if the field name starting at offset+at is fully available
+   */
+  boolean hasFieldName(final int at) {
+    final int avail = available() - at;
+    if (avail < 1) return false;
+
+    final int head = peekAt(at);
+    int headerLength = 1;
+    int length = head & 0b000_11111;
+    if (length == 30) {
+      if (avail < 2) return false;
+      length = peekAt(at + 1) + 29;
+      headerLength = 2;
+    } else if (length == 31) {
+      if (avail < 3) return false;
+      length = 284 + 256 * peekAt(at + 1) + peekAt(at + 2);
+      headerLength = 3;
+    }
+
+    return switch ((head >> 5) & 0b111) {
+      case 0b100 -> avail >= (headerLength + length);
+      case 0b101 -> avail >= headerLength;
+      case 0b110 -> avail >= (headerLength + 1 + length);
+      case 0b111 -> avail >= (headerLength + 2 + length);
+      default -> true; // invalid head, reported by the field name reader
+    };
+  }
+
+  // ====================================================================================================
+  //  Read related
+  // ====================================================================================================
+  @Override
+  protected int peek() {
+    return (offset < length) ? (buffer[offset] & 0xff) : -1;
+  }
+
+  @Override
+  protected int read() {
+    return (offset < length) ? (buffer[offset++] & 0xff) : -1;
+  }
+
+  @Override
+  protected String readString(final int n) throws IOException {
+    if (n == 0) return EMPTY_STRING;
+
+    checkAvailable(n);
+    final String r = new String(buffer, offset, n, StandardCharsets.UTF_8);
+    offset += n;
+    return r;
+  }
+
+  @Override
+  protected ByteArraySlice readNBytes(final int n) throws IOException {
+    // the buffer is compacted on feedInput(), so the slice must be a copy
+    checkAvailable(n);
+    final byte[] data = Arrays.copyOfRange(buffer, offset, offset + n);
+    offset += n;
+    return new ByteArraySlice(data);
+  }
+
+  @Override
+  protected void readNBytes(final byte[] buf, final int off, final int len) throws IOException {
+    checkAvailable(len);
+    System.arraycopy(buffer, offset, buf, off, len);
+    offset += len;
+  }
+
+  @Override
+  protected long readFixed(final int width) throws IOException {
+    checkAvailable(width);
+    final int off = this.offset;
+    this.offset += width;
+    return readFixed(buffer, off, width);
+  }
+
+  @Override
+  protected int readFixedInt(final int width) throws IOException {
+    checkAvailable(width);
+    final int off = this.offset;
+    this.offset += width;
+    return readFixedInt(buffer, off, width);
+  }
+
+  @Override
+  protected void skipNBytes(final int n) throws IOException {
+    checkAvailable(n);
+    offset += n;
+  }
+
+  private void checkAvailable(final int n) throws IOException {
+    if ((length - offset) < n) {
+      throw new IOException("invalid length:" + n + ", avail:" + (length - offset));
+    }
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader on top of a memory-mapped file.
+ * The file is mapped in chunks, since a single MappedByteBuffer is limited to 2GiB,
+ * and the offsets are 64bit so files larger than the heap (or 2GiB) can be decoded.
+ */
+final class YajbeReaderMappedFile extends YajbeReader {
+  private static final int DEFAULT_CHUNK_SHIFT = 30; // 1GiB
+  private static final String EMPTY_STRING = "";
+
+  private final byte[] buf8 = new byte[8];
+  private final MappedByteBuffer[] chunks;
+  private final int chunkShift;
+  private final long length;
+
+  private MappedByteBuffer chunk;
+  private int chunkIndex;
+  private int chunkOffset;
+  private int chunkLimit;
+
+  private byte[] strBuf = new byte[64];
+
+  YajbeReaderMappedFile(final MappedByteBuffer[] chunks, final int chunkShift, final long length) {
+    this.chunks = chunks;
+    this.chunkShift = chunkShift;
+    this.length = length;
+    this.chunkIndex = -1;
+    this.chunkOffset = 0;
+    this.chunkLimit = 0;
+  }
+
+  public static YajbeReaderMappedFile open(final File file) throws IOException {
+    return open(file, DEFAULT_CHUNK_SHIFT);
+  }
+
+  static YajbeReaderMappedFile open(final File file, final int chunkShift) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      final long length = channel.size();
+      final long chunkSize = 1L << chunkShift;
+      final MappedByteBuffer[] chunks = new MappedByteBuffer[Math.toIntExact((length + chunkSize - 1) >>> chunkShift)];
+      for (int i = 0; i < chunks.length; ++i) {
+        final long offset = (long)i << chunkShift;
+        chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(chunkSize, length - offset));
+      }
+      // the mapping remains valid after the channel is closed
+      return new YajbeReaderMappedFile(chunks, chunkShift, length);
+    }
+  }
+
+  YajbeReaderMappedFile duplicate() {
+    return new YajbeReaderMappedFile(chunks, chunkShift, length);
+  }
+
+  @Override
+  long inputOffset() {
+    return position();
+  }
+
+  @Override
+  long position() {
+    return chunkIndex < 0 ? 0 : ((long)chunkIndex << chunkShift) + chunkOffset;
+  }
+
+  @Override
+  void seek(final long position) {
+    if (chunks.length == 0) return;
+
+    int index = (int) (position >>> chunkShift);
+    int offset = (int) (position & ((1L << chunkShift) - 1));
+    if (index == chunks.length) {
+      // end of the last chunk
+      index--;
+      offset = chunks[index].limit();
+    }
+
+    this.chunkIndex = index;
+    this.chunk = chunks[index];
+    this.chunkOffset = offset;
+    this.chunkLimit = chunk.limit();
+  }
+
+  private boolean nextChunk() {
+    if ((chunkIndex + 1) >= chunks.length) return false;
+
+    chunk = chunks[++chunkIndex];
+    chunkOffset = 0;
+    chunkLimit = chunk.limit();
+    return true;
+  }
+
+  @Override
+  protected int peek() {
+    if (chunkOffset == chunkLimit && !nextChunk()) return -1;
+    return chunk.get(chunkOffset) & 0xff;
+  }
+
+  @Override
+  protected int read() {
+    if (chunkOffset == chunkLimit && !nextChunk()) return -1;
+    return chunk.get(chunkOffset++) & 0xff;
+  }
+
+  @Override
+  protected String readString(final int n) throws IOException {
+    if (n == 0) return EMPTY_STRING;
+
+    if (n <= (chunkLimit - chunkOffset)) {
+      if (n > strBuf.length) strBuf = new byte[n];
+      chunk.get(chunkOffset, strBuf, 0, n);
+      chunkOffset += n;
+      return new String(strBuf, 0, n, StandardCharsets.UTF_8);
+    }
+
+    final byte[] buf = new byte[n];
+    readNBytes(buf, 0, n);
+    return new String(buf, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  protected ByteBuffer readBufferSlice(final int n) throws IOException {
+    checkAvailable(n);
+    if (chunkOffset == chunkLimit) nextChunk();
+
+    // values crossing a chunk boundary are copied by readNBytes()
+    if (n > chunkLimit - chunkOffset) return null;
+
+    // the chunks are mapped READ_ONLY, the slice is read-only too
+    final ByteBuffer slice = chunk.slice(chunkOffset, n);
+    chunkOffset += n;
+    return slice;
+  }
+
+  @Override
+  protected ByteArraySlice readNBytes(final int n) throws IOException {
+    checkAvailable(n);
+    final byte[] buf = new byte[n];
+    readNBytes(buf, 0, n);
+    return new ByteArraySlice(buf);
+  }
+
+  @Override
+  protected void readNBytes(final byte[] buf, int off, int len) throws IOException {
+    checkAvailable(len);
+
+    while (len > 0) {
+      if (chunkOffset == chunkLimit) nextChunk();
+
+      final int n = Math.min(len, chunkLimit - chunkOffset);
+      chunk.get(chunkOffset, buf, off, n);
+      chunkOffset += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  @Override
+  protected long readFixed(final int width) throws IOException {
+    readNBytes(buf8, 0, width);
+    return readFixed(buf8, 0, width);
+  }
+
+  @Override
+  protected int readFixedInt(final int width) throws IOException {
+    readNBytes(buf8, 0, width);
+    return readFixedInt(buf8, 0, width);
+  }
+
+  @Override
+  protected void skipNBytes(int n) throws IOException {
+    checkAvailable(n);
+
+    while (n > 0) {
+      if (chunkOffset == chunkLimit) nextChunk();
+
+      final int step = Math.min(n, chunkLimit - chunkOffset);
+      chunkOffset += step;
+      n -= step;
+    }
+  }
+
+  private void checkAvailable(final int n) throws IOException {
+    if (n > length - position()) {
+      throw new IOException("invalid length:" + n + ", avail:" + (length - position()));
+    }
+  }
+}
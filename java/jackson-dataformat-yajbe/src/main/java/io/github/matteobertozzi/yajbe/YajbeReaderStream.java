@@ -29,6 +29,7 @@ final class YajbeReaderStream extends YajbeReader {
 
   private final byte[] buf8 = new byte[8];
   private final InputStream stream;
+  private long consumed;
 
   public YajbeReaderStream(final InputStream in) {
     if (in instanceof final ByteArrayInputStream bytesIn) {
@@ -40,6 +41,11 @@ final class YajbeReaderStream extends YajbeReader {
     }
   }
 
+  @Override
+  long inputOffset() {
+    return consumed;
+  }
+
   @Override
   protected int peek() throws IOException {
     stream.mark(1);
@@ -50,13 +56,16 @@ final class YajbeReaderStream extends YajbeReader {
 
   @Override
   protected int read() throws IOException {
-    return stream.read();
+    final int b = stream.read();
+    if (b >= 0) consumed++;
+    return b;
   }
 
   @Override
   protected String readString(final int n) throws IOException {
     if (n == 0) return EMPTY_STRING;
     final byte[] buf = stream.readNBytes(n);
+    consumed += buf.length;
     return new String(buf, StandardCharsets.UTF_8);
   }
 
@@ -64,6 +73,7 @@ final class YajbeReaderStream extends YajbeReader {
   protected ByteArraySlice readNBytes(final int n) throws IOException {
     if (n == 0) return EMPTY_BYTES;
     final byte[] buf = stream.readNBytes(n);
+    consumed += buf.length;
     return new ByteArraySlice(buf);
   }
 
@@ -72,6 +82,7 @@ final class YajbeReaderStream extends YajbeReader {
     if (stream.readNBytes(buf, off, len) != len) {
       throw new IOException("unable to read " + len + " bytes from the stream");
     }
+    consumed += len;
   }
 
   @Override
@@ -85,4 +96,10 @@ final class YajbeReaderStream extends YajbeReader {
     readNBytes(buf8, 0, width);
     return readFixedInt(buf8, 0, width);
   }
+
+  @Override
+  protected void skipNBytes(final int n) throws IOException {
+    stream.skipNBytes(n);
+    consumed += n;
+  }
 }
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.matteobertozzi.yajbe;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import com.fasterxml.jackson.core.util.RecyclerPool;
+
+/**
+ * The per-stream state of the parsers and generators (field names, nesting stack, enum mapping)
+ * reset and reused by the next parser or generator, instead of being allocated on every call.
+ * It is acquired from the {@link YajbeFactory} pool when the parser/generator is created,
+ * and released to the pool on close(). A parser or generator that is not closed is just not recycled.
+ * The pool is not used if {@link YajbeFactoryFeature#RECYCLE_STATE} is disabled.
+ */
+final class YajbeRecycler implements RecyclerPool.WithPool<YajbeRecycler> {
+  // the state of large documents is dropped, a few huge documents should not pin their memory in the pool
+  private static final int MAX_RECYCLED_NAMES = 4096;
+  private static final int MAX_RECYCLED_DEPTH = 256;
+  private static final int MAX_RECYCLED_ENUMS = 4096;
+
+  private RecyclerPool<YajbeRecycler> pool;
+
+  private YajbeFieldNameReader fieldNameReader;
+  private YajbeFieldNameWriter fieldNameWriter;
+  private YajbeEnumLruMapping enumMapping;
+  // the parser stack arrays have the same length, they grow together
+  private long[] parserStack;
+  private int[] parserStackCounts;
+  private String[] parserStackNames;
+  private Object[] parserStackValues;
+  private boolean[] generatorStack;
+
+  /**
+   * Lock-free pool (a ConcurrentLinkedDeque), safe with virtual threads.
+   * The pool is unbounded, but it holds at most one instance per concurrent parser/generator.
+   */
+  static final class Pool extends RecyclerPool.ConcurrentDequePoolBase<YajbeRecycler> {
+    private static final long serialVersionUID = 1L;
+
+    Pool() {
+      super(SERIALIZATION_NON_SHARED);
+    }
+
+    @Override
+    public YajbeRecycler createPooled() {
+      return new YajbeRecycler();
+    }
+  }
+
+  @Override
+  public YajbeRecycler withPool(final RecyclerPool<YajbeRecycler> pool) {
+    if (this.pool != null) {
+      throw new IllegalStateException("YajbeRecycler already linked to pool: " + pool);
+    }
+    this.pool = Objects.requireNonNull(pool);
+    return this;
+  }
+
+  @Override
+  public void releaseToPool() {
+    if (pool != null) {
+      final RecyclerPool<YajbeRecycler> tmpPool = pool;
+      pool = null;
+      tmpPool.releasePooled(this);
+    }
+  }
+
+  // ====================================================================================================
+  //  Parser related
+  // ====================================================================================================
+  YajbeFieldNameReader fieldNameReader(final YajbeReader reader, final YajbeFieldNameCanonicalizer canonicalizer) {
+    final YajbeFieldNameReader names = fieldNameReader;
+    if (names == null) return new YajbeFieldNameReader(reader, canonicalizer);
+
+    fieldNameReader = null;
+    names.reset(reader, canonicalizer);
+    return names;
+  }
+
+  long[] parserStack() {
+    final long[] stack = parserStack;
+    if (stack == null) return new long[32];
+
+    parserStack = null;
+    return stack;
+  }
+
+  int[] parserStackCounts(final int length) {
+    final int[] counts = parserStackCounts;
+    if (counts == null || counts.length != length) return new int[length];
+
+    parserStackCounts = null;
+    return counts;
+  }
+
+  String[] parserStackNames(final int length) {
+    final String[] names = parserStackNames;
+    if (names == null || names.length != length) return new String[length];
+
+    parserStackNames = null;
+    return names;
+  }
+
+  /** @return the current values array of a previous parser, or null (the parser allocates it on the first use) */
+  Object[] parserStackValues() {
+    final Object[] values = parserStackValues;
+    parserStackValues = null;
+    return values;
+  }
+
+  void release(final YajbeFieldNameReader names, final long[] stack, final int[] stackCounts,
+      final String[] stackNames, final Object[] stackValues) {
+    if (names.indexedCount() <= MAX_RECYCLED_NAMES) {
+      names.clear();
+      fieldNameReader = names;
+    }
+    if (stack.length <= MAX_RECYCLED_DEPTH) {
+      // the names and the values are references to the previous document
+      Arrays.fill(stackNames, null);
+      parserStack = stack;
+      parserStackCounts = stackCounts;
+      parserStackNames = stackNames;
+    }
+    if (stackValues != null && stackValues.length <= MAX_RECYCLED_DEPTH) {
+      Arrays.fill(stackValues, null);
+      parserStackValues = stackValues;
+    }
+  }
+
+  // ====================================================================================================
+  //  Generator related
+  // ====================================================================================================
+  YajbeFieldNameWriter fieldNameWriter(final YajbeWriter stream) {
+    final YajbeFieldNameWriter names = fieldNameWriter;
+    if (names == null) return new YajbeFieldNameWriter(stream);
+
+    fieldNameWriter = null;
+    names.reset(stream);
+    return names;
+  }
+
+  boolean[] generatorStack() {
+    final boolean[] stack = generatorStack;
+    if (stack == null) return new boolean[32];
+
+    generatorStack = null;
+    return stack;
+  }
+
+  void release(final YajbeFieldNameWriter names, final boolean[] stack) {
+    if (names.indexedCount() <= MAX_RECYCLED_NAMES) {
+      names.clear();
+      fieldNameWriter = names;
+    }
+    if (stack.length <= MAX_RECYCLED_DEPTH) {
+      generatorStack = stack;
+    }
+  }
+
+  // ====================================================================================================
+  //  Enum related (shared by parsers and generators, the lru configuration must match)
+  // ====================================================================================================
+  YajbeEnumLruMapping enumMapping(final int lruSize, final int minFreq) {
+    final YajbeEnumLruMapping mapping = enumMapping;
+    if (mapping == null || mapping.lruSize() != lruSize || mapping.minFreq() != minFreq) {
+      return new YajbeEnumLruMapping(lruSize, minFreq);
+    }
+
+    enumMapping = null;
+    return mapping;
+  }
+
+  void release(final YajbeEnumMapping mapping) {
+    if (mapping instanceof final YajbeEnumLruMapping lruMapping && lruMapping.size() <= MAX_RECYCLED_ENUMS) {
+      lruMapping.clear();
+      enumMapping = lruMapping;
+    }
+  }
+}
@@ -0,0 +1,395 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.github.matteobertozzi.yajbe.YajbeReader.ByteArraySlice;
+
+/**
+ * A value of a {@link YajbeDocument}.
+ * Scalars are decoded on each call, containers scan their children on the first access
+ * and keep the offsets, so a second lookup is a direct seek.
+ */
+public final class YajbeValue {
+  private static final ByteArraySlice[] EMPTY_KEYS = new ByteArraySlice[0];
+  private static final long[] EMPTY_OFFSETS = new long[0];
+
+  private final YajbeDocument doc;
+  private final long offset;
+  // the last field name before this value, used to resolve the prefix compressed names
+  private final ByteArraySlice lastKey;
+  // the head of the typed array, if the value is a typed array item (the items have no head)
+  private final int itemHead;
+  private int head = -1;
+
+  // children, filled on the first access of a container
+  private long[] childOffsets;
+  private ByteArraySlice[] childLastKeys;
+  private ByteArraySlice[] childKeys;
+  private YajbeValue[] children;
+  private int childItemHead;
+
+  YajbeValue(final YajbeDocument doc, final long offset, final ByteArraySlice lastKey) {
+    this(doc, offset, lastKey, 0);
+  }
+
+  private YajbeValue(final YajbeDocument doc, final long offset, final ByteArraySlice lastKey, final int itemHead) {
+    this.doc = doc;
+    this.offset = offset;
+    this.lastKey = lastKey;
+    this.itemHead = itemHead;
+  }
+
+  // ====================================================================================================
+  //  Type related
+  // ====================================================================================================
+  private int head() throws IOException {
+    if (head < 0) head = (itemHead != 0) ? itemHead : doc.seekValue(offset);
+    return head;
+  }
+
+  public boolean isNull() throws IOException {
+    return head() == 0;
+  }
+
+  public boolean isBoolean() throws IOException {
+    final int h = head();
+    return h == 0b00000010 || h == 0b00000011;
+  }
+
+  public boolean isNumber() throws IOException {
+    final int h = head();
+    return itemHead != 0 || (h & 0b110_00000) == 0b010_00000 || (h >= 0b00000100 && h <= 0b00000111);
+  }
+
+  public boolean isString() throws IOException {
+    final int h = head();
+    return (h & 0b11_000000) == 0b11_000000 || (h >= 0b00001001 && h <= 0b00001011);
+  }
+
+  public boolean isBytes() throws IOException {
+    return (head() & 0b11_000000) == 0b10_000000;
+  }
+
+  public boolean isArray() throws IOException {
+    final int h = head();
+    return (h & 0b1111_0000) == 0b0010_0000 || (itemHead == 0 && YajbeReader.isTypedArray(h));
+  }
+
+  public boolean isObject() throws IOException {
+    return (head() & 0b1111_0000) == 0b0011_0000;
+  }
+
+  // ====================================================================================================
+  //  Container related
+  // ====================================================================================================
+  /**
+   * @return the number of items of an array or the number of fields of an object, 0 for scalars
+   */
+  public int size() throws IOException {
+    if (!isArray() && !isObject()) return 0;
+    loadChildren();
+    return childOffsets.length;
+  }
+
+  /**
+   * @param index the index of the array element
+   * @return the element at the specified index, or null if the value is not an array or the index is out of range
+   */
+  public YajbeValue get(final int index) throws IOException {
+    if (!isArray()) return null;
+    loadChildren();
+    return (index >= 0 && index < childOffsets.length) ? child(index) : null;
+  }
+
+  /**
+   * @param fieldName the name of the object field
+   * @return the value of the field, or null if the value is not an object or the field is missing
+   */
+  public YajbeValue get(final String fieldName) throws IOException {
+    if (!isObject()) return null;
+    loadChildren();
+
+    final byte[] utf8 = fieldName.getBytes(StandardCharsets.UTF_8);
+    for (int i = 0; i < childKeys.length; ++i) {
+      final ByteArraySlice key = childKeys[i];
+      if (Arrays.equals(utf8, 0, utf8.length, key.buf(), key.off(), key.off() + key.len())) {
+        return child(i);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the field names of an object, in the encoded order. an empty list for the other types
+   */
+  public List<String> fieldNames() throws IOException {
+    if (!isObject()) return List.of();
+    loadChildren();
+
+    final ArrayList<String> names = new ArrayList<>(childKeys.length);
+    for (final ByteArraySlice key: childKeys) {
+      names.add(key.toString(StandardCharsets.UTF_8));
+    }
+    return names;
+  }
+
+  private YajbeValue child(final int index) {
+    YajbeValue value = children[index];
+    if (value == null) {
+      value = new YajbeValue(doc, childOffsets[index], childLastKeys[index], childItemHead);
+      children[index] = value;
+    }
+    return value;
+  }
+
+  private void loadChildren() throws IOException {
+    if (childOffsets != null) return;
+
+    final YajbeReader reader = doc.reader();
+    final int h = doc.seekValue(offset);
+    if (YajbeReader.isTypedArray(h)) {
+      loadTypedItems(reader, h);
+      return;
+    }
+
+    final boolean isObject = (h & 0b1111_0000) == 0b0011_0000;
+    final boolean isEof = (h & 0b1111) == 0b1111;
+    int count = isEof ? 0 : reader.readItemCount(h);
+    if (!isEof && count == 0) {
+      childOffsets = EMPTY_OFFSETS;
+      childLastKeys = EMPTY_KEYS;
+      childKeys = EMPTY_KEYS;
+      children = new YajbeValue[0];
+      return;
+    }
+
+    long[] offsets = new long[isEof ? 8 : count];
+    ByteArraySlice[] lastKeys = new ByteArraySlice[offsets.length];
+    ByteArraySlice key = this.lastKey;
+    int size = 0;
+    while (isEof ? reader.peek() != 1 : count-- > 0) {
+      if (size == offsets.length) {
+        offsets = Arrays.copyOf(offsets, size << 1);
+        lastKeys = Arrays.copyOf(lastKeys, size << 1);
+      }
+      if (isObject) key = doc.readFieldName(key);
+      offsets[size] = reader.position();
+      lastKeys[size++] = key;
+      key = doc.skipValue(key);
+    }
+
+    this.childOffsets = size == offsets.length ? offsets : Arrays.copyOf(offsets, size);
+    this.childLastKeys = size == lastKeys.length ? lastKeys : Arrays.copyOf(lastKeys, size);
+    this.childKeys = isObject ? childLastKeys : EMPTY_KEYS;
+    this.children = new YajbeValue[size];
+  }
+
+  private void loadTypedItems(final YajbeReader reader, final int h) throws IOException {
+    final int count = reader.readTypedArrayLength();
+    final int width = YajbeReader.typedItemWidth(h);
+    final long itemsOffset = reader.position();
+    final long[] offsets = new long[count];
+    for (int i = 0; i < count; ++i) {
+      offsets[i] = itemsOffset + ((long) i * width);
+    }
+
+    final ByteArraySlice[] lastKeys = new ByteArraySlice[count];
+    Arrays.fill(lastKeys, lastKey);
+    this.childOffsets = offsets;
+    this.childLastKeys = lastKeys;
+    this.childKeys = EMPTY_KEYS;
+    this.children = new YajbeValue[count];
+    this.childItemHead = h;
+  }
+
+  // ====================================================================================================
+  //  Scalar related
+  // ====================================================================================================
+  public boolean asBoolean() throws IOException {
+    return switch (head()) {
+      case 0b00000011 -> true;
+      case 0b00000010 -> false;
+      default -> throw typeMismatch("boolean", head);
+    };
+  }
+
+  // the numbers with a fractional part or out of range are not truncated, an IOException is thrown
+  public int asInt() throws IOException {
+    final YajbeReader reader = decodeNumber();
+    try {
+      return switch (reader.numberType()) {
+        case INT -> reader.intValue();
+        case LONG -> Math.toIntExact(reader.longValue());
+        case FLOAT -> intValueExact(reader.floatValue());
+        case DOUBLE -> intValueExact(reader.doubleValue());
+        case BIG_INTEGER -> reader.bigInteger().intValueExact();
+        case BIG_DECIMAL -> reader.bigDecimal().intValueExact();
+      };
+    } catch (final ArithmeticException e) {
+      throw numberNotExact("int", e);
+    }
+  }
+
+  public long asLong() throws IOException {
+    final YajbeReader reader = decodeNumber();
+    try {
+      return switch (reader.numberType()) {
+        case INT -> reader.intValue();
+        case LONG -> reader.longValue();
+        case FLOAT -> longValueExact(reader.floatValue());
+        case DOUBLE -> longValueExact(reader.doubleValue());
+        case BIG_INTEGER -> reader.bigInteger().longValueExact();
+        case BIG_DECIMAL -> reader.bigDecimal().longValueExact();
+      };
+    } catch (final ArithmeticException e) {
+      throw numberNotExact("long", e);
+    }
+  }
+
+  private static int intValueExact(final double value) {
+    // NaN, the fractional values and the out of range values (clamped by the cast) are not equal
+    final int intValue = (int) value;
+    if (intValue != value) throw new ArithmeticException(value + " is not an int");
+    return intValue;
+  }
+
+  private static long longValueExact(final double value) {
+    // 2^63 is clamped to Long.MAX_VALUE that is rounded back to 2^63, so the range is checked
+    if (!(value >= -0x1p63 && value < 0x1p63) || (long) value != value) {
+      throw new ArithmeticException(value + " is not a long");
+    }
+    return (long) value;
+  }
+
+  public double asDouble() throws IOException {
+    final YajbeReader reader = decodeNumber();
+    return switch (reader.numberType()) {
+      case INT -> reader.intValue();
+      case LONG -> reader.longValue();
+      case FLOAT -> reader.floatValue();
+      case DOUBLE -> reader.doubleValue();
+      case BIG_INTEGER -> reader.bigInteger().doubleValue();
+      case BIG_DECIMAL -> reader.bigDecimal().doubleValue();
+    };
+  }
+
+  public BigDecimal asBigDecimal() throws IOException {
+    final YajbeReader reader = decodeNumber();
+    return switch (reader.numberType()) {
+      case INT -> BigDecimal.valueOf(reader.intValue());
+      case LONG -> BigDecimal.valueOf(reader.longValue());
+      case FLOAT -> BigDecimal.valueOf(reader.floatValue());
+      case DOUBLE -> BigDecimal.valueOf(reader.doubleValue());
+      case BIG_INTEGER -> new BigDecimal(reader.bigInteger());
+      case BIG_DECIMAL -> reader.bigDecimal();
+    };
+  }
+
+  public BigInteger asBigInteger() throws IOException {
+    return asBigDecimal().toBigInteger();
+  }
+
+  public String asString() throws IOException {
+    if (itemHead != 0) throw typeMismatch("string", itemHead);
+
+    final YajbeReader reader = doc.reader();
+    final int h = doc.seekValue(offset);
+    if ((h & 0b11_000000) == 0b11_000000) {
+      if ((h & 0b111111) <= 59) reader.decodeSmallString(h); else reader.decodeString(h);
+      return reader.stringValue();
+    }
+    return switch (h) {
+      case 0b00001001 -> doc.enumString(reader.read());
+      case 0b00001010 -> doc.enumString(reader.readFixedInt(2));
+      case 0b00001011 -> {
+        // marked string, the string follows the marker
+        final int sh = reader.read();
+        if ((sh & 0b111111) <= 59) reader.decodeSmallString(sh); else reader.decodeString(sh);
+        yield reader.stringValue();
+      }
+      default -> throw typeMismatch("string", h);
+    };
+  }
+
+  public byte[] asBytes() throws IOException {
+    return decodeBytes().bytesCopy();
+  }
+
+  /**
+   * @return the bytes value as a read-only buffer sharing the document data (no copy).
+   *         the buffer is valid as long as the document data is
+   */
+  public ByteBuffer asByteBuffer() throws IOException {
+    return decodeBytes().bytesBuffer();
+  }
+
+  private YajbeReader decodeBytes() throws IOException {
+    if (itemHead != 0) throw typeMismatch("bytes", itemHead);
+
+    final YajbeReader reader = doc.reader();
+    final int h = doc.seekValue(offset);
+    if ((h & 0b11_000000) != 0b10_000000) throw typeMismatch("bytes", h);
+
+    if ((h & 0b111111) <= 59) reader.decodeSmallBytes(h); else reader.decodeBytes(h);
+    return reader;
+  }
+
+  private YajbeReader decodeNumber() throws IOException {
+    final YajbeReader reader = doc.reader();
+    if (itemHead != 0) {
+      reader.seek(offset);
+      reader.decodeTypedItem(itemHead);
+      return reader;
+    }
+
+    final int h = doc.seekValue(offset);
+    switch ((h >> 5) & 0b111) {
+      case 0b010:
+        if ((h & 0b11111) < 24) reader.decodeSmallInt(h); else reader.decodeIntPositive(h);
+        return reader;
+      case 0b011:
+        if ((h & 0b11111) < 24) reader.decodeSmallInt(h); else reader.decodeIntNegative(h);
+        return reader;
+    }
+    switch (h) {
+      case 0b00000100 -> reader.decodeFloat16();
+      case 0b00000101 -> reader.decodeFloat32();
+      case 0b00000110 -> reader.decodeFloat64();
+      case 0b00000111 -> reader.decodeBigDecimal();
+      default -> throw typeMismatch("number", h);
+    }
+    return reader;
+  }
+
+  private static IOException numberNotExact(final String expected, final ArithmeticException cause) {
+    return new IOException("number not representable as " + expected + ": " + cause.getMessage(), cause);
+  }
+
+  private static IllegalStateException typeMismatch(final String expected, final int head) {
+    return new IllegalStateException("expected " + expected + ", got head " + Integer.toBinaryString(head));
+  }
+}
@@ -18,13 +18,17 @@
 package io.github.matteobertozzi.yajbe;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.function.IntToDoubleFunction;
 
 import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumLruMappingConfig;
 import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumMappingConfig;
+import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumTinyLfuMappingConfig;
 
 abstract class YajbeWriter {
   @FunctionalInterface
@@ -45,6 +49,14 @@ abstract class YajbeWriter {
     return new YajbeWriterStream(stream, buffer);
   }
 
+  public static YajbeWriter forByteBuffer(final ByteBuffer target, final byte[] buffer) {
+    return YajbeWriterByteBuffer.forByteBuffer(target, buffer);
+  }
+
+  public static YajbeWriter forChannel(final WritableByteChannel channel, final byte[] buffer) {
+    return YajbeWriterByteBuffer.forChannel(channel, buffer);
+  }
+
   // =========================================================================================================
   @SuppressWarnings("fallthrough")
   public static void writeFixed(final byte[] buf, final int off, final long v, final int width) {
@@ -100,6 +112,84 @@ abstract class YajbeWriter {
     writeFixed(buf, bufOff + 1, Double.doubleToLongBits(v), 8);
   }
 
+  /**
+   * Write the smallest lossless encoding of the value: int, float16, float32 or float64.
+   * The value read back may be of a different type (e.g. 1.0 is read as an int) but not of a different value.
+   */
+  public final void writeCompactFloat(final double v) throws IOException {
+    final byte[] buf = rawBuffer();
+    final int bufOff = rawBufferOffset(9);
+    final int n = writeRawCompactFloat(buf, bufOff, v);
+    // rawBufferOffset() reserved the max size, give back what the value did not use
+    rawBufferFlush(bufOff + n, 0);
+  }
+
+  private static int writeRawCompactFloat(final byte[] buf, final int off, final double v) {
+    final int floatSize;
+    final float fv = (float) v;
+    final int f16 = (fv == v || Double.isNaN(v)) ? float16Bits(fv) : -1;
+    if (f16 >= 0) {
+      floatSize = 3;
+    } else if (fv == v) {
+      floatSize = 5;
+    } else {
+      floatSize = 9;
+    }
+
+    // integral values (but not -0.0) may be shorter as int, 1.0 is a single byte
+    if (v == Math.rint(v) && Math.abs(v) < 0x1p63 && Double.doubleToRawLongBits(v) != Long.MIN_VALUE) {
+      final int n = writeRawInt(buf, off, (long) v);
+      if (n < floatSize) return n;
+    }
+
+    switch (floatSize) {
+      case 3 -> {
+        buf[off] = 0b00000_100;
+        writeFixed(buf, off + 1, f16, 2);
+      }
+      case 5 -> {
+        buf[off] = 0b00000_101;
+        writeFixed(buf, off + 1, Float.floatToIntBits(fv), 4);
+      }
+      default -> {
+        buf[off] = 0b00000_110;
+        writeFixed(buf, off + 1, Double.doubleToLongBits(v), 8);
+      }
+    }
+    return floatSize;
+  }
+
+  /**
+   * @return the IEEE 754 binary16 bits of the value, or -1 if the value is not exactly representable as float16
+   */
+  static int float16Bits(final float v) {
+    final int bits = Float.floatToIntBits(v);
+    final int sign = (bits >>> 16) & 0x8000;
+    final int exp = (bits >>> 23) & 0xff;
+    final int mantissa = bits & 0x7fffff;
+
+    if (exp == 0xff) {
+      // infinity or (canonical) NaN
+      return sign | 0x7c00 | (mantissa != 0 ? 0x200 : 0);
+    }
+    if (exp == 0) {
+      // zero, float32 subnormals are too small for float16
+      return (mantissa == 0) ? sign : -1;
+    }
+
+    final int halfExp = exp - 127 + 15;
+    if (halfExp >= 0x1f) return -1;
+    if (halfExp > 0) {
+      return ((mantissa & 0x1fff) != 0) ? -1 : (sign | (halfExp << 10) | (mantissa >>> 13));
+    }
+
+    // float16 subnormal, the value in units of 2^-24
+    final int significand = 0x800000 | mantissa;
+    final int shift = 126 - exp;
+    if (shift > 24 || (significand & ((1 << shift) - 1)) != 0) return -1;
+    return sign | (significand >>> shift);
+  }
+
   public final void writeBigDecimal(final BigDecimal v) throws IOException {
     writeBigDecimal(v.scale(), v.precision(), v.unscaledValue());
   }
@@ -194,12 +284,25 @@ abstract class YajbeWriter {
       return;
     }
 
-    final int deltaLength = length - inlineMax;
-    final int bytes = ((32 - Integer.numberOfLeadingZeros(deltaLength)) + 7) >> 3;
+    final int width = lengthHeaderWidth(inlineMax, length);
     final byte[] buf = rawBuffer();
-    final int bufOff = rawBufferOffset(1 + bytes);
-    buf[bufOff] = (byte) (head | (inlineMax + bytes));
-    writeFixed(buf, bufOff + 1, deltaLength, bytes);
+    final int bufOff = rawBufferOffset(width);
+    writeLength(buf, bufOff, head, inlineMax, length, width);
+  }
+
+  private static int lengthHeaderWidth(final int inlineMax, final int length) {
+    if (length <= inlineMax) return 1;
+    return 1 + (((32 - Integer.numberOfLeadingZeros(length - inlineMax)) + 7) >> 3);
+  }
+
+  private static void writeLength(final byte[] buf, final int off, final int head, final int inlineMax,
+      final int length, final int width) {
+    if (width == 1) {
+      buf[off] = (byte) (head | length);
+      return;
+    }
+    buf[off] = (byte) (head | (inlineMax + width - 1));
+    writeFixed(buf, off + 1, length - inlineMax, width - 1);
   }
 
   // ====================================================================================================
@@ -210,6 +313,26 @@ abstract class YajbeWriter {
     write(buf, off, len);
   }
 
+  public final int writeBytes(final InputStream data, final int len) throws IOException {
+    if (len < 0) {
+      final byte[] buf = data.readAllBytes();
+      writeBytes(buf, 0, buf.length);
+      return buf.length;
+    }
+
+    writeLength(0b10_000000, 59, len);
+    final byte[] buf = rawBuffer();
+    int avail = len;
+    while (avail > 0) {
+      final int bufOff = rawBufferOffset();
+      final int n = data.read(buf, bufOff, Math.min(avail, buf.length - bufOff));
+      if (n < 0) throw new IOException("expected " + len + " bytes, got " + (len - avail));
+      rawBufferFlush(bufOff + n, 1);
+      avail -= n;
+    }
+    return len;
+  }
+
   // ====================================================================================================
   //  String related
   // ====================================================================================================
@@ -217,9 +340,39 @@ abstract class YajbeWriter {
     write(0b11_000000);
   }
 
+  // the chars of a String are copied here (in chunks) and encoded directly into the raw buffer
+  private char[] charBuffer;
+
   public final void writeString(final String text) throws IOException {
-    final byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
-    writeUtf8(utf8, 0, utf8.length);
+    final int length = text.length();
+    final int maxChars = maxBackpatchChars();
+    if (length <= maxChars) {
+      final char[] chars = charBuffer(length);
+      text.getChars(0, length, chars, 0);
+      writeStringBackpatch(chars, 0, length);
+      return;
+    }
+
+    // too long to fit the buffer: compute the length upfront, and encode in chunks
+    writeLength(0b11_000000, 59, utf8Length(text));
+    final char[] chars = charBuffer(maxChars);
+    for (int off = 0; off < length;) {
+      int n = Math.min(maxChars, length - off);
+      // do not split a surrogate pair between two chunks
+      if ((off + n) < length && Character.isHighSurrogate(text.charAt(off + n - 1))) n--;
+      text.getChars(off, off + n, chars, 0);
+      writeUtf8Chunked(chars, 0, n);
+      off += n;
+    }
+  }
+
+  public final void writeString(final char[] chars, final int off, final int len) throws IOException {
+    if (len <= maxBackpatchChars()) {
+      writeStringBackpatch(chars, off, len);
+    } else {
+      writeLength(0b11_000000, 59, utf8Length(chars, off, len));
+      writeUtf8Chunked(chars, off, len);
+    }
   }
 
   public final void writeUtf8(final byte[] utf8, final int off, final int len) throws IOException {
@@ -227,12 +380,141 @@ abstract class YajbeWriter {
     write(utf8, off, len);
   }
 
+  private int maxBackpatchChars() {
+    // 3 bytes per char (surrogate pairs are 4 bytes every 2 chars) + 5 bytes of header
+    return (rawBuffer().length - 6) / 3;
+  }
+
+  private char[] charBuffer(final int length) {
+    char[] chars = charBuffer;
+    if (chars == null || chars.length < length) {
+      final int capacity = (chars == null) ? 64 : chars.length << 1;
+      chars = new char[Math.min(Math.max(capacity, length), maxBackpatchChars())];
+      charBuffer = chars;
+    }
+    return chars;
+  }
+
+  /**
+   * The string (max 3 bytes per char) fits the buffer: the length is known only after the encoding.
+   * The data is encoded after the header sized for the ascii length (the minimum),
+   * and it is moved forward only if the encoded length needs a bigger header.
+   */
+  private void writeStringBackpatch(final char[] chars, final int off, final int len) throws IOException {
+    final byte[] buf = rawBuffer();
+    final int maxUtf8Length = len * 3;
+    rawBufferFlush(rawBufferOffset(), 1 + lengthHeaderWidth(59, maxUtf8Length) + maxUtf8Length);
+    final int bufOff = rawBufferOffset();
+
+    final int asciiHeaderWidth = lengthHeaderWidth(59, len);
+    final int dataOff = bufOff + asciiHeaderWidth;
+    final int utf8Length = encodeUtf8(buf, dataOff, chars, off, off + len) - dataOff;
+
+    final int headerWidth = lengthHeaderWidth(59, utf8Length);
+    if (headerWidth != asciiHeaderWidth) {
+      System.arraycopy(buf, dataOff, buf, bufOff + headerWidth, utf8Length);
+    }
+    writeLength(buf, bufOff, 0b11_000000, 59, utf8Length, headerWidth);
+    rawBufferFlush(bufOff + headerWidth + utf8Length, 1);
+  }
+
+  /** encode the chars in chunks that fit the buffer, the length header is already written */
+  private void writeUtf8Chunked(final char[] chars, final int off, final int len) throws IOException {
+    final byte[] buf = rawBuffer();
+    rawBufferFlush(rawBufferOffset(), 16);
+    final int end = off + len;
+    for (int i = off; i < end;) {
+      final int bufOff = rawBufferOffset();
+      int n = Math.min(end - i, (buf.length - bufOff - 1) / 3);
+      // do not split a surrogate pair between two chunks
+      if ((i + n) < end && Character.isHighSurrogate(chars[i + n - 1])) n--;
+      rawBufferFlush(encodeUtf8(buf, bufOff, chars, i, i + n), 16);
+      i += n;
+    }
+  }
+
+  /**
+   * Encode the chars as utf-8 into the buffer, that must have space for 3 bytes per char.
+   * Unpaired surrogates are replaced with '?', as String.getBytes(UTF_8) does.
+   * @return the buffer offset after the encoded data
+   */
+  private static int encodeUtf8(final byte[] buf, int bufOff, final char[] chars, int off, final int end) {
+    // ascii fast path
+    while (off < end) {
+      final char c = chars[off];
+      if (c >= 0x80) break;
+      buf[bufOff++] = (byte) c;
+      off++;
+    }
+
+    while (off < end) {
+      final char c = chars[off++];
+      if (c < 0x80) {
+        buf[bufOff++] = (byte) c;
+      } else if (c < 0x800) {
+        buf[bufOff++] = (byte) (0xc0 | (c >> 6));
+        buf[bufOff++] = (byte) (0x80 | (c & 0x3f));
+      } else if (!Character.isSurrogate(c)) {
+        buf[bufOff++] = (byte) (0xe0 | (c >> 12));
+        buf[bufOff++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+        buf[bufOff++] = (byte) (0x80 | (c & 0x3f));
+      } else if (Character.isHighSurrogate(c) && off < end && Character.isLowSurrogate(chars[off])) {
+        final int cp = Character.toCodePoint(c, chars[off++]);
+        buf[bufOff++] = (byte) (0xf0 | (cp >> 18));
+        buf[bufOff++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+        buf[bufOff++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+        buf[bufOff++] = (byte) (0x80 | (cp & 0x3f));
+      } else {
+        buf[bufOff++] = '?';
+      }
+    }
+    return bufOff;
+  }
+
+  static int utf8Length(final char[] chars, final int off, final int len) {
+    int length = len;
+    for (int i = off, end = off + len; i < end; ++i) {
+      final char c = chars[i];
+      if (c < 0x80) continue;
+      if (c < 0x800) {
+        length += 1;
+      } else if (!Character.isSurrogate(c)) {
+        length += 2;
+      } else if (Character.isHighSurrogate(c) && (i + 1) < end && Character.isLowSurrogate(chars[i + 1])) {
+        length += 2;
+        i++;
+      }
+    }
+    return length;
+  }
+
+  static int utf8Length(final String text) {
+    final int len = text.length();
+    int length = len;
+    for (int i = 0; i < len; ++i) {
+      final char c = text.charAt(i);
+      if (c < 0x80) continue;
+      if (c < 0x800) {
+        length += 1;
+      } else if (!Character.isSurrogate(c)) {
+        length += 2;
+      } else if (Character.isHighSurrogate(c) && (i + 1) < len && Character.isLowSurrogate(text.charAt(i + 1))) {
+        length += 2;
+        i++;
+      }
+    }
+    return length;
+  }
+
   private YajbeEnumMapping enumMapping;
   public final void writeStringOrEnum(final YajbeEnumMappingConfig enumConfig, final String text) throws IOException {
     if (enumMapping == null) newEnumMapping(enumConfig);
 
+    final int indexedCount = enumMapping.size();
     final int index = enumMapping.add(text);
     if (index < 0) {
+      // the string was just indexed, the decoder with markers will add it without replaying the mapping
+      if (enumIndexMarkers && enumMapping.size() != indexedCount) write(0b00001011);
       writeString(text);
       return;
     }
@@ -252,10 +534,44 @@ abstract class YajbeWriter {
     }
   }
 
+  private YajbeRecycler recycler;
+
+  void setRecycler(final YajbeRecycler recycler) {
+    this.recycler = recycler;
+  }
+
+  // the markers requested by the generator, used by the stream only if set before the enum config is written
+  private boolean requestEnumIndexMarkers;
+  private boolean enumIndexMarkers;
+
+  void setEnumIndexMarkers(final boolean enable) {
+    this.requestEnumIndexMarkers = enable;
+  }
+
+  YajbeEnumMapping enumMapping() {
+    return enumMapping;
+  }
+
   private void newEnumMapping(final YajbeEnumMappingConfig config) throws IOException {
-    this.enumMapping = YajbeEnumMapping.fromConfig(config);
+    if (recycler != null && config instanceof final YajbeEnumLruMappingConfig lruConfig) {
+      this.enumMapping = recycler.enumMapping(lruConfig.lruSize(), lruConfig.minFreq());
+    } else {
+      this.enumMapping = YajbeEnumMapping.fromConfig(config);
+    }
+    if (dictionary != null) {
+      dictionary.addEnumStrings(enumMapping);
+    }
 
     final byte[] buf = rawBuffer();
+    if (requestEnumIndexMarkers) {
+      // the decoder does not need the algorithm config
+      this.enumIndexMarkers = true;
+      final int bufOff = rawBufferOffset(2);
+      buf[bufOff] = (byte) 0b00001000;
+      buf[bufOff + 1] = (byte) 0b0011_0000;
+      return;
+    }
+
     final int bufOff = rawBufferOffset(3);
     buf[bufOff] = (byte) 0b00001000;
     if (config instanceof final YajbeEnumLruMappingConfig lruConfig) {
@@ -263,6 +579,31 @@ abstract class YajbeWriter {
       buf[bufOff + 2] = (byte) (lruConfig.minFreq() - 1);
       return;
     }
+    if (config instanceof final YajbeEnumTinyLfuMappingConfig tinyLfuConfig) {
+      buf[bufOff + 1] = (byte) (0b0010_0000 | (26 - Integer.numberOfLeadingZeros(tinyLfuConfig.width())));
+      buf[bufOff + 2] = (byte) (tinyLfuConfig.minFreq() - 1);
+      return;
+    }
+  }
+
+  private YajbeDictionary dictionary;
+
+  /**
+   * Write the dictionary config: the head (0b00001000), the type (0b0001) with the id width, and the id.
+   * The enum strings of the dictionary will be indexed by the enum mapping, which must not exist yet.
+   * @param dictionary the dictionary referenced by the stream
+   */
+  public final void writeDictionaryConfig(final YajbeDictionary dictionary) throws IOException {
+    if (enumMapping != null) throw new IllegalStateException("the dictionary must be written before the enum config");
+    this.dictionary = dictionary;
+
+    final int id = dictionary.id();
+    final int w = (id != 0) ? ((32 - Integer.numberOfLeadingZeros(id)) + 7) >> 3 : 1;
+    final byte[] buf = rawBuffer();
+    final int bufOff = rawBufferOffset(2 + w);
+    buf[bufOff] = (byte) 0b00001000;
+    buf[bufOff + 1] = (byte) (0b0001_0000 | (w - 1));
+    writeFixed(buf, bufOff + 2, id, w);
   }
 
   // ====================================================================================================
@@ -318,6 +659,241 @@ abstract class YajbeWriter {
     }
   }
 
+  public final void writeArray(final float[] array, final int offset, final int length, final boolean compactFloats) throws IOException {
+    writeLength(0b0010_0000, 10, length);
+    if (compactFloats) {
+      writeCompactItems(length, itemIndex -> array[offset + itemIndex]);
+      return;
+    }
+
+    final byte[] buf = rawBuffer();
+    int bufOff = rawBufferOffset();
+    int itemIndex = 0;
+
+    while (itemIndex < length) {
+      int bufAvail = buf.length - bufOff;
+      while (bufAvail >= 5 && itemIndex < length) {
+        buf[bufOff] = 0b00000_101;
+        writeFixed(buf, bufOff + 1, Float.floatToIntBits(array[offset + itemIndex++]), 4);
+        bufOff += 5;
+        bufAvail -= 5;
+      }
+
+      rawBufferFlush(bufOff, 5);
+      bufOff = 0;
+    }
+  }
+
+  public final void writeArray(final double[] array, final int offset, final int length, final boolean compactFloats) throws IOException {
+    writeLength(0b0010_0000, 10, length);
+    if (compactFloats) {
+      writeCompactItems(length, itemIndex -> array[offset + itemIndex]);
+      return;
+    }
+
+    final byte[] buf = rawBuffer();
+    int bufOff = rawBufferOffset();
+    int itemIndex = 0;
+
+    while (itemIndex < length) {
+      int bufAvail = buf.length - bufOff;
+      while (bufAvail >= 9 && itemIndex < length) {
+        buf[bufOff] = 0b00000_110;
+        writeFixed(buf, bufOff + 1, Double.doubleToLongBits(array[offset + itemIndex++]), 8);
+        bufOff += 9;
+        bufAvail -= 9;
+      }
+
+      rawBufferFlush(bufOff, 9);
+      bufOff = 0;
+    }
+  }
+
+  private void writeCompactItems(final int length, final IntToDoubleFunction items) throws IOException {
+    final byte[] buf = rawBuffer();
+    int bufOff = rawBufferOffset();
+    int itemIndex = 0;
+
+    while (itemIndex < length) {
+      int bufAvail = buf.length - bufOff;
+      while (bufAvail >= 9 && itemIndex < length) {
+        final int n = writeRawCompactFloat(buf, bufOff, items.applyAsDouble(itemIndex++));
+        bufOff += n;
+        bufAvail -= n;
+      }
+
+      rawBufferFlush(bufOff, 9);
+      bufOff = 0;
+    }
+  }
+
+  // ====================================================================================================
+  //  Typed Array related
+  //  0b0001_0www signed ints of (www + 1) bytes, 0b0001_1100 float16, 0b0001_1101 float32, 0b0001_1110 float64.
+  //  the head is followed by the item count (encoded as an int) and by the raw little-endian items.
+  //  int arrays use the smallest width that fits all the items, compact float arrays the smallest lossless float.
+  // ====================================================================================================
+  public final void writeTypedArray(final int[] array, final int offset, final int length) throws IOException {
+    int min = 0;
+    int max = 0;
+    for (int i = 0; i < length; ++i) {
+      final int v = array[offset + i];
+      min = Math.min(min, v);
+      max = Math.max(max, v);
+    }
+
+    final int width = typedIntWidth(min, max);
+    writeTypedArrayHead(0b0001_0000 | (width - 1), length);
+
+    final byte[] buf = rawBuffer();
+    int bufOff = rawBufferOffset();
+    int itemIndex = 0;
+
+    while (itemIndex < length) {
+      int bufAvail = buf.length - bufOff;
+      while (bufAvail >= width && itemIndex < length) {
+        writeFixed(buf, bufOff, array[offset + itemIndex++], width);
+        bufOff += width;
+        bufAvail -= width;
+      }
+
+      rawBufferFlush(bufOff, width);
+      bufOff = 0;
+    }
+  }
+
+  public final void writeTypedArray(final long[] array, final int offset, final int length) throws IOException {
+    long min = 0;
+    long max = 0;
+    for (int i = 0; i < length; ++i) {
+      final long v = array[offset + i];
+      min = Math.min(min, v);
+      max = Math.max(max, v);
+    }
+
+    final int width = typedIntWidth(min, max);
+    writeTypedArrayHead(0b0001_0000 | (width - 1), length);
+
+    final byte[] buf = rawBuffer();
+    int bufOff = rawBufferOffset();
+    int itemIndex = 0;
+
+    while (itemIndex < length) {
+      int bufAvail = buf.length - bufOff;
+      while (bufAvail >= width && itemIndex < length) {
+        writeFixed(buf, bufOff, array[offset + itemIndex++], width);
+        bufOff += width;
+        bufAvail -= width;
+      }
+
+      rawBufferFlush(bufOff, width);
+      bufOff = 0;
+    }
+  }
+
+  public final void writeTypedArray(final float[] array, final int offset, final int length, final boolean compactFloats) throws IOException {
+    if (compactFloats) {
+      writeTypedFloatItems(length, itemIndex -> array[offset + itemIndex]);
+      return;
+    }
+
+    writeTypedArrayHead(0b0001_1101, length);
+
+    final byte[] buf = rawBuffer();
+    int bufOff = rawBufferOffset();
+    int itemIndex = 0;
+
+    while (itemIndex < length) {
+      int bufAvail = buf.length - bufOff;
+      while (bufAvail >= 4 && itemIndex < length) {
+        writeFixed(buf, bufOff, Float.floatToIntBits(array[offset + itemIndex++]), 4);
+        bufOff += 4;
+        bufAvail -= 4;
+      }
+
+      rawBufferFlush(bufOff, 4);
+      bufOff = 0;
+    }
+  }
+
+  public final void writeTypedArray(final double[] array, final int offset, final int length, final boolean compactFloats) throws IOException {
+    if (compactFloats) {
+      writeTypedFloatItems(length, itemIndex -> array[offset + itemIndex]);
+      return;
+    }
+
+    writeTypedArrayHead(0b0001_1110, length);
+
+    final byte[] buf = rawBuffer();
+    int bufOff = rawBufferOffset();
+    int itemIndex = 0;
+
+    while (itemIndex < length) {
+      int bufAvail = buf.length - bufOff;
+      while (bufAvail >= 8 && itemIndex < length) {
+        writeFixed(buf, bufOff, Double.doubleToLongBits(array[offset + itemIndex++]), 8);
+        bufOff += 8;
+        bufAvail -= 8;
+      }
+
+      rawBufferFlush(bufOff, 8);
+      bufOff = 0;
+    }
+  }
+
+  private void writeTypedFloatItems(final int length, final IntToDoubleFunction items) throws IOException {
+    // the narrowest float type that represents all the items exactly
+    int head = 0b0001_1100;
+    for (int i = 0; i < length && head != 0b0001_1110; ++i) {
+      final double v = items.applyAsDouble(i);
+      final float fv = (float) v;
+      if (fv != v && !Double.isNaN(v)) {
+        head = 0b0001_1110;
+      } else if (head == 0b0001_1100 && float16Bits(fv) < 0) {
+        head = 0b0001_1101;
+      }
+    }
+
+    writeTypedArrayHead(head, length);
+
+    final int width = YajbeReader.typedItemWidth(head);
+    final byte[] buf = rawBuffer();
+    int bufOff = rawBufferOffset();
+    int itemIndex = 0;
+
+    while (itemIndex < length) {
+      int bufAvail = buf.length - bufOff;
+      while (bufAvail >= width && itemIndex < length) {
+        final double v = items.applyAsDouble(itemIndex++);
+        switch (width) {
+          case 2 -> writeFixed(buf, bufOff, float16Bits((float) v), 2);
+          case 4 -> writeFixed(buf, bufOff, Float.floatToIntBits((float) v), 4);
+          default -> writeFixed(buf, bufOff, Double.doubleToLongBits(v), 8);
+        }
+        bufOff += width;
+        bufAvail -= width;
+      }
+
+      rawBufferFlush(bufOff, width);
+      bufOff = 0;
+    }
+  }
+
+  private void writeTypedArrayHead(final int head, final int length) throws IOException {
+    final byte[] buf = rawBuffer();
+    final int bufOff = rawBufferOffset(6);
+    buf[bufOff] = (byte) head;
+    final int n = writeRawInt(buf, bufOff + 1, length);
+    // rawBufferOffset() reserved the max size, give back what the length did not use
+    rawBufferFlush(bufOff + 1 + n, 0);
+  }
+
+  private static int typedIntWidth(final long min, final long max) {
+    // min <= 0 <= max, the bits of the two's complement representation (sign included)
+    final int bits = 65 - Long.numberOfLeadingZeros(Math.max(max, ~min));
+    return (bits + 7) >> 3;
+  }
+
   // ====================================================================================================
   //  Object related
   // ====================================================================================================
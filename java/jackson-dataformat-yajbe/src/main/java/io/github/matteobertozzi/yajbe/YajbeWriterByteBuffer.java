@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writer that flushes the encoded data into a ByteBuffer (heap or direct)
+ * or into a WritableByteChannel, without an OutputStream wrapper in between.
+ * If the target ByteBuffer has not enough space a BufferOverflowException is thrown.
+ */
+final class YajbeWriterByteBuffer extends YajbeWriter {
+  private final WritableByteChannel channel;
+  private final ByteBuffer target;
+  private final ByteBuffer wbufView;
+  private final byte[] wbuf;
+  private int wbufOff;
+
+  private YajbeWriterByteBuffer(final ByteBuffer target, final WritableByteChannel channel, final byte[] buffer) {
+    this.target = target;
+    this.channel = channel;
+    this.wbuf = buffer;
+    this.wbufView = (channel != null) ? ByteBuffer.wrap(buffer) : null;
+    this.wbufOff = 0;
+  }
+
+  public static YajbeWriterByteBuffer forByteBuffer(final ByteBuffer target, final byte[] buffer) {
+    return new YajbeWriterByteBuffer(target, null, buffer);
+  }
+
+  public static YajbeWriterByteBuffer forChannel(final WritableByteChannel channel, final byte[] buffer) {
+    return new YajbeWriterByteBuffer(null, channel, buffer);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    rawBufferFlush();
+  }
+
+  @Override
+  protected void write(final int v) throws IOException {
+    if (wbufOff == wbuf.length) {
+      rawBufferFlush();
+    }
+
+    wbuf[wbufOff++] = (byte)v;
+  }
+
+  @Override
+  protected void write(final byte[] buf, final int off, final int len) throws IOException {
+    if (len >= wbuf.length) {
+      rawBufferFlush();
+      writeTarget(ByteBuffer.wrap(buf, off, len));
+      return;
+    }
+
+    if (len > (wbuf.length - wbufOff)) {
+      rawBufferFlush();
+    }
+    System.arraycopy(buf, off, wbuf, wbufOff, len);
+    wbufOff += len;
+  }
+
+  @Override
+  protected byte[] rawBuffer() {
+    return wbuf;
+  }
+
+  @Override
+  protected int rawBufferOffset() {
+    return wbufOff;
+  }
+
+  @Override
+  protected int rawBufferOffset(final int size) throws IOException {
+    if ((wbufOff + size) >= wbuf.length) {
+      writeBuffer(wbufOff);
+      wbufOff = size;
+      return 0;
+    }
+
+    final int offset = wbufOff;
+    wbufOff += size;
+    return offset;
+  }
+
+  @Override
+  protected void rawBufferFlush(final int length, final int availSizeRequired) throws IOException {
+    if ((wbuf.length - length) < availSizeRequired) {
+      writeBuffer(length);
+      wbufOff = 0;
+    } else {
+      wbufOff = length;
+    }
+  }
+
+  private void rawBufferFlush() throws IOException {
+    if (wbufOff != 0) {
+      writeBuffer(wbufOff);
+      wbufOff = 0;
+    }
+  }
+
+  private void writeBuffer(final int length) throws IOException {
+    if (target != null) {
+      target.put(wbuf, 0, length);
+    } else {
+      wbufView.clear().limit(length);
+      writeTarget(wbufView);
+    }
+  }
+
+  private void writeTarget(final ByteBuffer buf) throws IOException {
+    if (target != null) {
+      target.put(buf);
+      return;
+    }
+
+    while (buf.hasRemaining()) {
+      channel.write(buf);
+    }
+  }
+}
@@ -34,6 +34,7 @@ import com.fasterxml.jackson.databind.json.JsonMapper;
 
 import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumLruMappingConfig;
 import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumMappingConfig;
+import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumTinyLfuMappingConfig;
 
 public abstract class BaseYajbeTest {
   public static final long RANDOM_SEED = Long.parseLong(System.getProperty("yajbe.test.random.seed", String.valueOf(Math.round(Math.random() * Long.MAX_VALUE))));
@@ -51,6 +52,7 @@ public abstract class BaseYajbeTest {
     } else {
       final YajbeEnumMappingConfig config = switch (enumMappingType) {
         case "LRU" -> new YajbeEnumLruMappingConfig(256, 4);
+        case "TINY_LFU" -> new YajbeEnumTinyLfuMappingConfig(256, 4);
         default -> throw new IllegalArgumentException("unknown enum-mapping type " + enumMappingType);
       };
       YAJBE_MAPPER = newObjectMapper(new YajbeMapper(new YajbeFactory(config)));
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumLruMappingConfig;
+import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumTinyLfuMappingConfig;
+
+public class TestYajbeArrayIndex extends BaseYajbeTest {
+  @TempDir
+  File tempDir;
+
+  @Test
+  public void testSeek() throws IOException {
+    // small lru and minFreq > 1, so the checkpoints contain evictions and pending frequencies
+    final YajbeMapper enumMapper = new YajbeMapper(new YajbeFactory(new YajbeEnumLruMappingConfig(32, 2)));
+    for (final ObjectMapper mapper: List.of(YAJBE_MAPPER, enumMapper)) {
+      final YajbeFactory factory = (YajbeFactory) mapper.getFactory();
+      final List<Map<String, Object>> rows = randRows(1000);
+      final byte[] enc = mapper.writeValueAsBytes(rows);
+
+      final YajbeArrayIndex index = YajbeArrayIndex.build(enc, 64);
+      assertEquals(rows.size(), index.size());
+      assertEquals(16, index.checkpointCount());
+
+      for (final int element: new int[] { 0, 1, 63, 64, 65, 500, 999, 1000, RANDOM.nextInt(1000) }) {
+        try (JsonParser parser = factory.createParser(enc, index, element)) {
+          assertEquals(JsonToken.START_ARRAY, parser.currentToken());
+          assertEquals(rows.subList(element, rows.size()), mapper.readValue(parser, List.class));
+        }
+      }
+
+      // sidecar file, and memory-mapped data file
+      final File file = new File(tempDir, "rows.yajbe");
+      mapper.writeValue(file, rows);
+      final ByteArrayOutputStream indexStream = new ByteArrayOutputStream();
+      YajbeArrayIndex.build(file, 100).writeTo(indexStream);
+      final YajbeArrayIndex fileIndex = YajbeArrayIndex.readFrom(new ByteArrayInputStream(indexStream.toByteArray()));
+      assertEquals(rows.size(), fileIndex.size());
+      for (int i = 0; i < 10; ++i) {
+        final int element = RANDOM.nextInt(rows.size());
+        try (JsonParser parser = factory.createParser(file, fileIndex, element)) {
+          // page of 10 elements
+          for (int k = element; k < Math.min(rows.size(), element + 10); ++k) {
+            assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+            assertEquals(rows.get(k), mapper.readValue(parser, Map.class));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testEofArray() throws IOException {
+    final List<Map<String, Object>> rows = randRows(300);
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try (JsonGenerator gen = YAJBE_MAPPER.createGenerator(stream)) {
+      gen.writeStartArray();
+      for (final Map<String, Object> row: rows) {
+        YAJBE_MAPPER.writeValue(gen, row);
+      }
+      gen.writeEndArray();
+    }
+
+    final byte[] enc = stream.toByteArray();
+    final YajbeArrayIndex index = YajbeArrayIndex.build(enc, 32);
+    assertEquals(rows.size(), index.size());
+    for (final int element: new int[] { 0, 31, 32, 299, 300 }) {
+      try (JsonParser parser = ((YajbeFactory) YAJBE_MAPPER.getFactory()).createParser(enc, index, element)) {
+        assertEquals(rows.subList(element, rows.size()), YAJBE_MAPPER.readValue(parser, List.class));
+      }
+    }
+  }
+
+  @Test
+  public void testEnumIndexMarkers() throws IOException {
+    final YajbeMapper mapper = new YajbeMapper(new YajbeFactory(new YajbeEnumLruMappingConfig(32, 2)).enable(YajbeGeneratorFeature.ENUM_INDEX_MARKERS));
+    final List<Map<String, Object>> rows = randRows(500);
+    final byte[] enc = mapper.writeValueAsBytes(rows);
+
+    final ByteArrayOutputStream indexStream = new ByteArrayOutputStream();
+    YajbeArrayIndex.build(enc, 64).writeTo(indexStream);
+    final YajbeArrayIndex index = YajbeArrayIndex.readFrom(new ByteArrayInputStream(indexStream.toByteArray()));
+    assertEquals(rows.size(), index.size());
+    for (final int element: new int[] { 0, 63, 64, 499, RANDOM.nextInt(500) }) {
+      try (JsonParser parser = mapper.getFactory().createParser(enc, index, element)) {
+        assertEquals(rows.subList(element, rows.size()), mapper.readValue(parser, List.class));
+      }
+    }
+  }
+
+  @Test
+  public void testUnsupported() throws IOException {
+    final YajbeMapper tinyLfuMapper = new YajbeMapper(new YajbeFactory(new YajbeEnumTinyLfuMappingConfig(32, 2)));
+    assertThrows(IOException.class, () -> YajbeArrayIndex.build(tinyLfuMapper.writeValueAsBytes(randRows(100)), 16));
+
+    final byte[] typedArray = YAJBE_MAPPER.writer().with(YajbeGeneratorFeature.TYPED_ARRAYS).writeValueAsBytes(new int[] { 1, 2, 3 });
+    assertThrows(IOException.class, () -> YajbeArrayIndex.build(typedArray, 16));
+  }
+
+  @Test
+  public void testDictionary() throws IOException {
+    final YajbeDictionary dictionary = new YajbeDictionary(7, new String[] { "id", "type", "tags" }, new String[] { "tag-1", "type-2" });
+    final YajbeMapper mapper = new YajbeMapper(new YajbeFactory(new YajbeEnumLruMappingConfig(32, 2), dictionary));
+    final List<Map<String, Object>> rows = randRows(500);
+    final byte[] enc = mapper.writeValueAsBytes(rows);
+
+    assertThrows(IOException.class, () -> YajbeArrayIndex.build(enc, 64));
+    final ByteArrayOutputStream indexStream = new ByteArrayOutputStream();
+    YajbeArrayIndex.build(enc, 64, mapper.getFactory().dictionaries()).writeTo(indexStream);
+    final YajbeArrayIndex index = YajbeArrayIndex.readFrom(new ByteArrayInputStream(indexStream.toByteArray()));
+    assertEquals(rows.size(), index.size());
+    for (final int element: new int[] { 0, 63, 64, 499, RANDOM.nextInt(500) }) {
+      try (JsonParser parser = mapper.getFactory().createParser(enc, index, element)) {
+        assertEquals(rows.subList(element, rows.size()), mapper.readValue(parser, List.class));
+      }
+    }
+  }
+
+  private List<Map<String, Object>> randRows(final int count) {
+    final ArrayList<Map<String, Object>> rows = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      final LinkedHashMap<String, Object> row = new LinkedHashMap<>();
+      row.put("id", i);
+      row.put("type", "type-" + RANDOM.nextInt(40));
+      row.put("name" + RANDOM.nextInt(200), randText(RANDOM.nextInt(1, 16)));
+      row.put("tags", List.of("tag-" + RANDOM.nextInt(8), "tag-" + RANDOM.nextInt(8)));
+      rows.add(row);
+    }
+    return rows;
+  }
+}
@@ -19,7 +19,9 @@ package io.github.matteobertozzi.yajbe;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -32,6 +34,12 @@ import java.util.Set;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.exc.InputCoercionException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
 public class TestYajbeArrays extends BaseYajbeTest {
   record DataObject (boolean boolValue, int intValue, long longValue, float floatValue, double doubleValue,
     BigInteger bigInt, BigDecimal bigDecimal, String strValue) {}
@@ -128,6 +136,151 @@ public class TestYajbeArrays extends BaseYajbeTest {
     }
   }
 
+  record PrimitiveArrays (int[] ints, long[] longs, float[] floats, double[] doubles) {}
+
+  @Test
+  public void testPrimitiveArrays() throws IOException {
+    for (int i = 0; i < 64; ++i) {
+      final int length = RANDOM.nextInt(i < 32 ? 20 : 5000);
+      final int[] ints = new int[length];
+      final long[] longs = new long[length];
+      final float[] floats = new float[length];
+      final double[] doubles = new double[length];
+      for (int k = 0; k < length; ++k) {
+        ints[k] = RANDOM.nextInt(-1 << RANDOM.nextInt(31), Integer.MAX_VALUE);
+        longs[k] = RANDOM.nextLong() >> RANDOM.nextInt(64);
+        floats[k] = RANDOM.nextFloat() * RANDOM.nextInt();
+        doubles[k] = RANDOM.nextDouble() * RANDOM.nextLong();
+      }
+
+      assertArrayEquals(ints, YAJBE_MAPPER.readValue(YAJBE_MAPPER.writeValueAsBytes(ints), int[].class));
+      assertArrayEquals(longs, YAJBE_MAPPER.readValue(YAJBE_MAPPER.writeValueAsBytes(longs), long[].class));
+      assertArrayEquals(floats, YAJBE_MAPPER.readValue(YAJBE_MAPPER.writeValueAsBytes(floats), float[].class));
+      assertArrayEquals(doubles, YAJBE_MAPPER.readValue(YAJBE_MAPPER.writeValueAsBytes(doubles), double[].class));
+
+      final PrimitiveArrays arrays = new PrimitiveArrays(ints, longs, floats, doubles);
+      final PrimitiveArrays decoded = YAJBE_MAPPER.readValue(YAJBE_MAPPER.writeValueAsBytes(arrays), PrimitiveArrays.class);
+      assertArrayEquals(ints, decoded.ints());
+      assertArrayEquals(longs, decoded.longs());
+      assertArrayEquals(floats, decoded.floats());
+      assertArrayEquals(doubles, decoded.doubles());
+    }
+  }
+
+  @Test
+  public void testPrimitiveArraysCoercion() throws IOException {
+    // the elements that are not plain numbers must follow the same rules of the standard deserializers
+    final List<Object> input = new ArrayList<>(List.of(1, 2.5f, 3.25, "4", 5, BigDecimal.valueOf(6), 7));
+    input.add(2, null);
+    final byte[] json = JSON_MAPPER.writeValueAsBytes(input);
+    final byte[] enc = YAJBE_MAPPER.writeValueAsBytes(input);
+    assertArrayEquals(JSON_MAPPER.readValue(json, int[].class), YAJBE_MAPPER.readValue(enc, int[].class));
+    assertArrayEquals(JSON_MAPPER.readValue(json, long[].class), YAJBE_MAPPER.readValue(enc, long[].class));
+    assertArrayEquals(JSON_MAPPER.readValue(json, float[].class), YAJBE_MAPPER.readValue(enc, float[].class));
+    assertArrayEquals(JSON_MAPPER.readValue(json, double[].class), YAJBE_MAPPER.readValue(enc, double[].class));
+
+    // eof array
+    assertArrayEquals(new long[] { 1, 2, 0, 3 }, YAJBE_MAPPER.readValue(HexFormat.of().parseHex("2f4041604201"), long[].class));
+    assertArrayEquals(new double[] { 1, 2 }, YAJBE_MAPPER.readValue(HexFormat.of().parseHex("2f404101"), double[].class));
+  }
+
+  @Test
+  public void testTypedArrays() throws IOException {
+    final ObjectWriter writer = YAJBE_MAPPER.writer().with(YajbeGeneratorFeature.TYPED_ARRAYS);
+    assertHexEquals("1060", writer.writeValueAsBytes(new int[0]));
+    assertHexEquals("10430180ff7f", writer.writeValueAsBytes(new int[] { 1, -128, -1, 127 }));
+    assertHexEquals("1141800000ff", writer.writeValueAsBytes(new int[] { 128, -256 }));
+    assertHexEquals("1340ffffff7f", writer.writeValueAsBytes(new int[] { Integer.MAX_VALUE }));
+    assertHexEquals("14400000000001", writer.writeValueAsBytes(new long[] { 1L << 32 }));
+    assertHexEquals("1d400000c03f", writer.writeValueAsBytes(new float[] { 1.5f }));
+    assertHexEquals("1e40000000000000f83f", writer.writeValueAsBytes(new double[] { 1.5 }));
+
+    for (int i = 0; i < 64; ++i) {
+      final int length = RANDOM.nextInt(i < 32 ? 20 : 50_000);
+      final int shift = RANDOM.nextInt(64);
+      final int[] ints = new int[length];
+      final long[] longs = new long[length];
+      final float[] floats = new float[length];
+      final double[] doubles = new double[length];
+      for (int k = 0; k < length; ++k) {
+        ints[k] = (int) (RANDOM.nextLong() >> (32 + (shift >> 1)));
+        longs[k] = RANDOM.nextLong() >> shift;
+        floats[k] = RANDOM.nextFloat() * RANDOM.nextInt();
+        doubles[k] = RANDOM.nextDouble() * RANDOM.nextLong();
+      }
+
+      final PrimitiveArrays arrays = new PrimitiveArrays(ints, longs, floats, doubles);
+      final byte[] enc = writer.writeValueAsBytes(arrays);
+      if (length > 100) assertTrue(enc.length < YAJBE_MAPPER.writeValueAsBytes(arrays).length);
+
+      // bulk decode, from bytes and from a stream (chunked reads)
+      for (final PrimitiveArrays decoded: List.of(YAJBE_MAPPER.readValue(enc, PrimitiveArrays.class),
+          YAJBE_MAPPER.readValue(new ByteArrayInputStream(enc), PrimitiveArrays.class))) {
+        assertArrayEquals(ints, decoded.ints());
+        assertArrayEquals(longs, decoded.longs());
+        assertArrayEquals(floats, decoded.floats());
+        assertArrayEquals(doubles, decoded.doubles());
+      }
+
+      // item by item decode, and skip
+      assertEquals(YAJBE_MAPPER.readTree(YAJBE_MAPPER.writeValueAsBytes(arrays)), YAJBE_MAPPER.readTree(enc));
+      assertEquals(0, YAJBE_MAPPER.readValue(enc, Empty.class).hashCode());
+    }
+  }
+
+  @Test
+  public void testTypedArraysCoercion() throws IOException {
+    final ObjectWriter writer = YAJBE_MAPPER.writer().with(YajbeGeneratorFeature.TYPED_ARRAYS);
+    final byte[] ints = writer.writeValueAsBytes(new int[] { 1, -2, 300 });
+    assertArrayEquals(new long[] { 1, -2, 300 }, YAJBE_MAPPER.readValue(ints, long[].class));
+    assertArrayEquals(new float[] { 1, -2, 300 }, YAJBE_MAPPER.readValue(ints, float[].class));
+    assertArrayEquals(new double[] { 1, -2, 300 }, YAJBE_MAPPER.readValue(ints, double[].class));
+    assertEquals(List.of(1, -2, 300), YAJBE_MAPPER.readValue(ints, List.class));
+
+    final byte[] floats = writer.writeValueAsBytes(new float[] { 1.5f, -2.5f });
+    assertArrayEquals(new int[] { 1, -2 }, YAJBE_MAPPER.readValue(floats, int[].class));
+    assertArrayEquals(new double[] { 1.5, -2.5 }, YAJBE_MAPPER.readValue(floats, double[].class));
+
+    final byte[] longs = writer.writeValueAsBytes(new long[] { 1, Long.MAX_VALUE });
+    assertEquals(List.of(1, Long.MAX_VALUE), YAJBE_MAPPER.readValue(longs, List.class));
+    // same error as the jackson int[] deserializer (without the module), for the typed and the plain arrays
+    final byte[] plainLongs = YAJBE_MAPPER.writeValueAsBytes(new long[] { 1, Long.MAX_VALUE });
+    final ObjectMapper noModuleMapper = new ObjectMapper(new YajbeFactory());
+    for (final ObjectMapper mapper: List.of(YAJBE_MAPPER, noModuleMapper)) {
+      for (final byte[] enc: List.of(longs, plainLongs)) {
+        final JsonMappingException e = Assertions.assertThrows(JsonMappingException.class, () -> mapper.readValue(enc, int[].class));
+        assertTrue(e.getCause() instanceof InputCoercionException, e.toString());
+        assertTrue(e.getPathReference().endsWith("[1]"), e.getPathReference());
+      }
+    }
+    final byte[] wideInts = writer.writeValueAsBytes(new long[] { 1, 1L << 40, -2 });
+    assertArrayEquals(new long[] { 1, 1L << 40, -2 }, YAJBE_MAPPER.readValue(wideInts, long[].class));
+    assertArrayEquals(new int[] { 1, -2 }, YAJBE_MAPPER.readValue(writer.writeValueAsBytes(new long[] { 1, -2 }), int[].class));
+
+    // lazy document view
+    final YajbeDocument doc = YajbeDocument.of(writer.writeValueAsBytes(new PrimitiveArrays(new int[] { 5, 500 }, new long[0], new float[] { 0.5f }, null)));
+    assertEquals(2, doc.root().get("ints").size());
+    assertEquals(500, doc.root().get("ints").get(1).asInt());
+    assertTrue(doc.root().get("ints").get(0).isNumber());
+    assertEquals(0.5, doc.root().get("floats").get(0).asDouble());
+    assertEquals(0, doc.root().get("longs").size());
+    assertTrue(doc.root().get("doubles").isNull());
+  }
+
+  @Test
+  public void testTruncatedArrayCount() {
+    // the declared item count is ~536M, the body has a single item
+    final byte[] array = HexFormat.of().parseHex("2ef0ffff1f01");
+    final byte[] typedArray = HexFormat.of().parseHex("135bffffff1f01000000");
+    for (final Class<?> arrayType: List.of(int[].class, long[].class, float[].class, double[].class)) {
+      Assertions.assertThrows(IOException.class, () -> YAJBE_MAPPER.readValue(array, arrayType));
+      Assertions.assertThrows(IOException.class, () -> YAJBE_MAPPER.readValue(typedArray, arrayType));
+    }
+  }
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  record Empty () {}
+
   public void assertArrayEncodeDecode(final int[] input, final String expectedEnc) throws IOException {
     final byte[] enc = YAJBE_MAPPER.writeValueAsBytes(input);
     assertHexEquals(expectedEnc, enc);
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class TestYajbeByteBuffers extends BaseYajbeTest {
+  record DataObject (int id, String name, byte[] data, List<Long> values) {}
+  record BufferObject (int id, ByteBuffer data) {}
+
+  @Test
+  public void testHeapBuffer() throws IOException {
+    final YajbeMapper mapper = (YajbeMapper) YAJBE_MAPPER;
+    final List<Map<String, Object>> input = randRows(128);
+    final byte[] enc = mapper.writeValueAsBytes(input);
+
+    // the content is in the middle of the array
+    final byte[] block = new byte[enc.length + 32];
+    System.arraycopy(enc, 0, block, 16, enc.length);
+    final ByteBuffer buf = ByteBuffer.wrap(block, 16, enc.length);
+    assertEquals(input, mapper.readValue(buf, List.class));
+    assertEquals(16, buf.position());
+
+    final ByteBuffer slice = ByteBuffer.wrap(block).position(8).slice().position(8).limit(8 + enc.length);
+    assertEquals(input, mapper.readValue(slice, List.class));
+
+    final ByteBuffer out = ByteBuffer.allocate(enc.length + 4).position(4);
+    mapper.writeValue(out, input);
+    assertEquals(enc.length + 4, out.position());
+    out.flip().position(4);
+    assertArrayEquals(enc, copyRemaining(out));
+  }
+
+  @Test
+  public void testDirectBuffer() throws IOException {
+    final YajbeMapper mapper = (YajbeMapper) YAJBE_MAPPER;
+    for (int i = 0; i < 16; ++i) {
+      final List<Map<String, Object>> input = randRows(RANDOM.nextInt(1, 512));
+      final byte[] enc = mapper.writeValueAsBytes(input);
+
+      final ByteBuffer buf = ByteBuffer.allocateDirect(enc.length);
+      mapper.writeValue(buf, input);
+      assertEquals(enc.length, buf.position());
+
+      buf.flip();
+      assertArrayEquals(enc, copyRemaining(buf));
+      assertEquals(input, mapper.readValue(buf, List.class));
+      assertEquals(0, buf.position());
+    }
+  }
+
+  @Test
+  public void testChannel() throws IOException {
+    final YajbeMapper mapper = (YajbeMapper) YAJBE_MAPPER;
+    final List<Map<String, Object>> input = randRows(1024);
+    final byte[] enc = mapper.writeValueAsBytes(input);
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    mapper.writeValue(Channels.newChannel(out), input);
+    assertArrayEquals(enc, out.toByteArray());
+  }
+
+  @Test
+  public void testBytesValues() throws IOException {
+    final YajbeMapper mapper = (YajbeMapper) YAJBE_MAPPER;
+    for (final int length: new int[] { 0, 1, 59, 60, 0xff, 0xffff, 0x1ffff }) {
+      final byte[] data = new byte[length];
+      RANDOM.nextBytes(data);
+
+      final DataObject input = new DataObject(length, "test", data, List.of(1L, 2L, RANDOM.nextLong()));
+      final ByteBuffer direct = ByteBuffer.allocateDirect(length + 128);
+      mapper.writeValue(direct, input);
+      final DataObject output = mapper.readValue(direct.flip(), DataObject.class);
+      assertEquals(input.id(), output.id());
+      assertArrayEquals(input.data(), output.data());
+      assertEquals(input.values(), output.values());
+
+      // direct ByteBuffer as value
+      final ByteBuffer directData = ByteBuffer.allocateDirect(length).put(data).flip();
+      final byte[] enc = mapper.writeValueAsBytes(new BufferObject(length, directData));
+      assertArrayEquals(mapper.writeValueAsBytes(new BufferObject(length, ByteBuffer.wrap(data))), enc);
+      assertEquals(ByteBuffer.wrap(data), mapper.readValue(enc, BufferObject.class).data());
+    }
+  }
+
+  @Test
+  public void testBytesSlice() throws IOException {
+    final byte[] data = new byte[300];
+    RANDOM.nextBytes(data);
+    final byte[] enc = YAJBE_MAPPER.writeValueAsBytes(Map.of("data", data));
+    final ByteBuffer direct = ByteBuffer.allocateDirect(enc.length).put(enc).flip();
+
+    // the bytes value is a read-only slice of the input, not a copy
+    final ByteBuffer slice = YajbeDocument.of(direct).root().get("data").asByteBuffer();
+    assertTrue(slice.isDirect());
+    assertTrue(slice.isReadOnly());
+    assertEquals(ByteBuffer.wrap(data), slice);
+    final int dataOffset = enc.length - 1 - data.length; // the map end is the last byte
+    direct.put(dataOffset, (byte) ~data[0]);
+    assertEquals((byte) ~data[0], slice.get(0));
+    direct.put(dataOffset, data[0]);
+
+    final ByteBuffer heapSlice = YajbeDocument.of(enc).root().get("data").asByteBuffer();
+    assertTrue(heapSlice.isReadOnly());
+    assertEquals(ByteBuffer.wrap(data), heapSlice);
+    assertArrayEquals(data, YajbeDocument.of(direct).root().get("data").asBytes());
+
+    // the declared length is larger than the input
+    final ByteBuffer truncated = ByteBuffer.allocateDirect(5).put(new byte[] { (byte) 0xbe, (byte) 0xff, (byte) 0xff, 0x7f, 1 }).flip();
+    assertThrows(IOException.class, () -> ((YajbeMapper) YAJBE_MAPPER).readValue(truncated, byte[].class));
+  }
+
+  private static byte[] copyRemaining(final ByteBuffer buf) {
+    final byte[] data = new byte[buf.remaining()];
+    buf.duplicate().get(data);
+    return data;
+  }
+
+  private List<Map<String, Object>> randRows(final int count) {
+    final ArrayList<Map<String, Object>> rows = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      rows.add(Map.of("id", i, "name", randText(RANDOM.nextInt(1, 16)), "k" + RANDOM.nextInt(16), RANDOM.nextBoolean()));
+    }
+    return rows;
+  }
+}
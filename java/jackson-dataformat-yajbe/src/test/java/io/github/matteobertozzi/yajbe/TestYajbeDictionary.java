@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.cfg.ContextAttributes;
+
+import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumLruMappingConfig;
+
+public class TestYajbeDictionary extends BaseYajbeTest {
+  @Test
+  public void testDictionaryHeader() throws IOException {
+    final YajbeDictionary dictionary = new YajbeDictionary(300, new String[] { "hello", "world" }, new String[0]);
+    final ContextAttributes writeAttrs = ContextAttributes.getEmpty().withSharedAttribute(YajbeMapper.CONFIG_DICTIONARY, dictionary);
+    final ContextAttributes readAttrs = ContextAttributes.getEmpty()
+      .withSharedAttribute(YajbeMapper.CONFIG_DICTIONARY_REGISTRY, YajbeDictionaryRegistry.of(dictionary));
+
+    final LinkedHashMap<String, Integer> input = new LinkedHashMap<>();
+    input.put("world", 2);
+    input.put("hello", 1);
+
+    // dictionary 300 (2 bytes id), then the names are indexed from the first occurrence
+    final byte[] enc = YAJBE_MAPPER.writer(writeAttrs).writeValueAsBytes(input);
+    assertEquals("0811" + "2c01" + "3fa141a04001", HexFormat.of().formatHex(enc));
+    assertEquals(input, YAJBE_MAPPER.reader(readAttrs).readValue(enc, LinkedHashMap.class));
+
+    // the decoder without the dictionary fails, instead of returning the wrong names
+    assertThrows(IOException.class, () -> YAJBE_MAPPER.readValue(enc, Map.class));
+    final ContextAttributes otherAttrs = ContextAttributes.getEmpty().withSharedAttribute(YajbeMapper.CONFIG_DICTIONARY_REGISTRY,
+      YajbeDictionaryRegistry.of(new YajbeDictionary(1, new String[] { "hello", "world" }, new String[0])));
+    assertThrows(IOException.class, () -> YAJBE_MAPPER.reader(otherAttrs).readValue(enc, Map.class));
+  }
+
+  @Test
+  public void testTrainedDictionary() throws IOException {
+    final YajbeDictionaryTrainer trainer = new YajbeDictionaryTrainer();
+    for (int i = 0; i < 10; ++i) {
+      trainer.add(JSON_MAPPER.valueToTree(event(i)));
+    }
+    trainer.add(JSON_MAPPER.valueToTree(Map.of("unique", "only in one document")));
+    assertEquals(11, trainer.documents());
+
+    final YajbeDictionary dictionary = trainer.build(7);
+    assertEquals(7, dictionary.id());
+    // the longest names shared by all the documents come first, the single document names are excluded
+    assertEquals("description", dictionary.fieldNames()[0]);
+    assertEquals(24, dictionary.fieldNames().length);
+    assertTrue(List.of(dictionary.enumStrings()).containsAll(List.of("INFO", "WARN", "eu-west-1")));
+    assertTrue(!List.of(dictionary.fieldNames()).contains("unique"));
+
+    // more than 16 names, the initial field names table must grow
+    final ContextAttributes writeAttrs = ContextAttributes.getEmpty().withSharedAttribute(YajbeMapper.CONFIG_DICTIONARY, dictionary);
+    final ContextAttributes readAttrs = ContextAttributes.getEmpty()
+      .withSharedAttribute(YajbeMapper.CONFIG_DICTIONARY_REGISTRY, YajbeDictionaryRegistry.of(dictionary));
+    for (int i = 0; i < 10; ++i) {
+      final Map<String, Object> event = event(i);
+      final byte[] plain = YAJBE_MAPPER.writeValueAsBytes(event);
+      final byte[] enc = YAJBE_MAPPER.writer(writeAttrs).writeValueAsBytes(event);
+      assertTrue(enc.length * 3 < plain.length * 2, "dictionary " + enc.length + " plain " + plain.length);
+      assertEquals(event, YAJBE_MAPPER.reader(readAttrs).readValue(enc, Map.class));
+    }
+  }
+
+  @Test
+  public void testTrainerParser() throws IOException {
+    // each root value of the stream is a document
+    final ArrayList<Object> docs = new ArrayList<>();
+    final StringBuilder json = new StringBuilder();
+    for (int i = 0; i < 3; ++i) {
+      json.append("{\"name\": \"foo\", \"id\": ").append(i).append("} \"bar\" ");
+      docs.add(i);
+    }
+    final YajbeDictionaryTrainer trainer = new YajbeDictionaryTrainer();
+    try (JsonParser parser = JSON_MAPPER.createParser(json.toString())) {
+      trainer.add(parser);
+    }
+    assertEquals(6, trainer.documents());
+
+    final YajbeDictionary dictionary = trainer.build(0);
+    assertArrayEquals(new String[] { "name", "id" }, dictionary.fieldNames());
+    // same score, sorted by key
+    assertArrayEquals(new String[] { "bar", "foo" }, dictionary.enumStrings());
+  }
+
+  @Test
+  public void testFactoryDictionary() throws IOException {
+    final YajbeDictionary dictionary = new YajbeDictionary(5, new String[] { "level", "code" }, new String[] { "INFO", "WARN" });
+    final YajbeMapper mapper = new YajbeMapper(new YajbeFactory(new YajbeEnumLruMappingConfig(32, 2), dictionary));
+
+    // the enum strings of the dictionary are referenced from the first occurrence (minFreq is 2)
+    for (int i = 0; i < 3; ++i) {
+      final Map<String, Object> input = Map.of("level", "WARN");
+      final byte[] enc = mapper.writeValueAsBytes(input);
+      assertEquals("081005" + "3fa0" + "08000109" + "01" + "01", HexFormat.of().formatHex(enc));
+      assertEquals(input, mapper.readValue(enc, Map.class));
+    }
+
+    // strings not in the dictionary use the lru as before, and get the index after the dictionary ones
+    final List<Map<String, Object>> rows = List.of(Map.of("code", "E404"), Map.of("code", "E404"), Map.of("code", "E404"), Map.of("level", "INFO"));
+    final byte[] enc = mapper.writeValueAsBytes(rows);
+    assertEquals(rows, mapper.readValue(enc, List.class));
+    assertEquals(JSON_MAPPER.valueToTree(rows), mapper.readTree(enc));
+
+    // the previous dictionaries can be registered on the factory, to decode the old streams
+    final YajbeDictionary oldDictionary = new YajbeDictionary(4, new String[] { "code" }, new String[] { "E500" });
+    final YajbeMapper oldMapper = new YajbeMapper(new YajbeFactory(new YajbeEnumLruMappingConfig(32, 2), oldDictionary));
+    final byte[] oldEnc = oldMapper.writeValueAsBytes(Map.of("code", "E500"));
+    assertThrows(IOException.class, () -> mapper.readValue(oldEnc, Map.class));
+    mapper.getFactory().dictionaries().register(oldDictionary);
+    assertEquals(Map.of("code", "E500"), mapper.readValue(oldEnc, Map.class));
+  }
+
+  @Test
+  public void testSerializable() throws IOException, ClassNotFoundException {
+    final Map<String, Object> input = Map.of("level", "WARN", "code", 404);
+
+    // the default factory and mapper
+    final YajbeFactory factory = roundTrip(new YajbeFactory());
+    assertEquals(YajbeFactory.class, factory.getClass());
+    final YajbeMapper defaultMapper = roundTrip(new YajbeMapper());
+    assertEquals(input, defaultMapper.readValue(defaultMapper.writeValueAsBytes(input), Map.class));
+
+    // the enum config and the dictionary are serialized, the factory dictionary is registered again
+    final YajbeDictionary dictionary = new YajbeDictionary(5, new String[] { "level", "code" }, new String[] { "INFO", "WARN" });
+    final YajbeMapper mapper = new YajbeMapper(new YajbeFactory(new YajbeEnumLruMappingConfig(32, 2), dictionary));
+    final YajbeMapper mapperCopy = roundTrip(mapper);
+    final byte[] enc = mapper.writeValueAsBytes(input);
+    assertArrayEquals(enc, mapperCopy.writeValueAsBytes(input));
+    assertEquals(input, mapperCopy.readValue(enc, Map.class));
+    assertEquals(1, mapperCopy.getFactory().dictionaries().size());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T roundTrip(final T value) throws IOException, ClassNotFoundException {
+    final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(buf)) {
+      out.writeObject(value);
+    }
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buf.toByteArray()))) {
+      return (T) in.readObject();
+    }
+  }
+
+  @Test
+  public void testRegistry() {
+    final YajbeDictionaryRegistry registry = new YajbeDictionaryRegistry();
+    registry.register(new YajbeDictionary(1, new String[] { "a" }, new String[0]));
+    // the same dictionary can be registered again, a different one with the same id is rejected
+    registry.register(new YajbeDictionary(1, new String[] { "a" }, new String[0]));
+    assertThrows(IllegalArgumentException.class, () -> registry.register(new YajbeDictionary(1, new String[] { "b" }, new String[0])));
+    assertEquals(1, registry.size());
+    assertThrows(IllegalArgumentException.class, () -> new YajbeDictionary(-1, new String[0], new String[0]));
+  }
+
+  private static Map<String, Object> event(final int i) {
+    final LinkedHashMap<String, Object> event = new LinkedHashMap<>();
+    event.put("timestamp", 1_700_000_000 + i);
+    event.put("level", (i & 1) == 0 ? "INFO" : "WARN");
+    event.put("region", "eu-west-1");
+    event.put("description", "event " + i);
+    for (int k = 0; k < 20; ++k) {
+      event.put("attr" + k, k);
+    }
+    return event;
+  }
+}
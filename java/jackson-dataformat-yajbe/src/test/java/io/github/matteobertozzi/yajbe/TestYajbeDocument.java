@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumLruMappingConfig;
+
+public class TestYajbeDocument extends BaseYajbeTest {
+  @TempDir
+  File tempDir;
+
+  @Test
+  public void testRandomAccess() throws IOException {
+    final ObjectMapper enumMapper = new YajbeMapper(new YajbeFactory(new YajbeEnumLruMappingConfig(32, 1)));
+    for (final ObjectMapper mapper: List.of(YAJBE_MAPPER, enumMapper)) {
+      final List<Map<String, Object>> rows = randRows(200);
+      final byte[] enc = mapper.writeValueAsBytes(rows);
+
+      final File file = new File(tempDir, "rows.yajbe");
+      mapper.writeValue(file, rows);
+
+      final List<YajbeDocument> docs = List.of(
+        YajbeDocument.of(enc),
+        YajbeDocument.of(ByteBuffer.allocateDirect(enc.length).put(enc).flip()),
+        YajbeDocument.of(file)
+      );
+      for (final YajbeDocument doc: docs) {
+        // start from the end, so the field names and the enums are resolved by the frontier
+        final YajbeValue root = doc.root();
+        assertTrue(root.isArray());
+        assertEquals(rows.size(), root.size());
+        for (int i = rows.size() - 1; i >= 0; --i) {
+          final Map<String, Object> row = rows.get(i);
+          final YajbeValue item = root.get(i);
+          assertEquals(row.get("type"), item.get("type").asString());
+          assertEquals(row.get("id"), item.get("id").asLong());
+          assertEquals(((Map<?, ?>) row.get("actor")).get("login"), item.get("actor").get("login").asString());
+          assertEquals(new ArrayList<>(row.keySet()), item.fieldNames());
+        }
+        assertNull(root.get(rows.size()));
+        assertNull(root.get(0).get("missing"));
+
+        // full conversion, in order
+        assertEquals(JSON_MAPPER.readTree(JSON_MAPPER.writeValueAsBytes(rows)), toJsonNode(doc.root()));
+      }
+    }
+  }
+
+  @Test
+  public void testDictionary() throws IOException {
+    final YajbeDictionary dictionary = new YajbeDictionary(7, new String[] { "id", "type", "actor" }, new String[] { "type-1", "type-2" });
+    final YajbeMapper mapper = new YajbeMapper(new YajbeFactory(new YajbeEnumLruMappingConfig(32, 2), dictionary));
+    final List<Map<String, Object>> rows = randRows(50);
+    final byte[] enc = mapper.writeValueAsBytes(rows);
+
+    // without the registry the dictionary id cannot be resolved
+    assertThrows(IOException.class, () -> YajbeDocument.of(enc).root().get(49).get("type"));
+
+    final YajbeValue root = YajbeDocument.of(enc, YajbeDictionaryRegistry.of(dictionary)).root();
+    for (int i = rows.size() - 1; i >= 0; --i) {
+      final Map<String, Object> row = rows.get(i);
+      assertEquals(row.get("type"), root.get(i).get("type").asString());
+      assertEquals(row.get("id"), root.get(i).get("id").asLong());
+    }
+    assertEquals(JSON_MAPPER.readTree(JSON_MAPPER.writeValueAsBytes(rows)), toJsonNode(root));
+  }
+
+  @Test
+  public void testExactNumbers() throws IOException {
+    final List<Object> values = List.of(12, 3.0, 2.5, 1L << 40, (double) (1L << 53), 0x1p63, Double.NaN,
+      new BigDecimal("7.000"), new BigDecimal("7.5"), new BigDecimal("1e30"), BigInteger.ONE.shiftLeft(70));
+    final YajbeValue root = YajbeDocument.of(YAJBE_MAPPER.writeValueAsBytes(values)).root();
+
+    assertEquals(12, root.get(0).asInt());
+    assertEquals(3, root.get(1).asInt());
+    assertThrows(IOException.class, () -> root.get(2).asInt());
+    assertThrows(IOException.class, () -> root.get(2).asLong());
+    assertThrows(IOException.class, () -> root.get(3).asInt());
+    assertEquals(1L << 40, root.get(3).asLong());
+    assertThrows(IOException.class, () -> root.get(4).asInt());
+    assertEquals(1L << 53, root.get(4).asLong());
+    assertThrows(IOException.class, () -> root.get(5).asLong());
+    assertThrows(IOException.class, () -> root.get(6).asInt());
+    assertThrows(IOException.class, () -> root.get(6).asLong());
+    assertEquals(7, root.get(7).asInt());
+    assertEquals(7, root.get(7).asLong());
+    assertThrows(IOException.class, () -> root.get(8).asInt());
+    assertThrows(IOException.class, () -> root.get(8).asLong());
+    assertThrows(IOException.class, () -> root.get(9).asInt());
+    assertThrows(IOException.class, () -> root.get(9).asLong());
+    assertThrows(IOException.class, () -> root.get(10).asLong());
+  }
+
+  @Test
+  public void testEofContainers() throws IOException {
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try (JsonGenerator gen = YAJBE_MAPPER.createGenerator(stream)) {
+      gen.writeStartObject();
+      gen.writeFieldName("items");
+      gen.writeStartArray();
+      for (int i = 0; i < 20; ++i) {
+        gen.writeStartObject();
+        gen.writeNumberField("value", i);
+        gen.writeStringField("name", "item-" + i);
+        gen.writeEndObject();
+      }
+      gen.writeEndArray();
+      gen.writeBooleanField("bool", true);
+      gen.writeBinaryField("bytes", new byte[] { 1, 2, 3 });
+      gen.writeNumberField("float", 1.5);
+      gen.writeNullField("null");
+      gen.writeEndObject();
+    }
+
+    final YajbeValue root = YajbeDocument.of(stream.toByteArray()).root();
+    assertEquals(5, root.size());
+    assertTrue(root.get("bool").asBoolean());
+    assertArrayEquals(new byte[] { 1, 2, 3 }, root.get("bytes").asBytes());
+    assertEquals(1.5, root.get("float").asDouble());
+    assertTrue(root.get("null").isNull());
+    assertFalse(root.get("null").isNumber());
+
+    final YajbeValue items = root.get("items");
+    assertEquals(20, items.size());
+    assertEquals(19, items.get(19).get("value").asInt());
+    assertEquals("item-7", items.get(7).get("name").asString());
+  }
+
+  private static JsonNode toJsonNode(final YajbeValue value) throws IOException {
+    final JsonNodeFactory factory = JsonNodeFactory.instance;
+    if (value.isObject()) {
+      final ObjectNode node = factory.objectNode();
+      for (final String name: value.fieldNames()) {
+        node.set(name, toJsonNode(value.get(name)));
+      }
+      return node;
+    }
+    if (value.isArray()) {
+      final ArrayNode node = factory.arrayNode();
+      for (int i = 0, n = value.size(); i < n; ++i) {
+        node.add(toJsonNode(value.get(i)));
+      }
+      return node;
+    }
+    if (value.isNull()) return factory.nullNode();
+    if (value.isBoolean()) return factory.booleanNode(value.asBoolean());
+    if (value.isString()) return factory.textNode(value.asString());
+    if (value.isBytes()) return factory.binaryNode(value.asBytes());
+    final long v = value.asLong();
+    return (v == (int) v) ? factory.numberNode((int) v) : factory.numberNode(v);
+  }
+
+  private List<Map<String, Object>> randRows(final int count) {
+    final ArrayList<Map<String, Object>> rows = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      final LinkedHashMap<String, Object> actor = new LinkedHashMap<>();
+      actor.put("login", "user-" + RANDOM.nextInt(8));
+      actor.put("url", "https://example.com/" + randText(2));
+
+      final LinkedHashMap<String, Object> row = new LinkedHashMap<>();
+      row.put("id", RANDOM.nextLong());
+      row.put("type", "type-" + RANDOM.nextInt(4));
+      row.put("actor", actor);
+      row.put("key" + RANDOM.nextInt(64), List.of(RANDOM.nextInt(), "tag-" + RANDOM.nextInt(4), Map.of("k", true)));
+      rows.add(row);
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumLruMappingConfig;
+import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumTinyLfuMappingConfig;
+
+public class TestYajbeEnumMapping extends BaseYajbeTest {
+  @Test
+  public void testTinyLfu() throws IOException {
+    final ObjectMapper mapper = new YajbeMapper(new YajbeFactory(new YajbeEnumTinyLfuMappingConfig(64, 2)));
+
+    // config (type 2, width 64, minFreq 2), indexed on the second occurrence, referenced from the third
+    final List<String> input = List.of("aaa", "aaa", "aaa", "bbb", "aaa");
+    final byte[] enc = mapper.writeValueAsBytes(input);
+    assertEquals("25" + "082101" + "c3616161" + "c3616161" + "0900" + "c3626262" + "0900", HexFormat.of().formatHex(enc));
+    assertEquals(input, mapper.readValue(enc, List.class));
+
+    // the dictionary enum strings are indexed before the sketch ones
+    final YajbeDictionary dictionary = new YajbeDictionary(1, new String[0], new String[] { "bbb" });
+    final ObjectMapper dictMapper = new YajbeMapper(new YajbeFactory(new YajbeEnumTinyLfuMappingConfig(64, 2), dictionary));
+    final byte[] dictEnc = dictMapper.writeValueAsBytes(input);
+    assertEquals("081001" + "25" + "082101" + "c3616161" + "c3616161" + "0901" + "0900" + "0901", HexFormat.of().formatHex(dictEnc));
+    assertEquals(input, dictMapper.readValue(dictEnc, List.class));
+  }
+
+  @Test
+  public void testTinyLfuMaxWidth() throws IOException {
+    // the width is encoded in 4 bits, a larger one would be read back as another config type
+    final ObjectMapper mapper = new YajbeMapper(new YajbeFactory(new YajbeEnumTinyLfuMappingConfig(1 << 20, 2)));
+    final List<String> input = List.of("aaa", "aaa", "aaa", "bbb", "aaa");
+    final byte[] enc = mapper.writeValueAsBytes(input);
+    assertEquals("082f01", HexFormat.of().formatHex(enc, 1, 4));
+    assertEquals(input, mapper.readValue(enc, List.class));
+
+    assertThrows(IllegalArgumentException.class, () -> new YajbeEnumTinyLfuMappingConfig(1 << 21, 2));
+    assertThrows(IllegalArgumentException.class, () -> new YajbeEnumTinyLfuMappingConfig(16, 2));
+    assertThrows(IllegalArgumentException.class, () -> new YajbeEnumTinyLfuMapping(1 << 21, 2));
+    assertThrows(IllegalArgumentException.class, () -> new YajbeEnumTinyLfuMapping(1 << 28, 2));
+  }
+
+  @Test
+  public void testLruMaxSize() throws IOException {
+    // the size is encoded in 4 bits, a larger one would be read back as a dictionary config
+    final ObjectMapper mapper = new YajbeMapper(new YajbeFactory(new YajbeEnumLruMappingConfig(1 << 20, 2)));
+    final List<String> input = List.of("aaa", "aaa", "aaa", "bbb", "aaa");
+    final byte[] enc = mapper.writeValueAsBytes(input);
+    assertEquals("080f01", HexFormat.of().formatHex(enc, 1, 4));
+    assertEquals(input, mapper.readValue(enc, List.class));
+
+    assertThrows(IllegalArgumentException.class, () -> new YajbeEnumLruMappingConfig(1 << 21, 2));
+    assertThrows(IllegalArgumentException.class, () -> new YajbeEnumLruMappingConfig(16, 2));
+  }
+
+  @Test
+  public void testEnumIndexMarkers() throws IOException {
+    final YajbeMapper mapper = new YajbeMapper(new YajbeFactory(new YajbeEnumLruMappingConfig(32, 2)).enable(YajbeGeneratorFeature.ENUM_INDEX_MARKERS));
+
+    // config (type 3), the string indexed by the encoder is marked (0x0b) and the decoder just appends it
+    final List<String> input = List.of("aaa", "aaa", "aaa", "bbb", "aaa");
+    final byte[] enc = mapper.writeValueAsBytes(input);
+    assertEquals("25" + "0830" + "c3616161" + "0b" + "c3616161" + "0900" + "c3626262" + "0900", HexFormat.of().formatHex(enc));
+    assertEquals(input, mapper.readValue(enc, List.class));
+    assertEquals("aaa", YajbeDocument.of(enc).root().get(4).asString());
+    assertEquals("aaa", YajbeDocument.of(enc).root().get(1).asString());
+
+    // skipped values must still add the marked strings
+    final List<Map<String, String>> rows = List.of(Map.of("a", "xyz"), Map.of("a", "xyz"), Map.of("b", "xyz"), Map.of("b", "xyz"));
+    final byte[] rowsEnc = mapper.writeValueAsBytes(rows);
+    assertEquals(List.of(Map.of(), Map.of(), Map.of("b", "xyz"), Map.of("b", "xyz")), mapper.readValue(rowsEnc, YajbeProjection.of("/*/b"), List.class));
+  }
+
+  @Test
+  public void testHighCardinality() throws IOException {
+    // a few repeated values hidden between many unique ones, like request ids in logs
+    final ArrayList<Map<String, String>> rows = new ArrayList<>();
+    for (int i = 0; i < 20_000; ++i) {
+      final String level = "level-" + RANDOM.nextInt(50);
+      rows.add(Map.of("k", (i % 10 == 0) ? level : ("req-" + Long.toHexString(RANDOM.nextLong()))));
+    }
+
+    final ObjectMapper lruMapper = new YajbeMapper(new YajbeFactory(new YajbeEnumLruMappingConfig(64, 2)));
+    final ObjectMapper tinyLfuMapper = new YajbeMapper(new YajbeFactory(new YajbeEnumTinyLfuMappingConfig(256, 2)));
+    final byte[] lruEnc = lruMapper.writeValueAsBytes(rows);
+    final byte[] tinyLfuEnc = tinyLfuMapper.writeValueAsBytes(rows);
+    assertEquals(rows, lruMapper.readValue(lruEnc, List.class));
+    assertEquals(rows, tinyLfuMapper.readValue(tinyLfuEnc, List.class));
+
+    final ObjectMapper markersMapper = new YajbeMapper(new YajbeFactory(new YajbeEnumTinyLfuMappingConfig(256, 2)).enable(YajbeGeneratorFeature.ENUM_INDEX_MARKERS));
+    assertEquals(rows, markersMapper.readValue(markersMapper.writeValueAsBytes(rows), List.class));
+
+    // the unique values evict the repeated ones from the lru before they are seen again
+    final YajbeEnumTinyLfuMapping mapping = new YajbeEnumTinyLfuMapping(256, 2);
+    for (final Map<String, String> row: rows) {
+      mapping.add(row.get("k"));
+    }
+    assertTrue(mapping.size() >= 50, "indexed " + mapping.size());
+    assertTrue(tinyLfuEnc.length < lruEnc.length, "tinyLfu " + tinyLfuEnc.length + " lru " + lruEnc.length);
+  }
+}
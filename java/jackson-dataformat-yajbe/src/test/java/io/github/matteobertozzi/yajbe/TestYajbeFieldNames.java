@@ -17,16 +17,30 @@
 
 package io.github.matteobertozzi.yajbe;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import io.github.matteobertozzi.yajbe.YajbeReader.ByteArraySlice;
+
 public class TestYajbeFieldNames extends BaseYajbeTest {
   @Test
   public void testSimple() throws Exception {
@@ -75,6 +89,91 @@ public class TestYajbeFieldNames extends BaseYajbeTest {
     testEncodeDecode(fields, null);
   }
 
+  @Test
+  public void testCanonicalFieldNames() throws IOException {
+    final YajbeFactory factory = new YajbeFactory();
+    final byte[] enc = new YajbeMapper(factory).writeValueAsBytes(List.of(
+      Map.of("name", 1, "a-longer-field-name", 2), Map.of("name", 3, "a-longer-field-name", 4)));
+
+    // the parsers of the same factory share the field name strings
+    final List<String> names = readFieldNames(factory, enc);
+    assertEquals(4, names.size());
+    final List<String> otherNames = readFieldNames(factory, enc);
+    for (int i = 0; i < names.size(); ++i) {
+      assertSame(names.get(i), otherNames.get(i));
+    }
+
+    final YajbeFactory uncachedFactory = factory.rebuild().disable(JsonFactory.Feature.CANONICALIZE_FIELD_NAMES).build();
+    final List<String> uncachedNames = readFieldNames(uncachedFactory, enc);
+    assertEquals(names, uncachedNames);
+    assertNotSame(names.get(0), uncachedNames.get(0));
+  }
+
+  @Test
+  public void testCanonicalizerIsBounded() {
+    final YajbeFieldNameCanonicalizer canonicalizer = new YajbeFieldNameCanonicalizer(64);
+    assertEquals(64, canonicalizer.capacity());
+
+    final ArrayList<String> names = new ArrayList<>();
+    for (int i = 0; i < 1000; ++i) {
+      names.add(generateFieldName(1, 32));
+    }
+    for (final String name: names) {
+      final ByteArraySlice utf8 = new ByteArraySlice(("__" + name + "__").getBytes(StandardCharsets.UTF_8), 2, name.length());
+      assertEquals(name, canonicalizer.canonicalize(utf8));
+      assertSame(canonicalizer.canonicalize(utf8), canonicalizer.canonicalize(new ByteArraySlice(utf8.toByteArray())));
+    }
+    assertTrue(canonicalizer.size() <= canonicalizer.capacity());
+
+    // long names are not cached
+    final String longName = generateFieldName(300, 310);
+    final ByteArraySlice utf8 = new ByteArraySlice(longName.getBytes(StandardCharsets.UTF_8));
+    assertEquals(longName, canonicalizer.canonicalize(utf8));
+    assertNotSame(canonicalizer.canonicalize(utf8), canonicalizer.canonicalize(utf8));
+  }
+
+  @Test
+  public void testSerializedFieldNames() throws IOException {
+    final ArrayList<String> names = new ArrayList<>();
+    for (int i = 0; i < 100; ++i) {
+      names.add("prefix-" + generateFieldName(1, 8) + "-suffix");
+    }
+    final SerializedString[] serialized = names.stream().map(SerializedString::new).toArray(SerializedString[]::new);
+
+    // the pre-encoded names must produce the same bytes of the plain strings
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    try (JsonGenerator stringGen = YAJBE_MAPPER.createGenerator(expected); JsonGenerator serializedGen = YAJBE_MAPPER.createGenerator(actual)) {
+      stringGen.writeStartObject();
+      serializedGen.writeStartObject();
+      for (int i = 0; i < 1000; ++i) {
+        final int index = RANDOM.nextInt(names.size());
+        stringGen.writeFieldName(names.get(index));
+        stringGen.writeNumber(i);
+        // mix the string and the serialized version of the same name
+        if ((i & 7) == 0) {
+          serializedGen.writeFieldName(names.get(index));
+        } else {
+          serializedGen.writeFieldName(serialized[index]);
+        }
+        serializedGen.writeNumber(i);
+      }
+      stringGen.writeEndObject();
+      serializedGen.writeEndObject();
+    }
+    assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+  }
+
+  private static List<String> readFieldNames(final YajbeFactory factory, final byte[] enc) throws IOException {
+    final ArrayList<String> names = new ArrayList<>();
+    try (JsonParser parser = factory.createParser(enc)) {
+      while (parser.nextToken() != null) {
+        if (parser.currentToken() == JsonToken.FIELD_NAME) names.add(parser.currentName());
+      }
+    }
+    return names;
+  }
+
   private static void testEncodeDecode(final List<String> fieldNames, final String expectedHex) throws IOException {
     try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
       final YajbeWriterStream writer = new YajbeWriterStream(baos, new byte[128]);
@@ -19,13 +19,21 @@ package io.github.matteobertozzi.yajbe;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
 public class TestYajbeFloats extends BaseYajbeTest {
   @Test
   public void testSimple() throws IOException {
@@ -107,6 +115,123 @@ public class TestYajbeFloats extends BaseYajbeTest {
     }
   }
 
+  @Test
+  public void testArrayBulkEncoding() throws IOException {
+    // the bulk writeArray() must produce the same bytes of the per-element writeNumber()
+    for (final int length: new int[] { 0, 1, 2, 10, 11, 1000, 100_000 }) {
+      final float[] floats = new float[length];
+      final double[] doubles = new double[length];
+      final ArrayList<Float> floatList = new ArrayList<>(length);
+      final ArrayList<Double> doubleList = new ArrayList<>(length);
+      for (int i = 0; i < length; ++i) {
+        floats[i] = RANDOM.nextFloat() * RANDOM.nextInt();
+        doubles[i] = RANDOM.nextDouble() * RANDOM.nextLong();
+        floatList.add(floats[i]);
+        doubleList.add(doubles[i]);
+      }
+
+      assertArrayEquals(YAJBE_MAPPER.writeValueAsBytes(floatList), YAJBE_MAPPER.writeValueAsBytes(floats));
+      assertArrayEquals(YAJBE_MAPPER.writeValueAsBytes(doubleList), YAJBE_MAPPER.writeValueAsBytes(doubles));
+
+      final ByteBuffer buffer = ByteBuffer.allocate(16 + length * 9);
+      ((YajbeMapper) YAJBE_MAPPER).writeValue(buffer, doubles);
+      assertArrayEquals(doubles, ((YajbeMapper) YAJBE_MAPPER).readValue(buffer.flip(), double[].class));
+    }
+  }
+
+  @Test
+  public void testFloat16() throws IOException {
+    assertEquals(0.5, YAJBE_MAPPER.readValue(HexFormat.of().parseHex("040038"), double.class));
+    assertEquals(-2.0f, YAJBE_MAPPER.readValue(HexFormat.of().parseHex("0400c0"), float.class));
+    assertEquals(65504.0, YAJBE_MAPPER.readValue(HexFormat.of().parseHex("04ff7b"), double.class));
+    assertEquals(0x1p-24, YAJBE_MAPPER.readValue(HexFormat.of().parseHex("040100"), double.class));
+    assertEquals(-0.0, YAJBE_MAPPER.readValue(HexFormat.of().parseHex("040080"), double.class));
+    assertEquals(Double.POSITIVE_INFINITY, YAJBE_MAPPER.readValue(HexFormat.of().parseHex("04007c"), double.class));
+    assertEquals(Double.NEGATIVE_INFINITY, YAJBE_MAPPER.readValue(HexFormat.of().parseHex("0400fc"), double.class));
+    assertEquals(Double.NaN, YAJBE_MAPPER.readValue(HexFormat.of().parseHex("04007e"), double.class));
+    assertEquals(List.of(0.5f, 1.5f), YAJBE_MAPPER.readValue(HexFormat.of().parseHex("2204003804003e"), List.class));
+
+    // every float16 value is converted to float32 and back without loss (NaNs are canonical)
+    for (int bits = 0; bits <= 0xffff; ++bits) {
+      final float v = YajbeReader.float16ToFloat(bits);
+      assertEquals(Float.isNaN(v) ? 0x7e00 : bits, YajbeWriter.float16Bits(v));
+    }
+    assertEquals(-1, YajbeWriter.float16Bits(1.1f));
+    assertEquals(-1, YajbeWriter.float16Bits(65520.0f));
+    assertEquals(-1, YajbeWriter.float16Bits(0x1p-25f));
+    assertEquals(-1, YajbeWriter.float16Bits(Float.MIN_VALUE));
+  }
+
+  @Test
+  public void testCompactFloats() throws IOException {
+    final ObjectWriter writer = YAJBE_MAPPER.writer().with(YajbeGeneratorFeature.COMPACT_FLOATS);
+    assertHexEquals("40", writer.writeValueAsBytes(1.0));
+    assertHexEquals("62", writer.writeValueAsBytes(-2.0f));
+    assertHexEquals("040038", writer.writeValueAsBytes(0.5));
+    assertHexEquals("040080", writer.writeValueAsBytes(-0.0));
+    assertHexEquals("04ff7b", writer.writeValueAsBytes(65504.0));
+    assertHexEquals("5a878601", writer.writeValueAsBytes(100000.0));
+    assertHexEquals("04007c", writer.writeValueAsBytes(Double.POSITIVE_INFINITY));
+    assertHexEquals("04007e", writer.writeValueAsBytes(Double.NaN));
+    assertHexEquals("05cdcc8c3f", writer.writeValueAsBytes(1.1f));
+    assertHexEquals("050000005f", writer.writeValueAsBytes(0x1p63));
+    assertHexEquals("069a9999999999f13f", writer.writeValueAsBytes(1.1));
+
+    // the value is preserved, the type may not
+    for (final double v: new double[] { 0, -0.0, 1, -1, 0.25, 24, 25, -24, 1e10, 0x1p53, -0x1p63, 0x1p63, 1e300, 0x1p-24, 0x1p-1074,
+        Double.MAX_VALUE, Double.MIN_NORMAL, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY }) {
+      final byte[] enc = writer.writeValueAsBytes(v);
+      assertEquals(Double.doubleToLongBits(v), Double.doubleToLongBits(YAJBE_MAPPER.readValue(enc, double.class)));
+      assertEquals(v, YAJBE_MAPPER.readValue(enc, Number.class).doubleValue());
+    }
+
+    for (int i = 0; i < 1000; ++i) {
+      final double v = switch (i % 4) {
+        case 0 -> RANDOM.nextInt(-100_000, 100_000);
+        case 1 -> RANDOM.nextInt(-1000, 1000) / 8.0;
+        case 2 -> RANDOM.nextFloat();
+        default -> RANDOM.nextDouble() * RANDOM.nextLong();
+      };
+      final byte[] enc = writer.writeValueAsBytes(v);
+      assertEquals(v, YAJBE_MAPPER.readValue(enc, double.class));
+      assertTrue(enc.length <= YAJBE_MAPPER.writeValueAsBytes(v).length);
+    }
+  }
+
+  @Test
+  public void testCompactFloatArrays() throws IOException {
+    final ObjectWriter writer = YAJBE_MAPPER.writer().with(YajbeGeneratorFeature.COMPACT_FLOATS);
+    final ObjectWriter typedWriter = writer.with(YajbeGeneratorFeature.TYPED_ARRAYS);
+    assertHexEquals("230400384062", writer.writeValueAsBytes(new double[] { 0.5, 1, -2 }));
+    assertHexEquals("1c420038003c00c0", typedWriter.writeValueAsBytes(new double[] { 0.5, 1, -2 }));
+    assertHexEquals("1d41cdcc8c3f0000803f", typedWriter.writeValueAsBytes(new float[] { 1.1f, 1.0f }));
+    assertHexEquals("1e419a9999999999f13f000000000000f03f", typedWriter.writeValueAsBytes(new double[] { 1.1, 1.0 }));
+
+    for (final int length: new int[] { 0, 1, 2, 10, 1000, 100_000 }) {
+      final int kind = RANDOM.nextInt(3);
+      final double[] doubles = new double[length];
+      final float[] floats = new float[length];
+      final ArrayList<Double> doubleList = new ArrayList<>(length);
+      for (int i = 0; i < length; ++i) {
+        doubles[i] = switch (kind) {
+          case 0 -> RANDOM.nextInt(-1000, 1000) / 4.0;
+          case 1 -> RANDOM.nextFloat();
+          default -> RANDOM.nextDouble();
+        };
+        floats[i] = (float) doubles[i];
+        doubleList.add(doubles[i]);
+      }
+
+      // the bulk writeArray() must produce the same bytes of the per-element writeNumber()
+      assertArrayEquals(writer.writeValueAsBytes(doubleList), writer.writeValueAsBytes(doubles));
+      assertArrayEquals(doubles, YAJBE_MAPPER.readValue(writer.writeValueAsBytes(doubles), double[].class));
+      assertArrayEquals(floats, YAJBE_MAPPER.readValue(writer.writeValueAsBytes(floats), float[].class));
+      assertArrayEquals(doubles, YAJBE_MAPPER.readValue(typedWriter.writeValueAsBytes(doubles), double[].class));
+      assertArrayEquals(floats, YAJBE_MAPPER.readValue(typedWriter.writeValueAsBytes(floats), float[].class));
+      assertEquals(doubleList, YAJBE_MAPPER.readValue(typedWriter.writeValueAsBytes(doubles), new TypeReference<List<Double>>() {}));
+    }
+  }
+
   @Test
   public void testRandBigIntegerEncodeDecode() throws IOException {
     for (int i = 0; i < 100; ++i) {
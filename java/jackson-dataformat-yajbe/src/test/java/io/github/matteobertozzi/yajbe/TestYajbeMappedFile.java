@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+public class TestYajbeMappedFile extends BaseYajbeTest {
+  @TempDir
+  File tempDir;
+
+  @Test
+  public void testReadFile() throws IOException {
+    final List<Map<String, Object>> input = randRows(256);
+    final File file = new File(tempDir, "rows.yajbe");
+    YAJBE_MAPPER.writeValue(file, input);
+    assertEquals(input, YAJBE_MAPPER.readValue(file, List.class));
+  }
+
+  @Test
+  public void testEmptyFile() throws IOException {
+    final File file = new File(tempDir, "empty.yajbe");
+    Files.write(file.toPath(), new byte[0]);
+
+    final YajbeReader reader = YajbeReader.fromFile(file);
+    assertEquals(-1, reader.peek());
+    assertEquals(-1, reader.read());
+  }
+
+  @Test
+  public void testChunkBoundaries() throws IOException {
+    final List<Map<String, Object>> input = randRows(64);
+    final File file = new File(tempDir, "chunks.yajbe");
+    YAJBE_MAPPER.writeValue(file, input);
+
+    // use tiny chunks, so ints, strings and field names are split between chunks
+    for (int chunkShift = 0; chunkShift <= 8; ++chunkShift) {
+      final YajbeReader reader = YajbeReaderMappedFile.open(file, chunkShift);
+      try (JsonParser parser = new YajbeParser(null, 0, YAJBE_MAPPER, reader)) {
+        assertEquals(input, YAJBE_MAPPER.readValue(parser, List.class));
+      }
+    }
+  }
+
+  @Test
+  public void testBytesValues() throws IOException {
+    final byte[][] input = new byte[64][];
+    for (int i = 0; i < input.length; ++i) {
+      input[i] = new byte[RANDOM.nextInt(0, 300)];
+      RANDOM.nextBytes(input[i]);
+    }
+    final File file = new File(tempDir, "bytes.yajbe");
+    YAJBE_MAPPER.writeValue(file, input);
+
+    // the values crossing a chunk boundary are copied, the others are slices of the chunk
+    for (int chunkShift = 0; chunkShift <= 10; ++chunkShift) {
+      final YajbeReader reader = YajbeReaderMappedFile.open(file, chunkShift);
+      try (JsonParser parser = new YajbeParser(null, 0, YAJBE_MAPPER, reader)) {
+        assertArrayEquals(input, YAJBE_MAPPER.readValue(parser, byte[][].class));
+      }
+    }
+
+    final YajbeValue root = YajbeDocument.of(file).root();
+    for (int i = 0; i < input.length; ++i) {
+      final ByteBuffer slice = root.get(i).asByteBuffer();
+      assertTrue(slice.isReadOnly());
+      assertEquals(ByteBuffer.wrap(input[i]), slice);
+    }
+  }
+
+  private List<Map<String, Object>> randRows(final int count) {
+    final ArrayList<Map<String, Object>> rows = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      final LinkedHashMap<String, Object> row = new LinkedHashMap<>();
+      row.put("id", RANDOM.nextLong());
+      row.put("name", randText(RANDOM.nextInt(1, 32)));
+      row.put("value", RANDOM.nextInt());
+      row.put("k" + RANDOM.nextInt(16), RANDOM.nextBoolean());
+      rows.add(row);
+    }
+    return rows;
+  }
+}
@@ -18,17 +18,27 @@
 package io.github.matteobertozzi.yajbe;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HexFormat;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import org.junit.jupiter.api.Test;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.cfg.ContextAttributes;
+import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
 
 public class TestYajbeMaps extends BaseYajbeTest {
   record DataObject (int a, DataObject obj) {}
@@ -139,4 +149,79 @@ public class TestYajbeMaps extends BaseYajbeTest {
       assertEquals(input, YAJBE_MAPPER.readValue(enc, Map.class));
     }
   }
+
+  public static class Bean {
+    public int id;
+    public String name;
+    public Bean child;
+    public List<Bean> items;
+
+    @Override
+    public boolean equals(final Object obj) {
+      return obj instanceof final Bean other && id == other.id && Objects.equals(name, other.name)
+          && Objects.equals(child, other.child) && Objects.equals(items, other.items);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(id, name, child, items);
+    }
+  }
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public static class PartialBean {
+    public String name;
+  }
+
+  @Test
+  public void testFieldIndex() throws IOException {
+    final byte[] enc = YAJBE_MAPPER.writeValueAsBytes(List.of(Map.of("a", 1), Map.of("a", 2), Map.of("b", 3)));
+    final ArrayList<Integer> indexes = new ArrayList<>();
+    try (YajbeParser parser = (YajbeParser) YAJBE_MAPPER.createParser(enc)) {
+      while (parser.nextToken() != null) {
+        if (parser.currentToken() != JsonToken.FIELD_NAME) {
+          assertEquals(-1, parser.currentFieldIndex());
+        } else {
+          indexes.add(parser.currentFieldIndex());
+        }
+      }
+    }
+    // "a" is added to the index by the first object, and referenced by the second one
+    assertEquals(List.of(0, 0, 1), indexes);
+  }
+
+  @Test
+  public void testBeans() throws IOException {
+    final DefaultDeserializationContext ctxt = ((DefaultDeserializationContext) YAJBE_MAPPER.getDeserializationContext())
+      .createInstance(YAJBE_MAPPER.getDeserializationConfig(), null, null);
+    assertInstanceOf(YajbeBeanDeserializer.class, ctxt.findRootValueDeserializer(YAJBE_MAPPER.constructType(Bean.class)));
+
+    final ArrayList<Bean> beans = new ArrayList<>();
+    for (int i = 0; i < 100; ++i) {
+      final Bean bean = new Bean();
+      bean.id = i;
+      bean.name = (i % 3 == 0) ? null : "name-" + i;
+      if (i % 5 == 0) {
+        bean.child = new Bean();
+        bean.child.id = -i;
+        bean.items = List.of(new Bean(), bean.child);
+      }
+      beans.add(bean);
+    }
+
+    final byte[] enc = YAJBE_MAPPER.writeValueAsBytes(beans);
+    assertEquals(beans, YAJBE_MAPPER.readValue(enc, new TypeReference<List<Bean>>() {}));
+    // the same parser maps the field indexes to the properties of different bean types
+    final List<PartialBean> partial = YAJBE_MAPPER.readValue(enc, new TypeReference<List<PartialBean>>() {});
+    for (int i = 0; i < beans.size(); ++i) {
+      assertEquals(beans.get(i).name, partial.get(i).name);
+    }
+
+    final byte[] unknown = YAJBE_MAPPER.writeValueAsBytes(List.of(Map.of("id", 1), Map.of("id", 2, "unknown", 3)));
+    final UnrecognizedPropertyException e = assertThrows(UnrecognizedPropertyException.class,
+      () -> YAJBE_MAPPER.readerFor(new TypeReference<List<Bean>>() {})
+        .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).readValue(unknown));
+    assertEquals("unknown", e.getPropertyName());
+    assertEquals(2, YAJBE_MAPPER.readValue(unknown, new TypeReference<List<Bean>>() {}).size());
+  }
 }
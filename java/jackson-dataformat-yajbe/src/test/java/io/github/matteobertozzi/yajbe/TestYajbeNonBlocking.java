@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumLruMappingConfig;
+
+public class TestYajbeNonBlocking extends BaseYajbeTest {
+  @Test
+  public void testFeedRandomChunks() throws IOException {
+    final ObjectMapper enumMapper = new YajbeMapper(new YajbeFactory(new YajbeEnumLruMappingConfig(32, 1)));
+    for (final ObjectMapper mapper: List.of(YAJBE_MAPPER, enumMapper)) {
+      for (int i = 0; i < 32; ++i) {
+        final List<Object> input = randRows(RANDOM.nextInt(1, 64));
+        final byte[] enc = mapper.writeValueAsBytes(input);
+        final List<String> expected = blockingTokens(mapper, enc);
+
+        // one byte at the time, and random sized chunks
+        assertEquals(expected, nonBlockingTokens(mapper, enc, 1));
+        assertEquals(expected, nonBlockingTokens(mapper, enc, RANDOM.nextInt(2, 128)));
+      }
+    }
+  }
+
+  @Test
+  public void testByteBufferFeeder() throws IOException {
+    final List<Object> input = randRows(32);
+    final byte[] enc = YAJBE_MAPPER.writeValueAsBytes(input);
+    final List<String> expected = blockingTokens(YAJBE_MAPPER, enc);
+
+    final ArrayList<String> tokens = new ArrayList<>();
+    try (JsonParser parser = YAJBE_MAPPER.getFactory().createNonBlockingByteBufferParser()) {
+      final ByteBufferFeeder feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+      for (int off = 0; off < enc.length; off += 7) {
+        final ByteBuffer chunk = ByteBuffer.allocateDirect(7).put(enc, off, Math.min(7, enc.length - off)).flip();
+        feeder.feedInput(chunk);
+        assertEquals(0, chunk.remaining());
+        readAvailableTokens(parser, tokens);
+      }
+      feeder.endOfInput();
+      readAvailableTokens(parser, tokens);
+    }
+    assertEquals(expected, tokens);
+  }
+
+  @Test
+  public void testMultipleRootValues() throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (JsonGenerator generator = YAJBE_MAPPER.createGenerator(out)) {
+      generator.writeObject(Map.of("aaa", 1));
+      generator.writeObject(List.of("x", "y"));
+      generator.writeNumber(10);
+    }
+    final byte[] enc = out.toByteArray();
+    assertEquals(blockingTokens(YAJBE_MAPPER, enc), nonBlockingTokens(YAJBE_MAPPER, enc, 1));
+  }
+
+  @Test
+  public void testTypedArrays() throws IOException {
+    final Map<String, Object> input = new LinkedHashMap<>();
+    input.put("ints", new int[] { 1, -300, 70000 });
+    input.put("longs", new long[] { 1L << 40, -5 });
+    input.put("floats", new float[] { 1.5f, -2.25f });
+    input.put("doubles", new double[300]);
+    input.put("tail", "x");
+    final byte[] enc = YAJBE_MAPPER.writer().with(YajbeGeneratorFeature.TYPED_ARRAYS).writeValueAsBytes(input);
+    final List<String> expected = blockingTokens(YAJBE_MAPPER, enc);
+    assertEquals(expected, nonBlockingTokens(YAJBE_MAPPER, enc, 1));
+    assertEquals(expected, nonBlockingTokens(YAJBE_MAPPER, enc, 3));
+  }
+
+  @Test
+  public void testTruncatedInput() throws IOException {
+    final byte[] enc = YAJBE_MAPPER.writeValueAsBytes(Map.of("key", "some long text value"));
+    try (JsonParser parser = YAJBE_MAPPER.getFactory().createNonBlockingByteArrayParser()) {
+      final ByteArrayFeeder feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+      assertTrue(parser.canParseAsync());
+      assertTrue(feeder.needMoreInput());
+      assertEquals(JsonToken.NOT_AVAILABLE, parser.nextToken());
+
+      feeder.feedInput(enc, 0, enc.length - 4);
+      assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+      assertEquals(JsonToken.FIELD_NAME, parser.nextToken());
+      assertEquals("key", parser.currentName());
+      assertEquals(JsonToken.NOT_AVAILABLE, parser.nextToken());
+      assertTrue(feeder.needMoreInput());
+
+      feeder.endOfInput();
+      assertThrows(JsonParseException.class, parser::nextToken);
+    }
+  }
+
+  @Test
+  public void testBlockingEndOfInput() throws IOException {
+    final byte[] enc = YAJBE_MAPPER.writeValueAsBytes(List.of(1, 2));
+    try (JsonParser parser = YAJBE_MAPPER.createParser(enc)) {
+      assertEquals(List.of(1, 2), parser.readValueAs(List.class));
+      assertNull(parser.nextToken());
+    }
+
+    // truncated container
+    try (JsonParser parser = YAJBE_MAPPER.createParser(new byte[] { 0x2f, 0x40 })) {
+      assertEquals(JsonToken.START_ARRAY, parser.nextToken());
+      assertEquals(JsonToken.VALUE_NUMBER_INT, parser.nextToken());
+      assertThrows(JsonParseException.class, parser::nextToken);
+    }
+  }
+
+  private static List<String> blockingTokens(final ObjectMapper mapper, final byte[] enc) throws IOException {
+    final ArrayList<String> tokens = new ArrayList<>();
+    try (JsonParser parser = mapper.createParser(enc)) {
+      JsonToken token;
+      while ((token = parser.nextToken()) != null) {
+        tokens.add(tokenToString(parser, token));
+      }
+    }
+    return tokens;
+  }
+
+  private List<String> nonBlockingTokens(final ObjectMapper mapper, final byte[] enc, final int chunkSize) throws IOException {
+    final ArrayList<String> tokens = new ArrayList<>();
+    try (JsonParser parser = mapper.createNonBlockingByteArrayParser()) {
+      final ByteArrayFeeder feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+      for (int off = 0; off < enc.length; off += chunkSize) {
+        assertTrue(feeder.needMoreInput());
+        feeder.feedInput(enc, off, Math.min(enc.length, off + chunkSize));
+        readAvailableTokens(parser, tokens);
+      }
+      feeder.endOfInput();
+      readAvailableTokens(parser, tokens);
+    }
+    return tokens;
+  }
+
+  private static void readAvailableTokens(final JsonParser parser, final List<String> tokens) throws IOException {
+    JsonToken token;
+    while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+      tokens.add(tokenToString(parser, token));
+    }
+  }
+
+  private static String tokenToString(final JsonParser parser, final JsonToken token) throws IOException {
+    return switch (token) {
+      case FIELD_NAME -> token + ":" + parser.currentName();
+      case VALUE_STRING -> token + ":" + parser.getText();
+      case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> token + ":" + parser.getNumberValue();
+      case VALUE_EMBEDDED_OBJECT -> token + ":" + ByteBuffer.wrap(parser.getBinaryValue());
+      default -> token.toString();
+    };
+  }
+
+  private List<Object> randRows(final int count) {
+    final ArrayList<Object> rows = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      final LinkedHashMap<String, Object> row = new LinkedHashMap<>();
+      row.put("id", RANDOM.nextLong());
+      row.put("name", randText(RANDOM.nextInt(1, 48)));
+      row.put("type", "type-" + RANDOM.nextInt(4));
+      row.put("k" + RANDOM.nextInt(16), RANDOM.nextBoolean());
+      row.put("prefixKey" + RANDOM.nextInt(4) + "Suffix", null);
+      row.put("float", RANDOM.nextFloat());
+      row.put("double", RANDOM.nextDouble());
+      row.put("big", new BigDecimal(BigInteger.valueOf(RANDOM.nextLong()).pow(3), RANDOM.nextInt(-5, 5)));
+      row.put("bytes", randBytes(RANDOM.nextInt(0, 300)));
+      row.put("ints", List.of(RANDOM.nextInt(), RANDOM.nextInt(-24, 24), RANDOM.nextInt(0, 0xffff)));
+      row.put("nested", Map.of("a", List.of(), "b", Map.of()));
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  private byte[] randBytes(final int length) {
+    final byte[] data = new byte[length];
+    RANDOM.nextBytes(data);
+    return data;
+  }
+
+  @Test
+  public void testReadValueFromTokens() throws IOException {
+    final byte[] data = randBytes(1000);
+    final Map<String, Object> input = Map.of("data", data, "text", randText(100));
+    final byte[] enc = YAJBE_MAPPER.writeValueAsBytes(input);
+
+    try (JsonParser parser = YAJBE_MAPPER.createNonBlockingByteArrayParser()) {
+      final ByteArrayFeeder feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+      feeder.feedInput(enc, 0, enc.length);
+      feeder.endOfInput();
+      final Map<?, ?> output = parser.readValueAs(Map.class);
+      assertArrayEquals(data, (byte[]) output.get("data"));
+      assertEquals(input.get("text"), output.get("text"));
+    }
+  }
+}
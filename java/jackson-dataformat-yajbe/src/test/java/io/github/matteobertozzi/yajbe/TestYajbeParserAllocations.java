@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+public class TestYajbeParserAllocations extends BaseYajbeTest {
+  @Test
+  public void testContainersDoNotAllocate() throws IOException {
+    assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+
+    final byte[] small = YAJBE_MAPPER.writeValueAsBytes(rows(1_000));
+    final byte[] large = YAJBE_MAPPER.writeValueAsBytes(rows(100_000));
+
+    // warmup, so field names and class init are not counted
+    for (int i = 0; i < 10; ++i) {
+      readAllTokens(small);
+      readAllTokens(large);
+    }
+
+    final long threadId = Thread.currentThread().getId();
+    long smallAllocated = Long.MAX_VALUE;
+    long largeAllocated = Long.MAX_VALUE;
+    for (int i = 0; i < 5; ++i) {
+      long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+      readAllTokens(small);
+      smallAllocated = Math.min(smallAllocated, threadBean.getThreadAllocatedBytes(threadId) - startBytes);
+
+      startBytes = threadBean.getThreadAllocatedBytes(threadId);
+      readAllTokens(large);
+      largeAllocated = Math.min(largeAllocated, threadBean.getThreadAllocatedBytes(threadId) - startBytes);
+    }
+
+    // 99k more rows, each with 3 containers: less than 1 byte per container means no per-container allocations
+    assertTrue((largeAllocated - smallAllocated) < 99_000, "small " + smallAllocated + " large " + largeAllocated);
+  }
+
+  private static List<Object> rows(final int count) {
+    final ArrayList<Object> rows = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      rows.add(Map.of("id", i & 0xff, "tags", List.of(1, 2), "nested", Map.of("x", List.of())));
+    }
+    return rows;
+  }
+
+  private int readAllTokens(final byte[] enc) throws IOException {
+    int count = 0;
+    try (JsonParser parser = YAJBE_MAPPER.createParser(enc)) {
+      while (parser.nextToken() != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
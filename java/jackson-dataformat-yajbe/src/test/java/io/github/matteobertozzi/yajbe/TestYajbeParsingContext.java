@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.filter.FilteringParserDelegate;
+import com.fasterxml.jackson.core.filter.JsonPointerBasedFilter;
+import com.fasterxml.jackson.core.filter.TokenFilter.Inclusion;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+public class TestYajbeParsingContext extends BaseYajbeTest {
+  private static final JsonMapper JSON_MAPPER = new JsonMapper();
+  private static final String[] DOCUMENTS = new String[] {
+    "{}", "[]", "10", "\"abc\"",
+    "{\"a\":1,\"b\":[1,2,{\"c\":3,\"d\":[]}],\"e\":{\"f\":{\"g\":[[1],[2,3]]}},\"h\":\"x\"}",
+    "[{\"a\":[1,2,3]},[{\"b\":{}},4],[],{\"c\":[5.5,6.5]},\"z\"]",
+  };
+
+  @Test
+  public void testContextMatchesJson() throws IOException {
+    for (final String json: DOCUMENTS) {
+      final JsonNode tree = JSON_MAPPER.readTree(json);
+      // eof containers, fixed length containers, and typed arrays
+      for (int mode = 0; mode < 3; ++mode) {
+        try (JsonParser jsonParser = JSON_MAPPER.createParser(json);
+             JsonParser parser = YAJBE_MAPPER.createParser(encodeTree(tree, mode))) {
+          JsonToken token;
+          while ((token = jsonParser.nextToken()) != null) {
+            assertEquals(token, parser.nextToken(), json);
+            assertContextEquals(jsonParser, parser);
+          }
+          assertNull(parser.nextToken());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testFilteringParser() throws IOException {
+    final String json = DOCUMENTS[4];
+    final byte[] enc = encodeTree(JSON_MAPPER.readTree(json), 0);
+    for (final String path: new String[] { "/b/2/c", "/e/f", "/b/1", "/h", "/x" }) {
+      final JsonPointerBasedFilter filter = new JsonPointerBasedFilter(JsonPointer.compile(path));
+      try (JsonParser jsonParser = new FilteringParserDelegate(JSON_MAPPER.createParser(json), filter, Inclusion.ONLY_INCLUDE_ALL, false);
+           JsonParser parser = new FilteringParserDelegate(YAJBE_MAPPER.createParser(enc), filter, Inclusion.ONLY_INCLUDE_ALL, false)) {
+        final JsonNode expected = JSON_MAPPER.readTree(jsonParser);
+        assertEquals(expected, JSON_MAPPER.readTree(parser), path);
+      }
+    }
+  }
+
+  @Test
+  public void testTokenLocation() throws IOException {
+    // 23 (array of 3) | 40 (int 1) | c3 616263 ("abc") | 3f (object) 81 61 (field "a") 3f 01 (empty object) | 01 (eof)
+    final byte[] enc = YAJBE_MAPPER.writeValueAsBytes(new Object[] { 1, "abc", Map.of("a", Map.of()) });
+    try (JsonParser parser = YAJBE_MAPPER.createParser(enc)) {
+      final long[] offsets = new long[] { 0, 1, 2, 6, 7, 9, 10, 11, 12 };
+      for (int i = 0; parser.nextToken() != null; ++i) {
+        assertEquals(offsets[i], parser.currentTokenLocation().getByteOffset(), parser.currentToken().toString());
+      }
+      assertEquals(enc.length, parser.currentLocation().getByteOffset());
+    }
+
+    // the offsets are relative to the start of the input
+    final byte[] padded = new byte[enc.length + 10];
+    System.arraycopy(enc, 0, padded, 5, enc.length);
+    try (JsonParser parser = YAJBE_MAPPER.createParser(padded, 5, enc.length)) {
+      parser.nextToken();
+      parser.nextToken();
+      assertEquals(1, parser.currentTokenLocation().getByteOffset());
+    }
+  }
+
+  @Test
+  public void testCurrentValue() throws IOException {
+    final byte[] enc = YAJBE_MAPPER.writeValueAsBytes(Map.of("a", Map.of("b", 1)));
+    try (JsonParser parser = YAJBE_MAPPER.createParser(enc)) {
+      final Object outer = new Object();
+      final Object inner = new Object();
+      parser.nextToken();
+      parser.assignCurrentValue(outer);
+      parser.nextToken();
+      parser.nextToken();
+      assertNull(parser.currentValue());
+      parser.assignCurrentValue(inner);
+      assertSame(outer, parser.getParsingContext().getParent().getCurrentValue());
+      assertEquals("b", parser.nextFieldName());
+      assertSame(inner, parser.currentValue());
+      parser.nextToken();
+      assertEquals(JsonToken.END_OBJECT, parser.nextToken());
+      assertSame(outer, parser.currentValue());
+      assertEquals(JsonToken.END_OBJECT, parser.nextToken());
+      assertNull(parser.currentValue());
+    }
+  }
+
+  @Test
+  public void testRecycledStack() throws IOException {
+    final byte[] enc = YAJBE_MAPPER.writeValueAsBytes(Map.of("a", Map.of("b", Map.of("c", 1))));
+    try (JsonParser parser = YAJBE_MAPPER.createParser(enc)) {
+      // close in the middle of the document, with names and values on the stack
+      for (int i = 0; i < 6; ++i) {
+        parser.nextToken();
+        parser.assignCurrentValue(i);
+      }
+      assertEquals("/a/b/c", parser.getParsingContext().pathAsPointer().toString());
+      parser.close();
+
+      // the stack is owned by the next parser, the closed one reports the root context
+      final JsonStreamContext ctx = parser.getParsingContext();
+      assertTrue(ctx.inRoot());
+      assertNull(ctx.getParent());
+      assertNull(parser.currentName());
+      assertNull(parser.currentValue());
+      assertNull(parser.nextToken());
+    }
+
+    // the next parser gets the recycled stack without the previous names and values
+    try (JsonParser parser = YAJBE_MAPPER.createParser(enc)) {
+      for (int i = 0; i < 6; ++i) {
+        parser.nextToken();
+        assertNull(parser.currentValue());
+      }
+      assertEquals("/a/b/c", parser.getParsingContext().pathAsPointer().toString());
+    }
+  }
+
+  private static void assertContextEquals(final JsonParser expected, final JsonParser parser) throws IOException {
+    final String msg = expected.currentToken() + " " + expected.getParsingContext().pathAsPointer();
+    assertEquals(expected.currentName(), parser.currentName(), msg);
+    final JsonStreamContext expectedCtx = expected.getParsingContext();
+    final JsonStreamContext ctx = parser.getParsingContext();
+    assertEquals(expectedCtx.pathAsPointer(), ctx.pathAsPointer(), msg);
+    assertEquals(expectedCtx.typeDesc(), ctx.typeDesc(), msg);
+    assertEquals(expectedCtx.getNestingDepth(), ctx.getNestingDepth(), msg);
+    assertEquals(expectedCtx.getCurrentIndex(), ctx.getCurrentIndex(), msg);
+    assertEquals(expectedCtx.getEntryCount(), ctx.getEntryCount(), msg);
+    assertEquals(expectedCtx.getCurrentName(), ctx.getCurrentName(), msg);
+  }
+
+  private byte[] encodeTree(final JsonNode tree, final int mode) throws IOException {
+    final YajbeFactory factory = new YajbeFactory();
+    if (mode == 2) factory.enable(YajbeGeneratorFeature.TYPED_ARRAYS);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (JsonGenerator gen = factory.createGenerator(out)) {
+      writeTree(gen, tree, mode != 0);
+    }
+    return out.toByteArray();
+  }
+
+  private static void writeTree(final JsonGenerator gen, final JsonNode node, final boolean fixed) throws IOException {
+    if (node.isObject()) {
+      if (fixed) gen.writeStartObject(null, node.size()); else gen.writeStartObject();
+      final Iterator<Map.Entry<String, JsonNode>> it = node.fields();
+      while (it.hasNext()) {
+        final Map.Entry<String, JsonNode> entry = it.next();
+        gen.writeFieldName(entry.getKey());
+        writeTree(gen, entry.getValue(), fixed);
+      }
+      gen.writeEndObject();
+    } else if (node.isArray()) {
+      if (fixed && node.size() > 0 && node.get(0).isInt() && node.get(node.size() - 1).isInt()) {
+        // with TYPED_ARRAYS enabled the int arrays are written as typed arrays
+        final int[] items = new int[node.size()];
+        for (int i = 0; i < items.length; ++i) items[i] = node.get(i).intValue();
+        gen.writeArray(items, 0, items.length);
+        return;
+      }
+      if (fixed) gen.writeStartArray(null, node.size()); else gen.writeStartArray();
+      for (final JsonNode item: node) {
+        writeTree(gen, item, fixed);
+      }
+      gen.writeEndArray();
+    } else {
+      JSON_MAPPER.writeTree(gen, node);
+    }
+  }
+}
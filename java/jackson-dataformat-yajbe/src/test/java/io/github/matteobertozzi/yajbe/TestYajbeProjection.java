@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumLruMappingConfig;
+
+public class TestYajbeProjection extends BaseYajbeTest {
+  static final class Actor {
+    private long id;
+    private String login;
+  }
+
+  static final class Event {
+    private String type;
+    private Actor actor;
+    private Map<String, Object> payload;
+  }
+
+  @Test
+  public void testEvents() throws IOException {
+    final YajbeMapper enumMapper = new YajbeMapper(new YajbeFactory(new YajbeEnumLruMappingConfig(32, 1)));
+    for (final ObjectMapper writer: List.of(YAJBE_MAPPER, enumMapper)) {
+      final List<Map<String, Object>> events = randEvents(128);
+      final byte[] enc = writer.writeValueAsBytes(events);
+
+      final YajbeMapper mapper = (YajbeMapper) YAJBE_MAPPER;
+      final YajbeProjection projection = YajbeProjection.of("/*/type", "/*/actor/login");
+      final JsonNode tree = mapper.readTree(enc, projection);
+      assertEquals(events.size(), tree.size());
+      for (int i = 0; i < events.size(); ++i) {
+        final Map<String, Object> event = events.get(i);
+        final Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("type", event.get("type"));
+        expected.put("actor", Map.of("login", ((Map<?, ?>) event.get("actor")).get("login")));
+        assertEquals(JSON_MAPPER.valueToTree(expected), tree.get(i));
+      }
+
+      // pojo, with the stream reader
+      final Event[] pojos = mapper.reader(projection).forType(Event[].class).readValue(new ByteArrayInputStream(enc));
+      for (int i = 0; i < events.size(); ++i) {
+        assertEquals(events.get(i).get("type"), pojos[i].type);
+        assertEquals(((Map<?, ?>) events.get(i).get("actor")).get("login"), pojos[i].actor.login);
+        assertEquals(0, pojos[i].actor.id);
+        assertNull(pojos[i].payload);
+      }
+    }
+  }
+
+  @Test
+  public void testArrayIndexAndMerge() throws IOException {
+    final YajbeMapper mapper = (YajbeMapper) YAJBE_MAPPER;
+    final Map<String, Object> input = new LinkedHashMap<>();
+    input.put("items", List.of("a", "b", Map.of("x", 1, "y", 2), "d"));
+    input.put("a", Map.of("x", 10, "y", 20, "z", 30));
+    input.put("b", Map.of("x", 11, "y", 21, "z", 31));
+    input.put("c", "scalar");
+    final byte[] enc = mapper.writeValueAsBytes(input);
+
+    assertEquals(JSON_MAPPER.readTree("{\"items\":[\"b\",{\"y\":2}]}"),
+      mapper.readTree(enc, YajbeProjection.of("/items/1", "/items/2/y")));
+
+    // "a" matches both the name and the wildcard, "c" is not a container, "items" has no "y"
+    assertEquals(JSON_MAPPER.readTree("{\"items\":[],\"a\":{\"x\":10,\"y\":20},\"b\":{\"y\":21}}"),
+      mapper.readTree(enc, YajbeProjection.of("/a/x", "/*/y")));
+
+    assertEquals(JSON_MAPPER.readTree("{\"c\":\"scalar\",\"a\":{\"x\":10,\"y\":20,\"z\":30}}"),
+      mapper.readTree(enc, YajbeProjection.of("/c", "/a")));
+
+    assertEquals(JSON_MAPPER.valueToTree(input), mapper.readTree(enc, YajbeProjection.of("")));
+    assertEquals(JSON_MAPPER.readTree("{}"), mapper.readTree(enc, YajbeProjection.of("/missing")));
+  }
+
+  @Test
+  public void testTypedArrays() throws IOException {
+    final YajbeMapper mapper = (YajbeMapper) YAJBE_MAPPER;
+    final Map<String, Object> input = new LinkedHashMap<>();
+    input.put("ints", new int[] { 1, 2, 3, 4 });
+    input.put("doubles", new double[] { 1.5, 2.5 });
+    input.put("c", "scalar");
+    final byte[] enc = mapper.writer().with(YajbeGeneratorFeature.TYPED_ARRAYS).writeValueAsBytes(input);
+
+    assertEquals(JSON_MAPPER.readTree("{\"ints\":[2,4],\"doubles\":[],\"c\":\"scalar\"}"),
+      mapper.readTree(enc, YajbeProjection.of("/ints/1", "/ints/3", "/ints/5", "/doubles/0/x", "/c")));
+    assertEquals(JSON_MAPPER.readTree("{\"doubles\":[1.5,2.5]}"), mapper.readTree(enc, YajbeProjection.of("/doubles")));
+  }
+
+  private List<Map<String, Object>> randEvents(final int count) {
+    final ArrayList<Map<String, Object>> events = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      final LinkedHashMap<String, Object> actor = new LinkedHashMap<>();
+      actor.put("id", RANDOM.nextLong());
+      actor.put("login", "user-" + RANDOM.nextInt(8));
+      actor.put("url", "https://example.com/" + randText(2));
+
+      final LinkedHashMap<String, Object> event = new LinkedHashMap<>();
+      event.put("id", RANDOM.nextLong());
+      event.put("type", "type-" + RANDOM.nextInt(4));
+      event.put("actor", actor);
+      event.put("payload", Map.of("text", randText(RANDOM.nextInt(1, 32)), "values", List.of(RANDOM.nextInt(), 2.5, Map.of("k", "v"))));
+      events.add(event);
+    }
+    return events;
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumLruMappingConfig;
+
+public class TestYajbeSkipChildren extends BaseYajbeTest {
+  record FullRow (long id, String name, String type, Map<String, Object> extra, List<Object> items, int value) {}
+  static final class SmallRow {
+    private long id;
+    private String type;
+    private int value;
+  }
+
+  @Test
+  public void testSkipUnknownProperties() throws IOException {
+    final ObjectMapper enumMapper = new YajbeMapper(new YajbeFactory(new YajbeEnumLruMappingConfig(32, 1)));
+    for (final ObjectMapper mapper: List.of(YAJBE_MAPPER, enumMapper)) {
+      final ArrayList<FullRow> input = new ArrayList<>();
+      for (int i = 0; i < 256; ++i) {
+        input.add(new FullRow(RANDOM.nextLong(), randText(4), "type-" + RANDOM.nextInt(3), randExtra(), randItems(), i));
+      }
+
+      // the skipped "extra" maps add field names to the index, and strings to the enum mapping
+      final byte[] enc = mapper.writeValueAsBytes(input);
+      final SmallRow[] output = YAJBE_MAPPER.readValue(enc, SmallRow[].class);
+      assertSmallRows(input, output);
+
+      // stream reader
+      assertSmallRows(input, YAJBE_MAPPER.readValue(new ByteArrayInputStream(enc), SmallRow[].class));
+    }
+  }
+
+  private static void assertSmallRows(final List<FullRow> input, final SmallRow[] output) {
+    assertEquals(input.size(), output.length);
+    for (int i = 0; i < output.length; ++i) {
+      assertEquals(input.get(i).id(), output[i].id);
+      assertEquals(input.get(i).type(), output[i].type);
+      assertEquals(input.get(i).value(), output[i].value);
+    }
+  }
+
+  @Test
+  public void testSkipChildrenTokens() throws IOException {
+    final List<Object> input = List.of(
+      Map.of("a", randExtra(), "b", 1),
+      randItems(),
+      List.of(),
+      Map.of(),
+      "end"
+    );
+
+    final byte[] enc = YAJBE_MAPPER.writeValueAsBytes(input);
+    try (JsonParser parser = YAJBE_MAPPER.createParser(enc)) {
+      assertEquals(JsonToken.START_ARRAY, parser.nextToken());
+      for (int i = 0; i < 4; ++i) {
+        final JsonToken start = parser.nextToken();
+        parser.skipChildren();
+        assertEquals(start == JsonToken.START_OBJECT ? JsonToken.END_OBJECT : JsonToken.END_ARRAY, parser.currentToken());
+      }
+      assertEquals(JsonToken.VALUE_STRING, parser.nextToken());
+      assertEquals("end", parser.getText());
+      assertEquals(JsonToken.END_ARRAY, parser.nextToken());
+    }
+  }
+
+  private Map<String, Object> randExtra() {
+    final LinkedHashMap<String, Object> extra = new LinkedHashMap<>();
+    extra.put("key" + RANDOM.nextInt(8), randText(RANDOM.nextInt(1, 20)));
+    extra.put("type", "type-" + RANDOM.nextInt(3));
+    extra.put("bytes", new byte[RANDOM.nextInt(0, 100)]);
+    extra.put("float", RANDOM.nextFloat());
+    extra.put("double", RANDOM.nextDouble());
+    extra.put("big", new BigDecimal(BigInteger.valueOf(RANDOM.nextLong()).pow(2), 3));
+    extra.put("nested", Map.of("x", List.of(RANDOM.nextLong(), Map.of("y", true))));
+    return extra;
+  }
+
+  private List<Object> randItems() {
+    final ArrayList<Object> items = new ArrayList<>();
+    for (int i = 0, n = RANDOM.nextInt(0, 20); i < n; ++i) {
+      items.add(RANDOM.nextBoolean() ? RANDOM.nextInt() : "item-" + RANDOM.nextInt(4));
+    }
+    items.add(null);
+    return items;
+  }
+}
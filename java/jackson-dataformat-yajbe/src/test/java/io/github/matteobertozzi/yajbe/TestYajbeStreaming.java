@@ -1,17 +1,30 @@
 package io.github.matteobertozzi.yajbe;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 
+import com.fasterxml.jackson.core.JsonGenerationException;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumLruMappingConfig;
 
 public class TestYajbeStreaming extends BaseYajbeTest {
   @Test
@@ -40,4 +53,142 @@ public class TestYajbeStreaming extends BaseYajbeTest {
       }
     }
   }
+
+  @Test
+  public void testRecycledState() throws IOException {
+    // field names, stacks and enum mappings are reused by the next parser/generator of the same factory
+    final ObjectMapper enumMapper = new YajbeMapper(new YajbeFactory(new YajbeEnumLruMappingConfig(32, 1)));
+    final List<Map<String, Object>> rowsA = List.of(Map.of("aaa", "x"), Map.of("aaa", "x"), Map.of("bbb", List.of(List.of("y"))));
+    final List<Map<String, Object>> rowsB = List.of(Map.of("bbb", "y"), Map.of("ccc", "y"), Map.of("aaa", "x"));
+
+    final byte[] encA = enumMapper.writeValueAsBytes(rowsA);
+    final byte[] encB = enumMapper.writeValueAsBytes(rowsB);
+    for (int i = 0; i < 8; ++i) {
+      // a recycled writer must not refer to the names or enums of the previous document
+      assertArrayEquals(encA, enumMapper.writeValueAsBytes(rowsA));
+      assertArrayEquals(encB, enumMapper.writeValueAsBytes(rowsB));
+      assertEquals(rowsA, enumMapper.readValue(encA, List.class));
+      assertEquals(rowsB, enumMapper.readValue(encB, List.class));
+    }
+
+    final JsonParser parser = enumMapper.createParser(encA);
+    parser.nextToken();
+    parser.close();
+    assertNull(parser.nextToken());
+  }
+
+  @Test
+  public void testUseAfterClose() throws IOException {
+    // the recycled state is owned by the next parser/generator, the closed ones report a jackson error
+    final ObjectMapper enumMapper = new YajbeMapper(new YajbeFactory(new YajbeEnumLruMappingConfig(32, 1)));
+    final JsonGenerator generator = enumMapper.createGenerator(new ByteArrayOutputStream());
+    generator.writeStartObject();
+    generator.close();
+    assertThrows(JsonGenerationException.class, () -> generator.writeFieldName("aaa"));
+    assertThrows(JsonGenerationException.class, () -> generator.writeString("aaa"));
+    assertThrows(JsonGenerationException.class, generator::writeStartArray);
+    assertThrows(JsonGenerationException.class, generator::writeEndObject);
+
+    final YajbeParser parser = (YajbeParser) enumMapper.createParser(enumMapper.writeValueAsBytes(Map.of("aaa", 1)));
+    assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+    assertEquals(JsonToken.FIELD_NAME, parser.nextToken());
+    assertEquals(0, parser.currentFieldIndex());
+    parser.close();
+    assertThrows(JsonParseException.class, parser::currentFieldIndex);
+    assertThrows(JsonParseException.class, () -> parser.fieldIndexCache(this, 0));
+  }
+
+  @Test
+  public void testRecycleStateDisabled() throws IOException {
+    final byte[] enc = YAJBE_MAPPER.writeValueAsBytes(Map.of("aaa", 1));
+    for (final boolean recycle: new boolean[] { true, false }) {
+      final YajbeFactory factory = new YajbeFactory().configure(YajbeFactoryFeature.RECYCLE_STATE, recycle);
+      final YajbeParser parserA = (YajbeParser) factory.createParser(enc);
+      final YajbeFieldNameReader names = parserA.fieldNameReader();
+      parserA.close();
+
+      try (YajbeParser parserB = (YajbeParser) factory.createParser(enc)) {
+        assertEquals(recycle, names == parserB.fieldNameReader());
+        assertEquals(Map.of("aaa", 1), new YajbeMapper(factory).readValue(parserB, Map.class));
+      }
+    }
+  }
+
+  @Test
+  public void testNextValue() throws IOException {
+    final ByteArrayOutputStream wstream = new ByteArrayOutputStream();
+    try (JsonGenerator generator = YAJBE_MAPPER.createGenerator(wstream)) {
+      for (int i = 0; i < 2; ++i) {
+        // fixed length and eof objects
+        if (i == 0) generator.writeStartObject(null, 3); else generator.writeStartObject();
+        generator.writeNumberField("int", 10 + i);
+        generator.writeNumberField("long", Long.MAX_VALUE - i);
+        generator.writeFieldName("obj");
+        generator.writeStartObject();
+        generator.writeStringField("text", "value-" + i);
+        generator.writeEndObject();
+        generator.writeEndObject();
+      }
+    }
+
+    final SerializedString intName = new SerializedString("int");
+    try (JsonParser parser = YAJBE_MAPPER.createParser(wstream.toByteArray())) {
+      for (int i = 0; i < 2; ++i) {
+        assertNull(parser.nextFieldName());
+        assertEquals(JsonToken.START_OBJECT, parser.currentToken());
+        assertTrue(parser.nextFieldName(intName));
+        assertEquals("int", parser.currentName());
+        assertEquals("int", parser.currentName());
+        assertEquals(10 + i, parser.nextIntValue(-1));
+        assertFalse(parser.nextFieldName(intName));
+        assertEquals("long", parser.currentName());
+        assertEquals(Long.MAX_VALUE - i, parser.nextLongValue(-1L));
+        assertEquals("obj", parser.nextFieldName());
+        assertEquals(-1, parser.nextIntValue(-1));
+        assertEquals(JsonToken.START_OBJECT, parser.currentToken());
+        assertEquals("text", parser.nextFieldName());
+        assertEquals("value-" + i, parser.nextTextValue());
+        assertNull(parser.nextFieldName());
+        assertEquals(JsonToken.END_OBJECT, parser.currentToken());
+        assertNull(parser.nextFieldName());
+        assertEquals(JsonToken.END_OBJECT, parser.currentToken());
+      }
+      assertNull(parser.nextFieldName());
+      assertNull(parser.currentToken());
+    }
+  }
+
+  @Test
+  public void testNextValueArray() throws IOException {
+    final String longText = "x".repeat(100);
+    final byte[] enc = YAJBE_MAPPER.writeValueAsBytes(List.of(Map.of("k", 1), 1, -300, Long.MIN_VALUE, "abc", longText, 2.5, List.of("z")));
+    try (JsonParser parser = YAJBE_MAPPER.createParser(enc)) {
+      assertEquals(JsonToken.START_ARRAY, parser.nextToken());
+      assertNull(parser.nextTextValue());
+      assertEquals(JsonToken.START_OBJECT, parser.currentToken());
+      // a different instance with the same value, and the cached field index
+      assertTrue(parser.nextFieldName(new SerializedString("k")));
+      assertEquals(1, parser.nextLongValue(-1));
+      assertEquals("/0/k", parser.getParsingContext().pathAsPointer().toString());
+      assertEquals(JsonToken.END_OBJECT, parser.nextToken());
+
+      assertNull(parser.nextTextValue());
+      assertEquals(1, parser.getIntValue());
+      assertEquals(-300, parser.nextIntValue(0));
+      assertEquals(2, parser.getParsingContext().getCurrentIndex());
+      assertEquals(Long.MIN_VALUE, parser.nextLongValue(0));
+      assertEquals(-1, parser.nextIntValue(-1));
+      assertEquals("abc", parser.getText());
+      assertEquals(longText, parser.nextTextValue());
+      assertEquals(5, parser.getParsingContext().getCurrentIndex());
+      assertEquals(0, parser.nextLongValue(0));
+      assertEquals(JsonToken.VALUE_NUMBER_FLOAT, parser.currentToken());
+      assertNull(parser.nextTextValue());
+      assertEquals(JsonToken.START_ARRAY, parser.currentToken());
+      assertEquals("z", parser.nextTextValue());
+      assertEquals(JsonToken.END_ARRAY, parser.nextToken());
+      assertEquals(JsonToken.END_ARRAY, parser.nextToken());
+      assertNull(parser.nextToken());
+    }
+  }
 }
@@ -17,12 +17,31 @@
 
 package io.github.matteobertozzi.yajbe;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.Test;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import io.github.matteobertozzi.yajbe.YajbeEnumMapping.YajbeEnumLruMappingConfig;
+
 public class TestYajbeStrings extends BaseYajbeTest {
   @Test
   public void testSimple() throws IOException {
@@ -76,4 +95,144 @@ public class TestYajbeStrings extends BaseYajbeTest {
       assertEquals(input, YAJBE_MAPPER.readValue(enc, String.class));
     }
   }
+
+  // no enum mapping, the values are always encoded as strings (and each one decoded to a new String)
+  private final YajbeMapper plainMapper = new YajbeMapper();
+
+  @Test
+  public void testUtf8Encoding() throws IOException {
+    final String[] chunks = new String[] { "a", "\u00e8", "\u20ac", "\ud83d\ude00", "\ud83d", "\ude00" };
+    // around the inline length, the header width changes and the 8000 bytes buffer (2664 chars backpatch limit)
+    final int[] lengths = new int[] { 1, 19, 20, 21, 58, 59, 60, 61, 104, 105, 314, 315, 2663, 2664, 2665, 8000, 20000 };
+    for (final int length: lengths) {
+      for (int i = 0; i < chunks.length; ++i) {
+        assertUtf8Encoding(chunks[i].repeat(length));
+        assertUtf8Encoding("x".repeat(length) + chunks[i]);
+        assertUtf8Encoding(chunks[i] + "x".repeat(length));
+      }
+      final StringBuilder mixed = new StringBuilder();
+      while (mixed.length() < length) mixed.append(chunks[RANDOM.nextInt(chunks.length)]);
+      assertUtf8Encoding(mixed.toString());
+    }
+  }
+
+  private void assertUtf8Encoding(final String text) throws IOException {
+    final byte[] expected = encode(text, 0);
+    assertArrayEquals(expected, encode(text, 1));
+    assertArrayEquals(expected, encode(text, 2));
+    // unpaired surrogates are encoded as '?'
+    final String decoded = new String(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+    assertEquals(decoded, plainMapper.readValue(expected, String.class));
+  }
+
+  private byte[] encode(final String text, final int mode) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (JsonGenerator gen = plainMapper.getFactory().createGenerator(out)) {
+      final byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+      switch (mode) {
+        case 0 -> gen.writeUTF8String(utf8, 0, utf8.length);
+        case 1 -> gen.writeString(text);
+        case 2 -> gen.writeString(("-" + text + "-").toCharArray(), 1, text.length());
+      }
+    }
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testTextBuffer() throws IOException {
+    final ObjectReader reader = plainMapper.reader().with(YajbeParserFeature.TEXT_BUFFER);
+    final String[] values = new String[] {
+      "", "abc", "x".repeat(60), "\u00e8\u20ac\ud83d\ude00", "\ud83d-" + "z".repeat(1000), randText(500)
+    };
+    for (final String value: values) {
+      final byte[] enc = plainMapper.writeValueAsBytes(List.of(value, 10, value));
+      try (JsonParser parser = reader.createParser(enc)) {
+        assertEquals(JsonToken.START_ARRAY, parser.nextToken());
+        assertEquals(JsonToken.VALUE_STRING, parser.nextToken());
+        // the unpaired surrogate is encoded as '?'
+        final String expected = new String(value.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        assertTrue(parser.hasTextCharacters());
+        assertEquals(expected, new String(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+        assertEquals(expected, parser.getText());
+        assertFalse(parser.hasTextCharacters());
+        assertEquals(expected, new String(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+        assertEquals(JsonToken.VALUE_NUMBER_INT, parser.nextToken());
+        assertEquals(JsonToken.VALUE_STRING, parser.nextToken());
+        assertEquals(expected, parser.getText());
+      }
+    }
+
+    // the string values are decoded by the deserializers from the text buffer
+    final UUID uuid = UUID.randomUUID();
+    final Map<String, Object> input = Map.of("uuid", uuid.toString(), "unit", "SECONDS", "num", "123.5", "text", "hello");
+    final byte[] enc = plainMapper.writeValueAsBytes(input);
+    assertEquals(input, reader.forType(Map.class).readValue(enc));
+    final TextBufferObj obj = reader.forType(TextBufferObj.class).readValue(enc);
+    assertEquals(uuid, obj.uuid);
+    assertEquals(TimeUnit.SECONDS, obj.unit);
+    assertEquals(123.5, obj.num);
+    assertEquals("hello", obj.text);
+  }
+
+  @Test
+  public void testTextBufferEnumMarkers() throws IOException {
+    // with the index markers the enum mapping is not replayed, the inline strings are still in the text buffer
+    final YajbeMapper mapper = new YajbeMapper(new YajbeFactory(new YajbeEnumLruMappingConfig(32, 2)).enable(YajbeGeneratorFeature.ENUM_INDEX_MARKERS));
+    final ArrayList<String> input = new ArrayList<>();
+    for (int i = 0; i < 50; ++i) {
+      input.add("value-" + (i % 5));
+      input.add("unique-" + i);
+    }
+    final byte[] enc = mapper.writeValueAsBytes(input);
+
+    int textBufferCount = 0;
+    try (JsonParser parser = mapper.reader().with(YajbeParserFeature.TEXT_BUFFER).createParser(enc)) {
+      assertEquals(JsonToken.START_ARRAY, parser.nextToken());
+      for (final String expected: input) {
+        assertEquals(JsonToken.VALUE_STRING, parser.nextToken());
+        if (parser.hasTextCharacters()) textBufferCount++;
+        assertEquals(expected, new String(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+        assertEquals(expected, parser.getText());
+      }
+      assertEquals(JsonToken.END_ARRAY, parser.nextToken());
+    }
+    // the unique strings and the first occurrences are inline, the indexed ones are enum references
+    assertTrue(textBufferCount >= 50 && textBufferCount < input.size(), "text buffer count " + textBufferCount);
+    assertEquals(input, mapper.reader().with(YajbeParserFeature.TEXT_BUFFER).forType(List.class).readValue(enc));
+  }
+
+  public static final class TextBufferObj {
+    public UUID uuid;
+    public TimeUnit unit;
+    public double num;
+    public String text;
+  }
+
+  @Test
+  public void testStringValueCache() throws IOException {
+    final String longValue = "long-value-".repeat(10);
+    final ArrayList<List<String>> input = new ArrayList<>();
+    for (int i = 0; i < 100; ++i) {
+      input.add(List.of("host-" + (i % 10), "\u00e8-status-" + (i % 3), longValue));
+    }
+    final byte[] enc = plainMapper.writeValueAsBytes(input);
+
+    final ObjectReader reader = plainMapper.readerFor(List.class).with(YajbeParserFeature.STRING_VALUE_CACHE);
+    final List<List<String>> cached = reader.readValue(enc);
+    final List<List<String>> plain = plainMapper.readerFor(List.class).readValue(enc);
+    assertEquals(input, cached);
+    assertEquals(input, plain);
+    for (int i = 10; i < input.size(); ++i) {
+      final List<String> row = cached.get(i);
+      assertSame(cached.get(i % 10).get(0), row.get(0));
+      assertSame(cached.get(i % 3).get(1), row.get(1));
+      // only the short strings are cached
+      assertNotSame(cached.get(0).get(2), row.get(2));
+      assertNotSame(plain.get(i % 10).get(0), plain.get(i).get(0));
+    }
+
+    // the table is owned by the factory, the values are shared across the documents
+    final List<List<String>> other = reader.readValue(plainMapper.writeValueAsBytes(List.of(List.of("host-3"))));
+    assertSame(cached.get(3).get(0), other.get(0).get(0));
+  }
 }
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.yajbe.examples.bench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.matteobertozzi.yajbe.YajbeMapper;
+import io.github.matteobertozzi.yajbe.examples.util.ExamplesUtil;
+
+/**
+ * Streams the tokens of array-of-objects and nested-arrays payloads with nextToken().
+ * Run with the GC profiler: "gc.alloc.rate.norm" (bytes per op) must not grow with
+ * the number of containers, the only allocations left are the per-parser ones.
+ * (mvn install the local jackson-dataformat-yajbe to benchmark the working tree)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+public class BenchParserContainers {
+  private static final ObjectMapper YAJBE_MAPPER = ExamplesUtil.newObjectMapper(new YajbeMapper());
+
+  @Param({ "100", "10000" })
+  private int containers;
+
+  @Param({ "array-of-objects", "nested-arrays" })
+  private String shape;
+
+  private byte[] encodedData;
+
+  @Setup
+  public void setup() throws IOException {
+    final Object data = switch (shape) {
+      case "array-of-objects" -> arrayOfObjects(containers);
+      case "nested-arrays" -> nestedArrays(containers);
+      default -> throw new IllegalArgumentException("invalid shape " + shape);
+    };
+    this.encodedData = YAJBE_MAPPER.writeValueAsBytes(data);
+  }
+
+  private static List<Object> arrayOfObjects(final int count) {
+    final ArrayList<Object> rows = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      final LinkedHashMap<String, Object> row = new LinkedHashMap<>();
+      row.put("id", i & 0xffff);
+      row.put("tags", List.of(1, 2, 3));
+      row.put("nested", Map.of("x", i & 0xff));
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  private static List<Object> nestedArrays(final int count) {
+    // groups of 8 levels deep arrays, so the stack depth stays constant
+    final ArrayList<Object> groups = new ArrayList<>(count / 8);
+    for (int i = 0; i < count; i += 8) {
+      Object item = List.of(i & 0xff);
+      for (int d = 1; d < 8; ++d) {
+        item = List.of(item, d);
+      }
+      groups.add(item);
+    }
+    return groups;
+  }
+
+  @Benchmark
+  public int test_next_token(final Blackhole bh) throws IOException {
+    int count = 0;
+    try (JsonParser parser = YAJBE_MAPPER.createParser(encodedData)) {
+      JsonToken token;
+      while ((token = parser.nextToken()) != null) {
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+          bh.consume(parser.getIntValue());
+        }
+        count++;
+      }
+    }
+    return count;
+  }
+
+  public static void main(final String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(BenchParserContainers.class.getSimpleName())
+      .addProfiler(GCProfiler.class)
+      .result("results-parser-containers.csv")
+      .resultFormat(ResultFormatType.CSV)
+      .build()
+    ).run();
+  }
+}